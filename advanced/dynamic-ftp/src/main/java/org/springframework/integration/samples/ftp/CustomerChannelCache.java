@@ -0,0 +1,256 @@
+/*
+ * Copyright 2002-2026 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.integration.samples.ftp;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageChannel;
+import org.springframework.util.Assert;
+
+/**
+ * A concurrent cache of per-customer resources (an application context, a flow
+ * registration...) that each provide a channel.
+ * <p>
+ * Looking up a cached customer is lock-free. A missing customer's resource is created
+ * by one thread, while other threads needing the same customer wait for it; threads
+ * needing other customers are not blocked. When there are more than the maximum number
+ * of customers, the least recently used is evicted.
+ * <p>
+ * The channels returned are guards around the resources' channels that count the sends
+ * in progress: an evicted resource is only closed when its last send completes, and a
+ * send to a channel that was evicted after it was resolved goes to a new resource for
+ * the customer.
+ *
+ * @param <T> the resource type.
+ *
+ * @since 5.1
+ *
+ */
+public class CustomerChannelCache<T> {
+
+	/**
+	 * Access times are only updated when they are older than this, so that hits on busy
+	 * customers do not all write to the same field.
+	 */
+	private static final long ACCESS_GRANULARITY = 100;
+
+	private final ConcurrentMap<String, GuardedChannel> channels = new ConcurrentHashMap<>();
+
+	private final Function<String, T> factory;
+
+	private final Function<T, MessageChannel> channelAccessor;
+
+	private final Consumer<T> closer;
+
+	private final int maxSize;
+
+	/**
+	 * @param factory creates the resource for a customer.
+	 * @param channelAccessor returns a resource's channel.
+	 * @param closer closes a resource.
+	 * @param maxSize the maximum number of customers.
+	 */
+	public CustomerChannelCache(Function<String, T> factory, Function<T, MessageChannel> channelAccessor,
+			Consumer<T> closer, int maxSize) {
+
+		Assert.notNull(factory, "'factory' cannot be null");
+		Assert.notNull(channelAccessor, "'channelAccessor' cannot be null");
+		Assert.notNull(closer, "'closer' cannot be null");
+		Assert.isTrue(maxSize > 0, "'maxSize' must be > 0");
+		this.factory = factory;
+		this.channelAccessor = channelAccessor;
+		this.closer = closer;
+		this.maxSize = maxSize;
+	}
+
+	/**
+	 * Return the channel for the customer, creating its resource if necessary.
+	 * @param customer the customer.
+	 * @return the channel.
+	 */
+	public MessageChannel get(String customer) {
+		GuardedChannel channel = this.channels.get(customer);
+		if (channel == null || channel.target == null) {
+			channel = create(customer);
+		}
+		channel.touch();
+		return channel;
+	}
+
+	public int size() {
+		return this.channels.size();
+	}
+
+	/**
+	 * Evict all customers; their resources are closed when their sends in progress
+	 * complete.
+	 */
+	public void clear() {
+		for (GuardedChannel channel : this.channels.values()) {
+			evict(channel);
+		}
+	}
+
+	private GuardedChannel create(String customer) {
+		while (true) {
+			GuardedChannel channel = this.channels.computeIfAbsent(customer, GuardedChannel::new);
+			boolean created = false;
+			synchronized (channel) {
+				if (channel.target == null && !channel.isClosed()) {
+					try {
+						channel.resource = this.factory.apply(customer);
+					}
+					catch (RuntimeException e) {
+						this.channels.remove(customer, channel);
+						throw e;
+					}
+					channel.target = this.channelAccessor.apply(channel.resource);
+					created = true;
+				}
+			}
+			if (channel.target != null) {
+				if (created) {
+					evictLeastRecentlyUsed(channel);
+				}
+				return channel;
+			}
+			// evicted before it was created; try again with a new entry
+		}
+	}
+
+	private void evictLeastRecentlyUsed(GuardedChannel keep) {
+		while (this.channels.size() > this.maxSize) {
+			GuardedChannel eldest = null;
+			for (GuardedChannel channel : this.channels.values()) {
+				if (channel != keep && (eldest == null || channel.lastAccess < eldest.lastAccess)) {
+					eldest = channel;
+				}
+			}
+			if (eldest == null) {
+				return;
+			}
+			evict(eldest);
+		}
+	}
+
+	private void evict(GuardedChannel channel) {
+		if (this.channels.remove(channel.customer, channel)) {
+			channel.close();
+		}
+	}
+
+	/**
+	 * Delegates to a resource's channel, counting sends in progress; the state is the
+	 * number of sends in progress, with the sign bit set when the channel is closed.
+	 */
+	private final class GuardedChannel implements MessageChannel {
+
+		private static final int CLOSED = Integer.MIN_VALUE;
+
+		private final AtomicInteger state = new AtomicInteger();
+
+		private final String customer;
+
+		private volatile T resource;
+
+		private volatile MessageChannel target;
+
+		private volatile long lastAccess = System.currentTimeMillis();
+
+		GuardedChannel(String customer) {
+			this.customer = customer;
+		}
+
+		@Override
+		public boolean send(Message<?> message, long timeout) {
+			if (!acquire()) {
+				// evicted since it was resolved
+				return get(this.customer).send(message, timeout);
+			}
+			try {
+				return this.target.send(message, timeout);
+			}
+			finally {
+				release();
+			}
+		}
+
+		void touch() {
+			long now = System.currentTimeMillis();
+			if (now - this.lastAccess >= ACCESS_GRANULARITY) {
+				this.lastAccess = now;
+			}
+		}
+
+		boolean isClosed() {
+			return this.state.get() < 0;
+		}
+
+		private boolean acquire() {
+			while (true) {
+				int state = this.state.get();
+				if (state < 0) {
+					return false;
+				}
+				if (this.state.compareAndSet(state, state + 1)) {
+					return true;
+				}
+			}
+		}
+
+		private void release() {
+			if (this.state.decrementAndGet() == CLOSED) {
+				closeResource();
+			}
+		}
+
+		void close() {
+			while (true) {
+				int state = this.state.get();
+				if (state < 0) {
+					return;
+				}
+				if (this.state.compareAndSet(state, state | CLOSED)) {
+					if (state == 0) {
+						closeResource();
+					}
+					// otherwise, the last send closes it
+					return;
+				}
+			}
+		}
+
+		private synchronized void closeResource() {
+			T resource = this.resource;
+			if (resource != null) {
+				this.resource = null;
+				CustomerChannelCache.this.closer.accept(resource);
+			}
+		}
+
+		@Override
+		public String toString() {
+			return "GuardedChannel [customer=" + this.customer + ", target=" + this.target + "]";
+		}
+
+	}
+
+}
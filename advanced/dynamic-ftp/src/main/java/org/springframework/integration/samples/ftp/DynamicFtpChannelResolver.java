@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2012 the original author or authors.
+ * Copyright 2002-2026 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -15,16 +15,17 @@
  */
 package org.springframework.integration.samples.ftp;
 
-import java.util.HashMap;
-import java.util.LinkedHashMap;
-import java.util.Map;
-import java.util.Map.Entry;
 import java.util.Properties;
+import java.util.function.Function;
 
+import org.apache.commons.net.ftp.FTPFile;
+
+import org.springframework.beans.factory.DisposableBean;
 import org.springframework.context.ConfigurableApplicationContext;
 import org.springframework.context.support.ClassPathXmlApplicationContext;
 import org.springframework.core.env.PropertiesPropertySource;
 import org.springframework.core.env.StandardEnvironment;
+import org.springframework.integration.file.remote.session.SessionFactory;
 import org.springframework.messaging.MessageChannel;
 
 /**
@@ -36,7 +37,7 @@ import org.springframework.messaging.MessageChannel;
  * @since 2.1
  *
  */
-public class DynamicFtpChannelResolver {
+public class DynamicFtpChannelResolver implements DisposableBean {
 
 	//In production environment this value will be significantly higher
 	//This is just to demonstrate the concept of limiting the max number of
@@ -44,34 +45,42 @@ public class DynamicFtpChannelResolver {
 	//the code from a junit
 	public static final int MAX_CACHE_SIZE = 2;
 
-	private final LinkedHashMap<String, MessageChannel> channels =
-				new LinkedHashMap<String, MessageChannel>() {
-					
-					private static final long serialVersionUID = 1L;
-
-					@Override
-					protected boolean removeEldestEntry(
-							Entry<String, MessageChannel> eldest) {
-						//This returning true means the least recently used
-						//channel and its application context will be closed and removed
-						boolean remove = size() > MAX_CACHE_SIZE;
-						if(remove) {
-							MessageChannel channel = eldest.getValue();
-							ConfigurableApplicationContext ctx = contexts.get(channel);
-							if(ctx != null) { //shouldn't be null ideally
-								ctx.close();
-								contexts.remove(channel);
-							}
-						}
-						return remove;
-					}
-					
-				};
-
-	private final Map<MessageChannel, ConfigurableApplicationContext> contexts =
-				new HashMap<MessageChannel, ConfigurableApplicationContext>();
+	//When the cache is full, the least recently used customer's application context
+	//is closed, as soon as any sends to its channel in progress are complete
+	private final CustomerChannelCache<ConfigurableApplicationContext> channels;
+
+	private volatile Function<String, Properties> customerProperties =
+			DynamicFtpChannelResolver::customerProperties;
 
+	private volatile FtpSessionPools sessionPools;
 
+	public DynamicFtpChannelResolver() {
+		this(MAX_CACHE_SIZE);
+	}
+
+	/**
+	 * @param maxCacheSize the maximum number of customer application contexts.
+	 */
+	public DynamicFtpChannelResolver(int maxCacheSize) {
+		this.channels = new CustomerChannelCache<>(this::createNewCustomerContext,
+				ctx -> ctx.getBean("toFtpChannel", MessageChannel.class),
+				ConfigurableApplicationContext::close, maxCacheSize);
+	}
+
+	/**
+	 * @param customerProperties a function to look up the FTP properties for a customer.
+	 */
+	public void setCustomerProperties(Function<String, Properties> customerProperties) {
+		this.customerProperties = customerProperties;
+	}
+
+	/**
+	 * @param sessionPools the shared session pools; when null (default), each customer
+	 * context uses its own, non-caching, {@code ftpClientFactory}.
+	 */
+	public void setSessionPools(FtpSessionPools sessionPools) {
+		this.sessionPools = sessionPools;
+	}
 
 	/**
 	 * Resolve a customer to a channel, where each customer gets a private
@@ -82,27 +91,29 @@ public class DynamicFtpChannelResolver {
 	 * @return a channel
 	 */
 	public MessageChannel resolve(String customer) {
-		MessageChannel channel = this.channels.get(customer);
-		if (channel == null) {
-			channel = createNewCustomerChannel(customer);
-		}
-		return channel;
+		return this.channels.get(customer);
 	}
 
-	private synchronized MessageChannel createNewCustomerChannel(String customer) {
-		MessageChannel channel = this.channels.get(customer);
-		if (channel == null) {
-			ConfigurableApplicationContext ctx = new ClassPathXmlApplicationContext(
-					new String[] { "/META-INF/spring/integration/dynamic-ftp-outbound-adapter-context.xml" },
-					false);
-			this.setEnvironmentForCustomer(ctx, customer);
-			ctx.refresh();
-			channel = ctx.getBean("toFtpChannel", MessageChannel.class);
-			this.channels.put(customer, channel);
-			//Will works as the same reference is presented always
-			this.contexts.put(channel, ctx);
+	private ConfigurableApplicationContext createNewCustomerContext(String customer) {
+		ConfigurableApplicationContext ctx = new ClassPathXmlApplicationContext(
+				new String[] { "/META-INF/spring/integration/dynamic-ftp-outbound-adapter-context.xml" },
+				false);
+		// a copy; the session.factory property is added to it
+		Properties props = new Properties();
+		props.putAll(this.customerProperties.apply(customer));
+		FtpSessionPools pools = this.sessionPools;
+		if (pools != null) {
+			// the customer context uses the shared pool instead of its own ftpClientFactory
+			SessionFactory<FTPFile> pooled = pools.getSessionFactory(props.getProperty("host"),
+					Integer.parseInt(props.getProperty("port", "21")), props.getProperty("user"),
+					props.getProperty("password"));
+			ctx.addBeanFactoryPostProcessor(beanFactory ->
+					beanFactory.registerSingleton("pooledSessionFactory", pooled));
+			props.setProperty("session.factory", "pooledSessionFactory");
 		}
-		return channel;
+		this.setEnvironmentForCustomer(ctx, props);
+		ctx.refresh();
+		return ctx;
 	}
 
 	/**
@@ -110,19 +121,36 @@ public class DynamicFtpChannelResolver {
 	 * customer-specific application context.
 	 *
 	 * @param ctx
-	 * @param customer
+	 * @param props
 	 */
 	private void setEnvironmentForCustomer(ConfigurableApplicationContext ctx,
-			String customer) {
+			Properties props) {
 		StandardEnvironment env = new StandardEnvironment();
+		PropertiesPropertySource pps = new PropertiesPropertySource("ftpprops", props);
+		env.getPropertySources().addLast(pps);
+		ctx.setEnvironment(env);
+	}
+
+	/**
+	 * The FTP properties for a customer; a real implementation would look them up.
+	 *
+	 * @param customer
+	 * @return the properties
+	 */
+	static Properties customerProperties(String customer) {
 		Properties props = new Properties();
 		// populate properties for customer
 		props.setProperty("host", "host.for." + customer);
+		props.setProperty("port", "21");
 		props.setProperty("user", "user");
 		props.setProperty("password", "password");
 		props.setProperty("remote.directory", "/tmp");
-		PropertiesPropertySource pps = new PropertiesPropertySource("ftpprops", props);
-		env.getPropertySources().addLast(pps);
-		ctx.setEnvironment(env);
+		return props;
+	}
+
+	@Override
+	public void destroy() {
+		this.channels.clear();
 	}
+
 }
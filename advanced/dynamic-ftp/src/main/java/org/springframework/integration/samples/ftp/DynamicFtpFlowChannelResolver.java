@@ -0,0 +1,136 @@
+/*
+ * Copyright 2002-2026 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.integration.samples.ftp;
+
+import java.util.Properties;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+import org.apache.commons.net.ftp.FTPFile;
+
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.integration.dsl.IntegrationFlow;
+import org.springframework.integration.dsl.context.IntegrationFlowContext;
+import org.springframework.integration.dsl.context.IntegrationFlowContext.IntegrationFlowRegistration;
+import org.springframework.integration.file.remote.session.SessionFactory;
+import org.springframework.integration.ftp.dsl.Ftp;
+import org.springframework.integration.ftp.session.DefaultFtpSessionFactory;
+import org.springframework.messaging.MessageChannel;
+
+/**
+ * An alternative to {@link DynamicFtpChannelResolver} that registers a flow for each
+ * customer with the {@link IntegrationFlowContext} of the application context it is
+ * declared in, instead of creating an application context per customer.
+ * <p>
+ * The flow definition (the equivalent of
+ * {@code dynamic-ftp-outbound-adapter-context.xml}) is shared by all customers, so
+ * adding a customer involves no XML parsing, environment or bean factory; just the
+ * session factory and adapter beans.
+ * <p>
+ * With {@link #setSessionPools(FtpSessionPools) session pools}, customers that use the
+ * same server and credentials share a caching session factory instead of each logging in
+ * for every file.
+ *
+ * @since 5.1
+ *
+ */
+public class DynamicFtpFlowChannelResolver implements DisposableBean {
+
+	private final AtomicInteger registrations = new AtomicInteger();
+
+	private final IntegrationFlowContext flowContext;
+
+	private final CustomerChannelCache<IntegrationFlowRegistration> channels;
+
+	private volatile Function<String, Properties> customerProperties =
+			DynamicFtpChannelResolver::customerProperties;
+
+	private volatile FtpSessionPools sessionPools;
+
+	public DynamicFtpFlowChannelResolver(IntegrationFlowContext flowContext) {
+		this(flowContext, DynamicFtpChannelResolver.MAX_CACHE_SIZE);
+	}
+
+	/**
+	 * @param flowContext the flow context.
+	 * @param maxCacheSize the maximum number of registered customer flows.
+	 */
+	public DynamicFtpFlowChannelResolver(IntegrationFlowContext flowContext, int maxCacheSize) {
+		this.flowContext = flowContext;
+		this.channels = new CustomerChannelCache<>(this::register, IntegrationFlowRegistration::getInputChannel,
+				IntegrationFlowRegistration::destroy, maxCacheSize);
+	}
+
+	/**
+	 * @param customerProperties a function to look up the FTP properties for a customer.
+	 */
+	public void setCustomerProperties(Function<String, Properties> customerProperties) {
+		this.customerProperties = customerProperties;
+	}
+
+	/**
+	 * @param sessionPools the shared session pools; when null (default), each customer
+	 * gets its own, non-caching, session factory.
+	 */
+	public void setSessionPools(FtpSessionPools sessionPools) {
+		this.sessionPools = sessionPools;
+	}
+
+	/**
+	 * Resolve a customer to a channel, where each customer gets a registered flow and
+	 * the channel is the input channel of that flow.
+	 *
+	 * @param customer
+	 * @return a channel
+	 */
+	public MessageChannel resolve(String customer) {
+		return this.channels.get(customer);
+	}
+
+	private IntegrationFlowRegistration register(String customer) {
+		Properties props = this.customerProperties.apply(customer);
+		return this.flowContext.registration(flow(sessionFactory(props), props))
+				// unique, because an evicted flow stays registered until its sends complete
+				.id("ftpOutbound." + customer + "." + this.registrations.incrementAndGet())
+				.register();
+	}
+
+	private SessionFactory<FTPFile> sessionFactory(Properties props) {
+		String host = props.getProperty("host");
+		int port = Integer.parseInt(props.getProperty("port", "21"));
+		FtpSessionPools pools = this.sessionPools;
+		if (pools != null) {
+			return pools.getSessionFactory(host, port, props.getProperty("user"), props.getProperty("password"));
+		}
+		DefaultFtpSessionFactory sessionFactory = new DefaultFtpSessionFactory();
+		sessionFactory.setHost(host);
+		sessionFactory.setPort(port);
+		sessionFactory.setUsername(props.getProperty("user"));
+		sessionFactory.setPassword(props.getProperty("password"));
+		return sessionFactory;
+	}
+
+	private static IntegrationFlow flow(SessionFactory<FTPFile> sessionFactory, Properties props) {
+		return f -> f.handle(Ftp.outboundAdapter(sessionFactory)
+				.remoteDirectory(props.getProperty("remote.directory")));
+	}
+
+	@Override
+	public void destroy() {
+		this.channels.clear();
+	}
+
+}
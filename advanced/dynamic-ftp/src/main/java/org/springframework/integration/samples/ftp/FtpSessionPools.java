@@ -0,0 +1,143 @@
+/*
+ * Copyright 2002-2026 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.integration.samples.ftp;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import org.apache.commons.net.ftp.FTPFile;
+
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.integration.file.remote.session.CachingSessionFactory;
+import org.springframework.integration.file.remote.session.SessionFactory;
+import org.springframework.integration.ftp.session.DefaultFtpSessionFactory;
+
+/**
+ * Caching session factories, one per server and user, shared by all the customers that
+ * use the same server and credentials, so that sending a file does not involve opening
+ * a control connection and logging in each time.
+ *
+ * @since 5.1
+ *
+ */
+public class FtpSessionPools implements DisposableBean {
+
+	private final ConcurrentMap<PoolKey, CachingSessionFactory<FTPFile>> pools = new ConcurrentHashMap<>();
+
+	private volatile int maxSessions = 10;
+
+	private volatile long sessionWaitTimeout = 30_000;
+
+	private volatile boolean testSession = true;
+
+	/**
+	 * @param maxSessions the maximum number of sessions for each server and user; default 10.
+	 */
+	public void setMaxSessions(int maxSessions) {
+		this.maxSessions = maxSessions;
+	}
+
+	/**
+	 * @param sessionWaitTimeout milliseconds to wait for a session when all are in use;
+	 * default 30000.
+	 */
+	public void setSessionWaitTimeout(long sessionWaitTimeout) {
+		this.sessionWaitTimeout = sessionWaitTimeout;
+	}
+
+	/**
+	 * @param testSession true (default) to test idle sessions (with a NOOP) before they
+	 * are reused, replacing any that the server has closed.
+	 */
+	public void setTestSession(boolean testSession) {
+		this.testSession = testSession;
+	}
+
+	/**
+	 * Return the shared session factory for the server and user, creating it if necessary.
+	 * @param host the host.
+	 * @param port the port.
+	 * @param username the user name.
+	 * @param password the password.
+	 * @return the session factory.
+	 */
+	public SessionFactory<FTPFile> getSessionFactory(String host, int port, String username, String password) {
+		return this.pools.computeIfAbsent(new PoolKey(host, port, username, password), this::createPool);
+	}
+
+	public int getPoolCount() {
+		return this.pools.size();
+	}
+
+	private CachingSessionFactory<FTPFile> createPool(PoolKey key) {
+		DefaultFtpSessionFactory sessionFactory = new DefaultFtpSessionFactory();
+		sessionFactory.setHost(key.host);
+		sessionFactory.setPort(key.port);
+		sessionFactory.setUsername(key.username);
+		sessionFactory.setPassword(key.password);
+		CachingSessionFactory<FTPFile> pool = new CachingSessionFactory<>(sessionFactory, this.maxSessions);
+		pool.setSessionWaitTimeout(this.sessionWaitTimeout);
+		pool.setTestSession(this.testSession);
+		return pool;
+	}
+
+	@Override
+	public void destroy() {
+		for (CachingSessionFactory<FTPFile> pool : this.pools.values()) {
+			pool.destroy();
+		}
+		this.pools.clear();
+	}
+
+	private static final class PoolKey {
+
+		private final String host;
+
+		private final int port;
+
+		private final String username;
+
+		private final String password;
+
+		PoolKey(String host, int port, String username, String password) {
+			this.host = host;
+			this.port = port;
+			this.username = username;
+			this.password = password;
+		}
+
+		@Override
+		public boolean equals(Object obj) {
+			if (this == obj) {
+				return true;
+			}
+			if (!(obj instanceof PoolKey)) {
+				return false;
+			}
+			PoolKey other = (PoolKey) obj;
+			return this.port == other.port && this.host.equals(other.host) && this.username.equals(other.username)
+					&& this.password.equals(other.password);
+		}
+
+		@Override
+		public int hashCode() {
+			return ((this.host.hashCode() * 31 + this.port) * 31 + this.username.hashCode()) * 31
+					+ this.password.hashCode();
+		}
+
+	}
+
+}
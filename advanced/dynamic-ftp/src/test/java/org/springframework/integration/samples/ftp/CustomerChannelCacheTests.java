@@ -0,0 +1,129 @@
+/*
+ * Copyright 2002-2026 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.integration.samples.ftp;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Test;
+
+import org.springframework.integration.channel.QueueChannel;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageChannel;
+import org.springframework.messaging.support.GenericMessage;
+
+/**
+ * Tests for {@link CustomerChannelCache}.
+ *
+ * @since 5.1
+ *
+ */
+public class CustomerChannelCacheTests {
+
+	private final List<QueueChannel> created = new CopyOnWriteArrayList<>();
+
+	private final List<QueueChannel> closed = new CopyOnWriteArrayList<>();
+
+	private CustomerChannelCache<QueueChannel> cache(int maxSize) {
+		return new CustomerChannelCache<>(customer -> {
+			QueueChannel channel = new QueueChannel();
+			this.created.add(channel);
+			return channel;
+		}, channel -> channel, this.closed::add, maxSize);
+	}
+
+	@Test
+	public void testCreatedOnce() throws Exception {
+		CustomerChannelCache<QueueChannel> cache = cache(2);
+		ExecutorService executor = Executors.newFixedThreadPool(8);
+		List<MessageChannel> channels = new CopyOnWriteArrayList<>();
+		for (int i = 0; i < 8; i++) {
+			executor.execute(() -> channels.add(cache.get("customer1")));
+		}
+		executor.shutdown();
+		assertTrue(executor.awaitTermination(10, TimeUnit.SECONDS));
+		assertEquals(8, channels.size());
+		assertEquals(1, channels.stream().distinct().count());
+		assertEquals(1, this.created.size());
+	}
+
+	@Test
+	public void testEvictionWaitsForSends() throws Exception {
+		CustomerChannelCache<QueueChannel> cache = new CustomerChannelCache<>(customer -> {
+			BlockingChannel channel = new BlockingChannel();
+			this.created.add(channel);
+			return channel;
+		}, channel -> channel, this.closed::add, 1);
+		MessageChannel channel1 = cache.get("customer1");
+		BlockingChannel target = (BlockingChannel) this.created.get(0);
+		ExecutorService executor = Executors.newSingleThreadExecutor();
+		executor.execute(() -> channel1.send(new GenericMessage<>("foo")));
+		assertTrue(target.sending.await(10, TimeUnit.SECONDS));
+		cache.get("customer2");
+		assertEquals(1, cache.size());
+		Thread.sleep(100);
+		assertTrue("closed while a send was in progress", this.closed.isEmpty());
+		target.release.countDown();
+		executor.shutdown();
+		assertTrue(executor.awaitTermination(10, TimeUnit.SECONDS));
+		assertEquals(1, this.closed.size());
+		assertSame(target, this.closed.get(0));
+	}
+
+	@Test
+	public void testSendToEvictedGoesToReplacement() {
+		CustomerChannelCache<QueueChannel> cache = cache(1);
+		MessageChannel channel1 = cache.get("customer1");
+		cache.get("customer2");
+		assertEquals(1, this.closed.size());
+		assertTrue(channel1.send(new GenericMessage<>("foo")));
+		assertEquals(3, this.created.size());
+		assertNull(this.created.get(0).receive(0));
+		assertEquals("foo", this.created.get(2).receive(0).getPayload());
+		assertNotSame(channel1, cache.get("customer1"));
+	}
+
+	private static class BlockingChannel extends QueueChannel {
+
+		final CountDownLatch sending = new CountDownLatch(1);
+
+		final CountDownLatch release = new CountDownLatch(1);
+
+		@Override
+		public boolean send(Message<?> message, long timeout) {
+			this.sending.countDown();
+			try {
+				this.release.await(10, TimeUnit.SECONDS);
+			}
+			catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+			return super.send(message, timeout);
+		}
+
+	}
+
+}
@@ -0,0 +1,110 @@
+/*
+ * Copyright 2002-2026 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.integration.samples.ftp;
+
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertSame;
+
+import java.util.function.Function;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.junit.After;
+import org.junit.Assume;
+import org.junit.Before;
+import org.junit.Test;
+
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.context.support.ClassPathXmlApplicationContext;
+import org.springframework.integration.dsl.context.IntegrationFlowContext;
+import org.springframework.messaging.MessageChannel;
+
+/**
+ * Compares the time and heap needed to create customer channels with
+ * {@link DynamicFtpChannelResolver} (an application context per customer) and
+ * {@link DynamicFtpFlowChannelResolver} (a flow registration per customer) and logs
+ * them. Creating the contexts takes a while, so it only runs with
+ * {@code -Dbenchmark=true}.
+ *
+ * @since 5.1
+ *
+ */
+public class DynamicFtpChannelResolverBenchmarkTests {
+
+	private static final Log LOGGER = LogFactory.getLog(DynamicFtpChannelResolverBenchmarkTests.class);
+
+	private static final int CUSTOMERS = 50;
+
+	private static final int WARM_UP = 5;
+
+	private ConfigurableApplicationContext ctx;
+
+	@Before
+	public void setup() {
+		Assume.assumeTrue(Boolean.getBoolean("benchmark"));
+		this.ctx = new ClassPathXmlApplicationContext(
+				"META-INF/spring/integration/DynamicFtpOutboundChannelAdapterSample-context.xml");
+	}
+
+	@After
+	public void tearDown() {
+		if (this.ctx != null) {
+			this.ctx.close();
+		}
+	}
+
+	@Test
+	public void testCustomerChannelCreation() {
+		DynamicFtpChannelResolver contextResolver = new DynamicFtpChannelResolver(CUSTOMERS + WARM_UP);
+		DynamicFtpFlowChannelResolver flowResolver =
+				new DynamicFtpFlowChannelResolver(this.ctx.getBean(IntegrationFlowContext.class),
+						CUSTOMERS + WARM_UP);
+		try {
+			LOGGER.info("Application context per customer: " + measure(contextResolver::resolve));
+			LOGGER.info("Flow registration per customer:   " + measure(flowResolver::resolve));
+			assertSame(contextResolver.resolve("customer0"), contextResolver.resolve("customer0"));
+			assertSame(flowResolver.resolve("customer0"), flowResolver.resolve("customer0"));
+		}
+		finally {
+			contextResolver.destroy();
+			flowResolver.destroy();
+		}
+	}
+
+	private String measure(Function<String, MessageChannel> resolver) {
+		for (int i = 0; i < WARM_UP; i++) {
+			assertNotNull(resolver.apply("warmup" + i));
+		}
+		long heapBefore = usedHeap();
+		long start = System.nanoTime();
+		for (int i = 0; i < CUSTOMERS; i++) {
+			assertNotNull(resolver.apply("customer" + i));
+		}
+		long elapsed = System.nanoTime() - start;
+		long heapAfter = usedHeap();
+		return String.format("%.3f ms and %d KiB per customer", elapsed / 1e6 / CUSTOMERS,
+				(heapAfter - heapBefore) / 1024 / CUSTOMERS);
+	}
+
+	private static long usedHeap() {
+		Runtime runtime = Runtime.getRuntime();
+		for (int i = 0; i < 3; i++) {
+			System.gc();
+		}
+		return runtime.totalMemory() - runtime.freeMemory();
+	}
+
+}
@@ -0,0 +1,213 @@
+/*
+ * Copyright 2002-2026 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.integration.samples.ftp;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.util.Properties;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.apache.ftpserver.FtpServer;
+import org.apache.ftpserver.FtpServerFactory;
+import org.apache.ftpserver.ftplet.Authentication;
+import org.apache.ftpserver.ftplet.AuthenticationFailedException;
+import org.apache.ftpserver.ftplet.User;
+import org.apache.ftpserver.listener.ListenerFactory;
+import org.junit.AfterClass;
+import org.junit.Assume;
+import org.junit.BeforeClass;
+import org.junit.ClassRule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.context.support.ClassPathXmlApplicationContext;
+import org.springframework.integration.dsl.context.IntegrationFlowContext;
+import org.springframework.integration.file.FileHeaders;
+import org.springframework.integration.samples.ftp.support.TestUserManager;
+import org.springframework.integration.support.MessageBuilder;
+import org.springframework.messaging.MessageChannel;
+
+/**
+ * Sends files to an embedded FTP server through {@link DynamicFtpFlowChannelResolver}
+ * and {@link DynamicFtpChannelResolver}, once with a session factory per customer and
+ * once with {@link FtpSessionPools}, and counts the logins on the server: without
+ * pooling every transfer logs in, with it the sessions are reused. Run with
+ * {@code -Dbenchmark=true} to also log the transfers per second of each.
+ *
+ * @since 5.1
+ *
+ */
+public class FtpSessionPoolsTests {
+
+	private static final Log LOGGER = LogFactory.getLog(FtpSessionPoolsTests.class);
+
+	private static final int CUSTOMERS = 4;
+
+	private static final int MAX_SESSIONS = 2;
+
+	private static final AtomicInteger logins = new AtomicInteger();
+
+	@ClassRule
+	public static final TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+	private static FtpServer server;
+
+	private static int port;
+
+	private static File ftpRoot;
+
+	private static ConfigurableApplicationContext ctx;
+
+	@BeforeClass
+	public static void setup() throws Exception {
+		ftpRoot = temporaryFolder.newFolder("ftproot");
+		FtpServerFactory serverFactory = new FtpServerFactory();
+		serverFactory.setUserManager(new TestUserManager(ftpRoot.getAbsolutePath(), 0) {
+
+			@Override
+			public User authenticate(Authentication authentication) throws AuthenticationFailedException {
+				User user = super.authenticate(authentication);
+				if (user != null) {
+					logins.incrementAndGet();
+				}
+				return user;
+			}
+
+		});
+		ListenerFactory factory = new ListenerFactory();
+		factory.setPort(0);
+		factory.setIdleTimeout(600);
+		serverFactory.addListener("default", factory.createListener());
+		server = serverFactory.createServer();
+		server.start();
+		port = serverFactory.getListeners().values().iterator().next().getPort();
+		ctx = new ClassPathXmlApplicationContext(
+				"META-INF/spring/integration/DynamicFtpOutboundChannelAdapterSample-context.xml");
+	}
+
+	@AfterClass
+	public static void tearDown() {
+		ctx.close();
+		server.stop();
+	}
+
+	@Test
+	public void testSessionReuse() {
+		assertSessionReuse("bare", "pooled", false);
+	}
+
+	@Test
+	public void testContextSessionReuse() {
+		assertSessionReuse("ctx-bare", "ctx-pooled", true);
+	}
+
+	@Test
+	public void testThroughput() {
+		Assume.assumeTrue(Boolean.getBoolean("benchmark"));
+		int files = 200;
+		LOGGER.info("Session factory per customer: "
+				+ String.format("%.1f", transfer("throughput-bare", files, null, false)) + " transfers/sec");
+		FtpSessionPools pools = newPools();
+		try {
+			LOGGER.info("Shared session pool:          "
+					+ String.format("%.1f", transfer("throughput-pooled", files, pools, false)) + " transfers/sec");
+		}
+		finally {
+			pools.destroy();
+		}
+	}
+
+	private void assertSessionReuse(String barePrefix, String pooledPrefix, boolean contexts) {
+		int files = 20;
+		logins.set(0);
+		transfer(barePrefix, files, null, contexts);
+		assertEquals(files, logins.get());
+
+		FtpSessionPools pools = newPools();
+		try {
+			logins.set(0);
+			transfer(pooledPrefix, files, pools, contexts);
+			assertEquals(1, pools.getPoolCount());
+			assertTrue("Expected at most " + MAX_SESSIONS + " logins, got " + logins.get(),
+					logins.get() > 0 && logins.get() <= MAX_SESSIONS);
+		}
+		finally {
+			pools.destroy();
+		}
+		assertEquals(files * 2, ftpRoot.list((dir, name) -> name.startsWith(barePrefix + "-")
+				|| name.startsWith(pooledPrefix + "-")).length);
+	}
+
+	private static FtpSessionPools newPools() {
+		FtpSessionPools pools = new FtpSessionPools();
+		pools.setMaxSessions(MAX_SESSIONS);
+		pools.setSessionWaitTimeout(10_000);
+		return pools;
+	}
+
+	/*
+	 * Through a DynamicFtpChannelResolver (an application context per customer) when
+	 * contexts is true, otherwise through a DynamicFtpFlowChannelResolver.
+	 */
+	private double transfer(String prefix, int files, FtpSessionPools pools, boolean contexts) {
+		Function<String, MessageChannel> channels;
+		Runnable destroy;
+		if (contexts) {
+			DynamicFtpChannelResolver resolver = new DynamicFtpChannelResolver(CUSTOMERS);
+			resolver.setCustomerProperties(FtpSessionPoolsTests::customerProperties);
+			resolver.setSessionPools(pools);
+			channels = resolver::resolve;
+			destroy = resolver::destroy;
+		}
+		else {
+			DynamicFtpFlowChannelResolver resolver =
+					new DynamicFtpFlowChannelResolver(ctx.getBean(IntegrationFlowContext.class), CUSTOMERS);
+			resolver.setCustomerProperties(FtpSessionPoolsTests::customerProperties);
+			resolver.setSessionPools(pools);
+			channels = resolver::resolve;
+			destroy = resolver::destroy;
+		}
+		try {
+			long start = System.nanoTime();
+			for (int i = 0; i < files; i++) {
+				channels.apply("customer" + (i % CUSTOMERS)).send(MessageBuilder.withPayload("file " + i)
+						.setHeader(FileHeaders.FILENAME, prefix + "-" + i + ".txt")
+						.build());
+			}
+			return files / ((System.nanoTime() - start) / 1e9);
+		}
+		finally {
+			destroy.run();
+		}
+	}
+
+	private static Properties customerProperties(String customer) {
+		Properties props = new Properties();
+		props.setProperty("host", "localhost");
+		props.setProperty("port", Integer.toString(port));
+		props.setProperty("user", "demo");
+		props.setProperty("password", "demo");
+		props.setProperty("remote.directory", "/");
+		return props;
+	}
+
+}
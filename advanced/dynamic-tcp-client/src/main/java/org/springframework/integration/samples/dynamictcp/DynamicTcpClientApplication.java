@@ -1,5 +1,5 @@
 /*
- * Copyright 2018 the original author or authors.
+ * Copyright 2018-2026 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -18,12 +18,21 @@ package org.springframework.integration.samples.dynamictcp;
 
 import java.util.Collection;
 import java.util.Collections;
-import java.util.LinkedHashMap;
-import java.util.Map.Entry;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
+import org.springframework.beans.factory.DisposableBean;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationListener;
 import org.springframework.context.ConfigurableApplicationContext;
 import org.springframework.context.annotation.Bean;
 import org.springframework.integration.annotation.MessagingGateway;
@@ -33,6 +42,8 @@ import org.springframework.integration.dsl.IntegrationFlow;
 import org.springframework.integration.dsl.context.IntegrationFlowContext;
 import org.springframework.integration.ip.tcp.TcpReceivingChannelAdapter;
 import org.springframework.integration.ip.tcp.TcpSendingMessageHandler;
+import org.springframework.integration.ip.tcp.connection.CachingClientConnectionFactory;
+import org.springframework.integration.ip.tcp.connection.TcpConnectionSupport;
 import org.springframework.integration.ip.tcp.connection.TcpNetClientConnectionFactory;
 import org.springframework.integration.ip.tcp.connection.TcpNetServerConnectionFactory;
 import org.springframework.integration.router.AbstractMessageRouter;
@@ -40,6 +51,7 @@ import org.springframework.messaging.Message;
 import org.springframework.messaging.MessageChannel;
 import org.springframework.messaging.handler.annotation.Header;
 import org.springframework.util.Assert;
+import org.springframework.util.StringUtils;
 
 @SpringBootApplication
 @EnableMessageHistory
@@ -53,6 +65,7 @@ public class DynamicTcpClientApplication {
 		QueueChannel outputChannel = context.getBean("outputChannel", QueueChannel.class);
 		System.out.println(outputChannel.receive(10000));
 		System.out.println(outputChannel.receive(10000));
+		System.out.println(context.getBean(TcpRouter.class).getSubFlows().getStatistics());
 		context.close();
 	}
 
@@ -66,8 +79,27 @@ public class DynamicTcpClientApplication {
 	}
 
 	@Bean
-	public IntegrationFlow toTcp() {
-		return f -> f.route(new TcpRouter());
+	public TcpRouter tcpRouter(@Value("${dynamic.tcp.max-cached:10}") int maxCached,
+			@Value("${dynamic.tcp.idle-timeout:0}") long idleTimeout,
+			@Value("${dynamic.tcp.pool-size:4}") int poolSize,
+			@Value("${dynamic.tcp.health-check-interval:0}") long healthCheckInterval,
+			@Value("${dynamic.tcp.warm-up:}") String[] warmUp) {
+
+		TcpRouter router = new TcpRouter();
+		router.setMaxCached(maxCached);
+		router.setIdleTimeout(idleTimeout);
+		router.setPoolSize(poolSize);
+		router.setHealthCheckInterval(healthCheckInterval);
+		router.setWarmUpDestinations(Stream.of(warmUp)
+				.filter(StringUtils::hasText)
+				.map(HostPort::parse)
+				.collect(Collectors.toList()));
+		return router;
+	}
+
+	@Bean
+	public IntegrationFlow toTcp(TcpRouter tcpRouter) {
+		return f -> f.route(tcpRouter);
 	}
 
 	// Two servers
@@ -103,65 +135,184 @@ public class DynamicTcpClientApplication {
 		return new QueueChannel();
 	}
 
-	public static class TcpRouter extends AbstractMessageRouter {
+	public static class TcpRouter extends AbstractMessageRouter
+			implements DisposableBean, ApplicationListener<ApplicationReadyEvent> {
 
-		private final static int MAX_CACHED = 10; // When this is exceeded, we remove the LRU.
+		private final AtomicInteger registrations = new AtomicInteger();
 
-		@SuppressWarnings("serial")
-		private final LinkedHashMap<String, MessageChannel> subFlows =
-				new LinkedHashMap<String, MessageChannel>(MAX_CACHED, .75f, true) {
-
-					@Override
-					protected boolean removeEldestEntry(Entry<String, MessageChannel> eldest) {
-						if (size() > MAX_CACHED) {
-							removeSubFlow(eldest);
-							return true;
-						}
-						else {
-							return false;
-						}
-					}
-
-				};
+		private final ConcurrentMap<String, DestinationPool> pools = new ConcurrentHashMap<>();
 
 		@Autowired
 		private IntegrationFlowContext flowContext;
 
+		private int maxCached = 10; // When this is exceeded, we remove the LRU.
+
+		private long idleTimeout;
+
+		private int poolSize = 4;
+
+		private long healthCheckInterval;
+
+		private List<HostPort> warmUpDestinations = Collections.emptyList();
+
+		private SubflowCache subFlows;
+
+		private volatile ScheduledFuture<?> healthCheck;
+
+		public void setMaxCached(int maxCached) {
+			this.maxCached = maxCached;
+		}
+
+		/**
+		 * @param idleTimeout milliseconds after which an unused subflow is removed; 0 for never.
+		 */
+		public void setIdleTimeout(long idleTimeout) {
+			this.idleTimeout = idleTimeout;
+		}
+
+		/**
+		 * @param poolSize the number of pooled connections per destination.
+		 */
+		public void setPoolSize(int poolSize) {
+			Assert.isTrue(poolSize > 0, "'poolSize' must be greater than 0");
+			this.poolSize = poolSize;
+		}
+
+		/**
+		 * @param healthCheckInterval milliseconds between checks of idle destinations'
+		 * pooled connections, replacing any that the peer has closed; 0 for no checks.
+		 */
+		public void setHealthCheckInterval(long healthCheckInterval) {
+			this.healthCheckInterval = healthCheckInterval;
+		}
+
+		/**
+		 * @param warmUpDestinations destinations whose subflows are registered, and a
+		 * connection opened, when the application is ready.
+		 */
+		public void setWarmUpDestinations(List<HostPort> warmUpDestinations) {
+			Assert.notNull(warmUpDestinations, "'warmUpDestinations' cannot be null");
+			this.warmUpDestinations = warmUpDestinations;
+		}
+
+		public SubflowCache getSubFlows() {
+			return this.subFlows;
+		}
+
 		@Override
-		protected synchronized Collection<MessageChannel> determineTargetChannels(Message<?> message) {
-			MessageChannel channel = this.subFlows
-					.get(message.getHeaders().get("host", String.class) + message.getHeaders().get("port"));
-			if (channel == null) {
-				channel = createNewSubflow(message);
+		protected void onInit() throws Exception {
+			super.onInit();
+			this.subFlows = new SubflowCache(this::createNewSubflow, getTaskScheduler());
+			this.subFlows.setMaxSize(this.maxCached);
+			this.subFlows.setIdleTimeout(this.idleTimeout);
+			this.subFlows.setEvictionListener(registration -> this.pools.remove(registration.getId()));
+			this.subFlows.start();
+			if (this.healthCheckInterval > 0) {
+				this.healthCheck = getTaskScheduler().scheduleWithFixedDelay(this::checkHealth,
+						this.healthCheckInterval);
 			}
-			return Collections.singletonList(channel);
 		}
 
-		private MessageChannel createNewSubflow(Message<?> message) {
-			String host = (String) message.getHeaders().get("host");
-			Integer port = (Integer) message.getHeaders().get("port");
+		/**
+		 * Register the subflows for the configured destinations and open a connection to
+		 * each, so the first messages don't pay for it; failures are logged and the
+		 * connection is retried on first use.
+		 * <p>
+		 * This is an {@link ApplicationListener} rather than an {@code @EventListener}
+		 * method, because the latter are not detected on non-component classes in
+		 * {@code org.springframework} packages.
+		 */
+		@Override
+		public void onApplicationEvent(ApplicationReadyEvent event) {
+			warmUp();
+		}
+
+		void warmUp() {
+			for (HostPort destination : this.warmUpDestinations) {
+				this.subFlows.get(destination);
+				this.pools.values().stream()
+						.filter(pool -> pool.destination.equals(destination))
+						.forEach(pool -> cycle(pool, 1));
+			}
+		}
+
+		/**
+		 * For each destination that has been idle for at least the check interval, check
+		 * out and return each pooled connection in turn; the pool replaces connections
+		 * that have been closed (by the peer, or a network failure) with new ones as they
+		 * are checked out, so that they are reconnected before they are next needed.
+		 */
+		void checkHealth() {
+			for (DestinationPool pool : this.pools.values()) {
+				if (this.subFlows.getIdleTime(pool.destination) >= this.healthCheckInterval) {
+					cycle(pool, this.poolSize);
+				}
+			}
+		}
+
+		private void cycle(DestinationPool pool, int connections) {
+			// idle connections are handed out in FIFO order, so this visits each of them
+			for (int i = 0; i < connections; i++) {
+				try {
+					TcpConnectionSupport connection = pool.connectionFactory.getConnection();
+					connection.close(); // returns it to the pool
+				}
+				catch (Exception e) {
+					logger.warn("Failed to connect to " + pool.destination, e);
+					return;
+				}
+			}
+		}
+
+		@Override
+		protected Collection<MessageChannel> determineTargetChannels(Message<?> message) {
+			String host = message.getHeaders().get("host", String.class);
+			Integer port = message.getHeaders().get("port", Integer.class);
 			Assert.state(host != null && port != null, "host and/or port header missing");
-			String hostPort = host + port;
+			return Collections.singletonList(this.subFlows.get(new HostPort(host, port)));
+		}
 
-			TcpNetClientConnectionFactory cf = new TcpNetClientConnectionFactory(host, port);
+		private IntegrationFlowContext.IntegrationFlowRegistration createNewSubflow(HostPort destination) {
+			TcpNetClientConnectionFactory cf =
+					new TcpNetClientConnectionFactory(destination.getHost(), destination.getPort());
+			CachingClientConnectionFactory pooled = new CachingClientConnectionFactory(cf, this.poolSize);
+			// fail rather than wait forever when every connection is in use
+			pooled.setConnectionWaitTimeout(10_000);
 			TcpSendingMessageHandler handler = new TcpSendingMessageHandler();
-			handler.setConnectionFactory(cf);
+			handler.setConnectionFactory(pooled);
 			IntegrationFlow flow = f -> f.handle(handler);
-			IntegrationFlowContext.IntegrationFlowRegistration flowRegistration =
-					this.flowContext.registration(flow)
-							.addBean(cf)
-							.id(hostPort + ".flow")
-							.register();
-			MessageChannel inputChannel = flowRegistration.getInputChannel();
-			this.subFlows.put(hostPort, inputChannel);
-			return inputChannel;
+			// unique, because an evicted flow may still be registered when its destination is needed again
+			String id = destination + ".flow." + this.registrations.incrementAndGet();
+			IntegrationFlowContext.IntegrationFlowRegistration registration = this.flowContext.registration(flow)
+					.addBean(cf)
+					.addBean(pooled)
+					.id(id)
+					.register();
+			this.pools.put(id, new DestinationPool(destination, pooled));
+			return registration;
 		}
 
-		private void removeSubFlow(Entry<String, MessageChannel> eldest) {
-			String hostPort = eldest.getKey();
-			this.flowContext.remove(hostPort + ".flow");
+		@Override
+		public void destroy() {
+			ScheduledFuture<?> healthCheck = this.healthCheck;
+			if (healthCheck != null) {
+				healthCheck.cancel(false);
+			}
+			this.subFlows.stop();
 		}
 
-	}
+		private static final class DestinationPool {
+
+			private final HostPort destination;
 
+			private final CachingClientConnectionFactory connectionFactory;
+
+			DestinationPool(HostPort destination, CachingClientConnectionFactory connectionFactory) {
+				this.destination = destination;
+				this.connectionFactory = connectionFactory;
+			}
+
+		}
+
+	}
 }
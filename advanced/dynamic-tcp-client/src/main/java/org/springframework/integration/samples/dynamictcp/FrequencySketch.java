@@ -0,0 +1,142 @@
+/*
+ * Copyright 2018-2026 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.integration.samples.dynamictcp;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * A count-min sketch of 4-bit counters that estimates how often each destination has
+ * been used recently, as used by TinyLFU admission.
+ * <p>
+ * Each counter saturates at 15, so increments for hot destinations stop writing to the
+ * table once they get there. When the number of increments reaches ten times the
+ * cache's maximum size, all counters are halved, so that popularity decays over time.
+ * Updates are lock-free; concurrent increments and resets may lose the odd count, which
+ * only makes the (already approximate) estimate slightly less accurate.
+ *
+ * @since 5.1
+ *
+ */
+final class FrequencySketch {
+
+	private static final long[] SEEDS = {
+			0xc3a5c85c97cb3127L, 0xb492b66fbe98f273L, 0x9ae16a3b2f90404fL, 0xcbf29ce484222325L };
+
+	/**
+	 * Clears the bit that a right shift moves into the top of each counter.
+	 */
+	private static final long RESET_MASK = 0x7777777777777777L;
+
+	private static final int MAX_COUNT = 15;
+
+	private final AtomicInteger additions = new AtomicInteger();
+
+	private final AtomicLongArray table;
+
+	private final int tableMask;
+
+	private final int sampleSize;
+
+	/**
+	 * @param maximumSize the maximum number of entries in the cache.
+	 */
+	FrequencySketch(int maximumSize) {
+		int length = Integer.highestOneBit(Math.max(16, Math.min(maximumSize, 1 << 24)) - 1) << 1;
+		this.table = new AtomicLongArray(length);
+		this.tableMask = length - 1;
+		this.sampleSize = (int) Math.min(10L * maximumSize, Integer.MAX_VALUE);
+	}
+
+	/**
+	 * @param item the item.
+	 * @return the estimated number of recent uses of the item, at most 15.
+	 */
+	int frequency(Object item) {
+		int spread = spread(item.hashCode());
+		int frequency = MAX_COUNT;
+		for (int i = 0; i < SEEDS.length; i++) {
+			long hash = hash(spread, i);
+			long count = (this.table.get(index(hash)) >>> offset(hash)) & MAX_COUNT;
+			frequency = Math.min(frequency, (int) count);
+		}
+		return frequency;
+	}
+
+	/**
+	 * Record a use of the item.
+	 * @param item the item.
+	 */
+	void increment(Object item) {
+		int spread = spread(item.hashCode());
+		boolean added = false;
+		for (int i = 0; i < SEEDS.length; i++) {
+			long hash = hash(spread, i);
+			added |= incrementAt(index(hash), offset(hash));
+		}
+		if (added && this.additions.incrementAndGet() >= this.sampleSize) {
+			reset();
+		}
+	}
+
+	private boolean incrementAt(int index, int offset) {
+		long mask = (long) MAX_COUNT << offset;
+		while (true) {
+			long value = this.table.get(index);
+			if ((value & mask) == mask) {
+				return false;
+			}
+			if (this.table.compareAndSet(index, value, value + (1L << offset))) {
+				return true;
+			}
+		}
+	}
+
+	private void reset() {
+		int additions = this.additions.get();
+		if (additions < this.sampleSize || !this.additions.compareAndSet(additions, additions >>> 1)) {
+			return; // another thread is resetting
+		}
+		for (int i = 0; i < this.table.length(); i++) {
+			long value;
+			do {
+				value = this.table.get(i);
+			}
+			while (!this.table.compareAndSet(i, value, (value >>> 1) & RESET_MASK));
+		}
+	}
+
+	private int index(long hash) {
+		return (int) hash & this.tableMask;
+	}
+
+	private static int offset(long hash) {
+		return (int) ((hash >>> 40) & 15) << 2;
+	}
+
+	private static long hash(int spread, int i) {
+		long hash = (spread + SEEDS[i]) * SEEDS[i];
+		return hash + (hash >>> 32);
+	}
+
+	private static int spread(int hashCode) {
+		int hash = ((hashCode >>> 16) ^ hashCode) * 0x45d9f3b;
+		hash = ((hash >>> 16) ^ hash) * 0x45d9f3b;
+		return (hash >>> 16) ^ hash;
+	}
+
+}
@@ -0,0 +1,82 @@
+/*
+ * Copyright 2018-2026 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.integration.samples.dynamictcp;
+
+import org.springframework.util.Assert;
+
+/**
+ * A TCP destination; the key of the {@link SubflowCache}.
+ *
+ * @since 5.1
+ *
+ */
+public final class HostPort {
+
+	private final String host;
+
+	private final int port;
+
+	private final int hash;
+
+	public HostPort(String host, int port) {
+		Assert.notNull(host, "'host' cannot be null");
+		this.host = host;
+		this.port = port;
+		this.hash = 31 * host.hashCode() + port;
+	}
+
+	/**
+	 * @param hostPort a destination in the form {@code host:port}.
+	 * @return the destination.
+	 */
+	public static HostPort parse(String hostPort) {
+		int colon = hostPort.lastIndexOf(':');
+		Assert.isTrue(colon > 0 && colon < hostPort.length() - 1, () -> "Expected host:port, got: " + hostPort);
+		return new HostPort(hostPort.substring(0, colon).trim(), Integer.parseInt(hostPort.substring(colon + 1).trim()));
+	}
+
+	public String getHost() {
+		return this.host;
+	}
+
+	public int getPort() {
+		return this.port;
+	}
+
+	@Override
+	public boolean equals(Object obj) {
+		if (this == obj) {
+			return true;
+		}
+		if (!(obj instanceof HostPort)) {
+			return false;
+		}
+		HostPort other = (HostPort) obj;
+		return this.port == other.port && this.host.equals(other.host);
+	}
+
+	@Override
+	public int hashCode() {
+		return this.hash;
+	}
+
+	@Override
+	public String toString() {
+		return this.host + ":" + this.port;
+	}
+
+}
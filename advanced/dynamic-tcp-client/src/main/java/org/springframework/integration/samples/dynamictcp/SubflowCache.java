@@ -0,0 +1,548 @@
+/*
+ * Copyright 2018-2026 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.integration.samples.dynamictcp;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Date;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+import org.springframework.integration.dsl.context.IntegrationFlowContext.IntegrationFlowRegistration;
+import org.springframework.messaging.MessageChannel;
+import org.springframework.scheduling.TaskScheduler;
+import org.springframework.util.Assert;
+
+/**
+ * A concurrent cache of dynamically registered subflows, one per destination.
+ * <p>
+ * Lookups of registered subflows are lock-free. A missing subflow is registered by
+ * exactly one thread; other threads needing the same destination wait for it, while
+ * threads routing to other destinations are not blocked. Subflows that are idle for
+ * longer than the idle timeout, and subflows beyond the maximum size, are evicted by a
+ * maintenance task on the task scheduler, not on the routing thread; their flows are
+ * destroyed after a short delay, so that messages already routed to them are still
+ * delivered.
+ * <p>
+ * Size eviction follows W-TinyLFU: new subflows enter a small LRU window (1% of the
+ * maximum size); when they leave it, they are only kept if a {@link FrequencySketch}
+ * says their destination has been used more often than the least recently used
+ * subflow in the main segment, which they would otherwise replace. The main segment
+ * is a segmented LRU: subflows used again while on probation are promoted to the
+ * protected 80%. So a burst of one-off destinations evicts each other rather than the
+ * frequently used ones.
+ *
+ * @since 5.1
+ *
+ */
+public class SubflowCache {
+
+	private static final Log logger = LogFactory.getLog(SubflowCache.class);
+
+	/**
+	 * Access times are only updated when they are older than this, so that hits on
+	 * hot destinations do not all write to the same field.
+	 */
+	private static final long ACCESS_GRANULARITY = 100;
+
+	private static final int WINDOW_PERCENT = 1;
+
+	private static final int PROTECTED_PERCENT = 80;
+
+	private final ConcurrentMap<HostPort, Subflow> subflows = new ConcurrentHashMap<>();
+
+	private final AtomicBoolean maintenanceScheduled = new AtomicBoolean();
+
+	private final Object maintenanceMonitor = new Object();
+
+	private final LongAdder hits = new LongAdder();
+
+	private final LongAdder misses = new LongAdder();
+
+	private final LongAdder sizeEvictions = new LongAdder();
+
+	private final LongAdder idleEvictions = new LongAdder();
+
+	private final LongAdder registrationNanos = new LongAdder();
+
+	private final AtomicLong maxRegistrationNanos = new AtomicLong();
+
+	private final Function<HostPort, IntegrationFlowRegistration> registrar;
+
+	private final TaskScheduler taskScheduler;
+
+	private volatile int maxSize = 10;
+
+	private volatile FrequencySketch sketch = new FrequencySketch(10);
+
+	private long lastMaintenance; // guarded by maintenanceMonitor
+
+	private volatile long idleTimeout;
+
+	private volatile long removalDelay = 1000;
+
+	private volatile ScheduledFuture<?> sweeper;
+
+	private volatile Consumer<IntegrationFlowRegistration> evictionListener = registration -> { };
+
+	/**
+	 * @param registrar registers the subflow for a destination.
+	 * @param taskScheduler runs maintenance and removes evicted flows.
+	 */
+	public SubflowCache(Function<HostPort, IntegrationFlowRegistration> registrar, TaskScheduler taskScheduler) {
+		Assert.notNull(registrar, "'registrar' cannot be null");
+		Assert.notNull(taskScheduler, "'taskScheduler' cannot be null");
+		this.registrar = registrar;
+		this.taskScheduler = taskScheduler;
+	}
+
+	/**
+	 * @param maxSize the maximum number of subflows; default 10.
+	 */
+	public void setMaxSize(int maxSize) {
+		Assert.isTrue(maxSize > 0, "'maxSize' must be > 0");
+		this.maxSize = maxSize;
+		this.sketch = new FrequencySketch(maxSize);
+	}
+
+	/**
+	 * @param idleTimeout milliseconds after which an unused subflow is evicted; default
+	 * 0 (never).
+	 */
+	public void setIdleTimeout(long idleTimeout) {
+		this.idleTimeout = idleTimeout;
+	}
+
+	/**
+	 * @param removalDelay milliseconds between evicting a subflow and destroying its
+	 * flow; default 1000.
+	 */
+	public void setRemovalDelay(long removalDelay) {
+		this.removalDelay = removalDelay;
+	}
+
+	/**
+	 * @param evictionListener called with the registration of each evicted subflow,
+	 * before its flow is destroyed.
+	 */
+	public void setEvictionListener(Consumer<IntegrationFlowRegistration> evictionListener) {
+		Assert.notNull(evictionListener, "'evictionListener' cannot be null");
+		this.evictionListener = evictionListener;
+	}
+
+	/**
+	 * Start the periodic idle sweep, if there is an idle timeout.
+	 */
+	public void start() {
+		long idleTimeout = this.idleTimeout;
+		if (idleTimeout > 0 && this.sweeper == null) {
+			this.sweeper = this.taskScheduler.scheduleWithFixedDelay(this::maintain,
+					Math.max(idleTimeout / 2, ACCESS_GRANULARITY));
+		}
+	}
+
+	/**
+	 * Stop the idle sweep and destroy all subflows.
+	 */
+	public void stop() {
+		ScheduledFuture<?> sweeper = this.sweeper;
+		if (sweeper != null) {
+			sweeper.cancel(false);
+			this.sweeper = null;
+		}
+		for (Subflow subflow : this.subflows.values()) {
+			evict(subflow, 0);
+		}
+	}
+
+	/**
+	 * Return the input channel of the subflow for the destination, registering it if
+	 * necessary.
+	 * @param destination the destination.
+	 * @return the input channel.
+	 */
+	public MessageChannel get(HostPort destination) {
+		this.sketch.increment(destination);
+		while (true) {
+			Subflow subflow = this.subflows.get(destination);
+			if (subflow == null) {
+				subflow = this.subflows.computeIfAbsent(destination, Subflow::new);
+				if (this.subflows.size() > this.maxSize) {
+					scheduleMaintenance();
+				}
+			}
+			MessageChannel channel = subflow.inputChannel;
+			if (channel != null) {
+				this.hits.increment();
+			}
+			else {
+				channel = register(subflow);
+			}
+			if (channel != null) {
+				subflow.touch();
+				return channel;
+			}
+			// evicted before it was registered; try again with a new entry
+		}
+	}
+
+	public int size() {
+		return this.subflows.size();
+	}
+
+	public Set<HostPort> getDestinations() {
+		return this.subflows.keySet();
+	}
+
+	/**
+	 * @param destination the destination.
+	 * @return the milliseconds since the destination's subflow was last used (with a
+	 * granularity of 100ms), or -1 if there is no subflow for it.
+	 */
+	public long getIdleTime(HostPort destination) {
+		Subflow subflow = this.subflows.get(destination);
+		return subflow == null ? -1 : System.currentTimeMillis() - subflow.lastAccess;
+	}
+
+	/**
+	 * @return a snapshot of the cache's counters.
+	 */
+	public Statistics getStatistics() {
+		return new Statistics(this.hits.sum(), this.misses.sum(), this.sizeEvictions.sum(),
+				this.idleEvictions.sum(), this.registrationNanos.sum(), this.maxRegistrationNanos.get());
+	}
+
+	private MessageChannel register(Subflow subflow) {
+		synchronized (subflow) {
+			if (subflow.inputChannel == null && !subflow.evicted) {
+				this.misses.increment();
+				long start = System.nanoTime();
+				try {
+					subflow.registration = this.registrar.apply(subflow.destination);
+				}
+				catch (RuntimeException e) {
+					subflow.evicted = true;
+					this.subflows.remove(subflow.destination, subflow);
+					throw e;
+				}
+				finally {
+					recordRegistration(System.nanoTime() - start);
+				}
+				// idle time starts when the subflow is usable, not when registration started
+				subflow.lastAccess = System.currentTimeMillis();
+				subflow.inputChannel = subflow.registration.getInputChannel();
+				if (this.subflows.size() > this.maxSize) {
+					scheduleMaintenance(); // it was not counted by any maintenance during registration
+				}
+			}
+			else if (subflow.inputChannel != null) {
+				this.hits.increment(); // registered by another thread while we waited
+			}
+			return subflow.inputChannel;
+		}
+	}
+
+	private void recordRegistration(long nanos) {
+		this.registrationNanos.add(nanos);
+		long max = this.maxRegistrationNanos.get();
+		while (nanos > max && !this.maxRegistrationNanos.compareAndSet(max, nanos)) {
+			max = this.maxRegistrationNanos.get();
+		}
+	}
+
+	private void scheduleMaintenance() {
+		if (this.maintenanceScheduled.compareAndSet(false, true)) {
+			this.taskScheduler.schedule(this::maintain, new Date());
+		}
+	}
+
+	void maintain() {
+		this.maintenanceScheduled.set(false);
+		synchronized (this.maintenanceMonitor) {
+			long now = System.currentTimeMillis();
+			long idleTimeout = this.idleTimeout;
+			List<Subflow> window = new ArrayList<>();
+			List<Subflow> probation = new ArrayList<>();
+			List<Subflow> protectedSegment = new ArrayList<>();
+			int registering = 0;
+			for (Subflow subflow : this.subflows.values()) {
+				if (subflow.inputChannel == null) {
+					registering++; // not evicted, or counted, until it is registered
+					continue;
+				}
+				subflow.sortKey = subflow.lastAccess; // stable while sorting
+				if (idleTimeout > 0 && now - subflow.sortKey > idleTimeout) {
+					if (evict(subflow, this.removalDelay)) {
+						this.idleEvictions.increment();
+					}
+				}
+				else if (subflow.segment == Segment.WINDOW) {
+					window.add(subflow);
+				}
+				else if (subflow.segment == Segment.PROTECTED || subflow.sortKey > this.lastMaintenance) {
+					subflow.segment = Segment.PROTECTED;
+					protectedSegment.add(subflow);
+				}
+				else {
+					probation.add(subflow);
+				}
+			}
+			this.lastMaintenance = now;
+			Comparator<Subflow> leastRecentlyUsed = Comparator.comparingLong(subflow -> subflow.sortKey);
+			window.sort(leastRecentlyUsed);
+			protectedSegment.sort(leastRecentlyUsed);
+			int maxSize = this.maxSize;
+			int maxProtected = (int) ((long) maxSize * PROTECTED_PERCENT / 100);
+			for (int i = 0; i < protectedSegment.size() - maxProtected; i++) {
+				Subflow demoted = protectedSegment.get(i);
+				demoted.segment = Segment.PROBATION;
+				probation.add(demoted);
+			}
+			probation.sort(leastRecentlyUsed);
+			int windowSize = Math.max(1, (int) ((long) maxSize * WINDOW_PERCENT / 100));
+			List<Subflow> candidates = window.subList(0, Math.max(0, window.size() - windowSize));
+			evictToSize(candidates, probation, protectedSegment, maxSize + registering);
+		}
+	}
+
+	/**
+	 * Move the subflows leaving the window to probation, evicting either them or the main
+	 * segment's least recently used subflows, whichever are used less often, until the
+	 * cache is no larger than its maximum size. When either runs out (e.g. while the main
+	 * segment is still filling up), the least frequently used of the rest are evicted.
+	 */
+	private void evictToSize(List<Subflow> candidates, List<Subflow> probation, List<Subflow> protectedSegment,
+			int maxSize) {
+
+		List<Subflow> victims = new ArrayList<>(probation);
+		for (Subflow subflow : protectedSegment) {
+			if (subflow.segment == Segment.PROTECTED) {
+				victims.add(subflow);
+			}
+		}
+		for (Subflow candidate : candidates) {
+			candidate.segment = Segment.PROBATION;
+		}
+		if (this.subflows.size() <= maxSize) {
+			return;
+		}
+		FrequencySketch sketch = this.sketch;
+		for (Subflow subflow : candidates) {
+			subflow.frequency = sketch.frequency(subflow.destination);
+		}
+		for (Subflow subflow : victims) {
+			subflow.frequency = sketch.frequency(subflow.destination);
+		}
+		int candidate = 0;
+		int victim = 0;
+		while (this.subflows.size() > maxSize && candidate < candidates.size() && victim < victims.size()) {
+			if (candidates.get(candidate).frequency > victims.get(victim).frequency) {
+				evictForSize(victims.get(victim++));
+			}
+			else {
+				evictForSize(candidates.get(candidate++));
+			}
+		}
+		if (this.subflows.size() > maxSize) {
+			List<Subflow> rest = new ArrayList<>(candidates.subList(candidate, candidates.size()));
+			rest.addAll(victims.subList(victim, victims.size()));
+			rest.sort(Comparator.<Subflow>comparingInt(subflow -> subflow.frequency)
+					.thenComparingLong(subflow -> subflow.sortKey));
+			for (int i = 0; i < rest.size() && this.subflows.size() > maxSize; i++) {
+				evictForSize(rest.get(i));
+			}
+		}
+	}
+
+	private void evictForSize(Subflow subflow) {
+		if (evict(subflow, this.removalDelay)) {
+			this.sizeEvictions.increment();
+		}
+	}
+
+	private boolean evict(Subflow subflow, long delay) {
+		IntegrationFlowRegistration registration;
+		synchronized (subflow) {
+			if (subflow.evicted) {
+				return false;
+			}
+			subflow.evicted = true;
+			registration = subflow.registration;
+		}
+		this.subflows.remove(subflow.destination, subflow);
+		if (registration != null) {
+			if (logger.isDebugEnabled()) {
+				logger.debug("Evicting subflow for " + subflow.destination);
+			}
+			this.evictionListener.accept(registration);
+			if (delay > 0) {
+				this.taskScheduler.schedule(() -> destroy(registration), new Date(System.currentTimeMillis() + delay));
+			}
+			else {
+				destroy(registration);
+			}
+		}
+		return true;
+	}
+
+	private static void destroy(IntegrationFlowRegistration registration) {
+		try {
+			registration.destroy();
+		}
+		catch (RuntimeException e) {
+			logger.error("Failed to remove flow " + registration.getId(), e);
+		}
+	}
+
+	private static final class Subflow {
+
+		private final HostPort destination;
+
+		private volatile IntegrationFlowRegistration registration;
+
+		private volatile MessageChannel inputChannel;
+
+		private volatile long lastAccess = System.currentTimeMillis();
+
+		private boolean evicted; // guarded by this
+
+		private Segment segment = Segment.WINDOW; // guarded by maintenanceMonitor
+
+		private long sortKey; // guarded by maintenanceMonitor
+
+		private int frequency; // guarded by maintenanceMonitor
+
+		Subflow(HostPort destination) {
+			this.destination = destination;
+		}
+
+		void touch() {
+			long now = System.currentTimeMillis();
+			if (now - this.lastAccess >= ACCESS_GRANULARITY) {
+				this.lastAccess = now;
+			}
+		}
+
+	}
+
+	private enum Segment {
+
+		WINDOW, PROBATION, PROTECTED
+
+	}
+
+	/**
+	 * A snapshot of a {@link SubflowCache}'s counters.
+	 */
+	public static final class Statistics {
+
+		private final long hits;
+
+		private final long misses;
+
+		private final long sizeEvictions;
+
+		private final long idleEvictions;
+
+		private final long registrationNanos;
+
+		private final long maxRegistrationNanos;
+
+		Statistics(long hits, long misses, long sizeEvictions, long idleEvictions, long registrationNanos,
+				long maxRegistrationNanos) {
+
+			this.hits = hits;
+			this.misses = misses;
+			this.sizeEvictions = sizeEvictions;
+			this.idleEvictions = idleEvictions;
+			this.registrationNanos = registrationNanos;
+			this.maxRegistrationNanos = maxRegistrationNanos;
+		}
+
+		/**
+		 * @return the number of lookups that found a registered subflow.
+		 */
+		public long getHits() {
+			return this.hits;
+		}
+
+		/**
+		 * @return the number of lookups that registered a subflow.
+		 */
+		public long getMisses() {
+			return this.misses;
+		}
+
+		public double getHitRate() {
+			long requests = this.hits + this.misses;
+			return requests == 0 ? 1.0 : (double) this.hits / requests;
+		}
+
+		/**
+		 * @return the number of subflows evicted because the cache was full.
+		 */
+		public long getSizeEvictions() {
+			return this.sizeEvictions;
+		}
+
+		/**
+		 * @return the number of subflows evicted because they were idle.
+		 */
+		public long getIdleEvictions() {
+			return this.idleEvictions;
+		}
+
+		/**
+		 * @return the total time spent registering subflows, in nanoseconds.
+		 */
+		public long getTotalRegistrationNanos() {
+			return this.registrationNanos;
+		}
+
+		/**
+		 * @return the longest time spent registering a subflow, in nanoseconds.
+		 */
+		public long getMaxRegistrationNanos() {
+			return this.maxRegistrationNanos;
+		}
+
+		public double getMeanRegistrationMillis() {
+			return this.misses == 0 ? 0 : this.registrationNanos / 1e6 / this.misses;
+		}
+
+		@Override
+		public String toString() {
+			return String.format("[hits=%d, misses=%d, hitRate=%.3f, sizeEvictions=%d, idleEvictions=%d, "
+							+ "meanRegistration=%.3f, maxRegistration=%.3f] (ms)",
+					this.hits, this.misses, getHitRate(), this.sizeEvictions, this.idleEvictions,
+					getMeanRegistrationMillis(), this.maxRegistrationNanos / 1e6);
+		}
+
+	}
+
+}
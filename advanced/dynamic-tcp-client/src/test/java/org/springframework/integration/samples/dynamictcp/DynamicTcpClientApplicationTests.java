@@ -1,16 +1,29 @@
 package org.springframework.integration.samples.dynamictcp;
 
+import static org.assertj.core.api.Assertions.assertThat;
+
 import org.junit.Test;
 import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.integration.samples.dynamictcp.DynamicTcpClientApplication.TcpRouter;
 import org.springframework.test.context.junit4.SpringRunner;
 
 @RunWith(SpringRunner.class)
 @SpringBootTest
 public class DynamicTcpClientApplicationTests {
 
+	@Autowired
+	private TcpRouter tcpRouter;
+
 	@Test
 	public void contextLoads() {
 	}
 
+	@Test
+	public void testWarmUp() {
+		assertThat(this.tcpRouter.getSubFlows().getDestinations())
+				.containsOnly(new HostPort("localhost", 1234), new HostPort("localhost", 5678));
+	}
+
 }
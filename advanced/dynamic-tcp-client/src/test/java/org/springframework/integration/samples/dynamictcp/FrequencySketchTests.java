@@ -0,0 +1,60 @@
+/*
+ * Copyright 2018-2026 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.integration.samples.dynamictcp;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import org.junit.Test;
+
+/**
+ * Tests for {@link FrequencySketch}.
+ *
+ * @since 5.1
+ *
+ */
+public class FrequencySketchTests {
+
+	@Test
+	public void testCountsSaturate() {
+		FrequencySketch sketch = new FrequencySketch(100);
+		HostPort destination = new HostPort("localhost", 1234);
+		assertThat(sketch.frequency(destination)).isEqualTo(0);
+		for (int i = 0; i < 5; i++) {
+			sketch.increment(destination);
+		}
+		assertThat(sketch.frequency(destination)).isEqualTo(5);
+		for (int i = 0; i < 20; i++) {
+			sketch.increment(destination);
+		}
+		assertThat(sketch.frequency(destination)).isEqualTo(15);
+	}
+
+	@Test
+	public void testCountsAreHalvedAfterSample() {
+		FrequencySketch sketch = new FrequencySketch(16);
+		HostPort hot = new HostPort("hot", 1);
+		for (int i = 0; i < 10; i++) {
+			sketch.increment(hot);
+		}
+		// the sample is 160 additions; one-off destinations make up the rest
+		for (int i = 0; i < 150; i++) {
+			sketch.increment(new HostPort("cold", i));
+		}
+		assertThat(sketch.frequency(hot)).isBetween(5, 7);
+	}
+
+}
@@ -0,0 +1,168 @@
+/*
+ * Copyright 2018-2026 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.integration.samples.dynamictcp;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import org.springframework.integration.channel.DirectChannel;
+import org.springframework.integration.dsl.context.IntegrationFlowContext.IntegrationFlowRegistration;
+import org.springframework.messaging.MessageChannel;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskScheduler;
+
+/**
+ * Tests for {@link SubflowCache}.
+ *
+ * @since 5.1
+ *
+ */
+public class SubflowCacheTests {
+
+	private final Map<HostPort, IntegrationFlowRegistration> registrations = new ConcurrentHashMap<>();
+
+	private final AtomicInteger registrationCount = new AtomicInteger();
+
+	private final ThreadPoolTaskScheduler scheduler = new ThreadPoolTaskScheduler();
+
+	private final Function<HostPort, IntegrationFlowRegistration> registrar = destination -> {
+		this.registrationCount.incrementAndGet();
+		try {
+			Thread.sleep(50);
+		}
+		catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+		IntegrationFlowRegistration registration = mock(IntegrationFlowRegistration.class);
+		when(registration.getInputChannel()).thenReturn(new DirectChannel());
+		this.registrations.put(destination, registration);
+		return registration;
+	};
+
+	@Before
+	public void setup() {
+		this.scheduler.initialize();
+	}
+
+	@After
+	public void tearDown() {
+		this.scheduler.destroy();
+	}
+
+	@Test
+	public void testRegistrationIsDeduplicated() throws Exception {
+		SubflowCache cache = new SubflowCache(this.registrar, this.scheduler);
+		ExecutorService executor = Executors.newFixedThreadPool(16);
+		CountDownLatch start = new CountDownLatch(1);
+		List<MessageChannel> channels = new CopyOnWriteArrayList<>();
+		for (int i = 0; i < 16; i++) {
+			executor.execute(() -> {
+				try {
+					start.await();
+					channels.add(cache.get(new HostPort("localhost", 1234)));
+				}
+				catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+				}
+			});
+		}
+		start.countDown();
+		executor.shutdown();
+		assertThat(executor.awaitTermination(10, TimeUnit.SECONDS)).isTrue();
+		assertThat(channels).hasSize(16);
+		assertThat(channels.stream().distinct().count()).isEqualTo(1);
+		assertThat(this.registrationCount.get()).isEqualTo(1);
+	}
+
+	@Test
+	public void testLeastRecentlyUsedIsEvicted() throws Exception {
+		SubflowCache cache = new SubflowCache(this.registrar, this.scheduler);
+		cache.setMaxSize(2);
+		cache.setRemovalDelay(0);
+		HostPort a = new HostPort("a", 1);
+		HostPort b = new HostPort("b", 2);
+		HostPort c = new HostPort("c", 3);
+		cache.get(a);
+		Thread.sleep(150);
+		cache.get(b);
+		Thread.sleep(150);
+		cache.get(a);
+		Thread.sleep(150);
+		cache.get(c);
+		verify(this.registrations.get(b), timeout(10000)).destroy();
+		assertThat(cache.getDestinations()).containsOnly(a, c);
+	}
+
+	@Test
+	public void testFrequentlyUsedSurvivesBurst() {
+		SubflowCache cache = new SubflowCache(this.registrar, this.scheduler);
+		cache.setMaxSize(2);
+		cache.setRemovalDelay(0);
+		HostPort hot = new HostPort("hot", 1);
+		for (int i = 0; i < 5; i++) {
+			cache.get(hot);
+		}
+		cache.get(new HostPort("b", 2));
+		for (int i = 0; i < 10; i++) {
+			cache.get(new HostPort("burst", i));
+			cache.maintain();
+		}
+		assertThat(cache.getDestinations()).contains(hot).hasSize(2);
+		SubflowCache.Statistics statistics = cache.getStatistics();
+		assertThat(statistics.getHits()).isEqualTo(4);
+		assertThat(statistics.getMisses()).isEqualTo(12);
+		assertThat(statistics.getSizeEvictions()).isEqualTo(10);
+		assertThat(statistics.getMaxRegistrationNanos()).isGreaterThanOrEqualTo(TimeUnit.MILLISECONDS.toNanos(50));
+	}
+
+	@Test
+	public void testIdleSubflowIsEvicted() throws Exception {
+		SubflowCache cache = new SubflowCache(this.registrar, this.scheduler);
+		cache.setIdleTimeout(200);
+		cache.setRemovalDelay(0);
+		List<IntegrationFlowRegistration> evicted = new CopyOnWriteArrayList<>();
+		cache.setEvictionListener(evicted::add);
+		cache.start();
+		HostPort a = new HostPort("a", 1);
+		assertThat(cache.getIdleTime(a)).isEqualTo(-1);
+		cache.get(a);
+		assertThat(cache.getIdleTime(a)).isBetween(0L, 200L);
+		verify(this.registrations.get(a), timeout(10000)).destroy();
+		assertThat(cache.size()).isEqualTo(0);
+		assertThat(evicted).containsExactly(this.registrations.get(a));
+		assertThat(cache.getStatistics().getIdleEvictions()).isEqualTo(1);
+		cache.stop();
+	}
+
+}
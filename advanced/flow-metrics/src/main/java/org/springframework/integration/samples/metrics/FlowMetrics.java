@@ -0,0 +1,39 @@
+/*
+ * Copyright 2002-2026 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.integration.samples.metrics;
+
+import org.springframework.util.Assert;
+
+/**
+ * Holds the {@link MetricsRegistry} used by the flow metrics components.
+ *
+ * @since 5.1
+ *
+ */
+public class FlowMetrics {
+
+	private final MetricsRegistry registry;
+
+	public FlowMetrics(MetricsRegistry registry) {
+		Assert.notNull(registry, "'registry' cannot be null");
+		this.registry = registry;
+	}
+
+	public MetricsRegistry getRegistry() {
+		return this.registry;
+	}
+
+}
@@ -0,0 +1,138 @@
+/*
+ * Copyright 2002-2026 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.integration.samples.metrics;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.aopalliance.aop.Advice;
+
+import org.springframework.aop.framework.ProxyFactory;
+import org.springframework.aop.support.AopUtils;
+import org.springframework.aop.support.NameMatchMethodPointcutAdvisor;
+import org.springframework.beans.BeansException;
+import org.springframework.beans.DirectFieldAccessor;
+import org.springframework.beans.factory.BeanClassLoaderAware;
+import org.springframework.beans.factory.BeanFactory;
+import org.springframework.beans.factory.BeanFactoryAware;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.integration.channel.QueueChannelOperations;
+import org.springframework.integration.handler.AbstractMessageHandler;
+import org.springframework.integration.handler.AbstractReplyProducingMessageHandler;
+import org.springframework.util.ClassUtils;
+import org.springframework.util.PatternMatchUtils;
+
+/**
+ * Applies a {@link MetricsHandlerAdvice} to every {@link AbstractMessageHandler} bean
+ * and registers queue depth and remaining capacity gauges
+ * ({@code si.channel.queue.size}, {@code si.channel.queue.remaining}) for every
+ * {@link QueueChannelOperations} bean.
+ * <p>
+ * The advice is appended to the advice chain of an
+ * {@link AbstractReplyProducingMessageHandler}, so the handler itself is not proxied
+ * and only its own work is timed. Other handlers are wrapped in a JDK proxy of their
+ * interfaces whose {@code handleMessage} is advised, the same technique the framework
+ * uses for advising non-reply-producing handlers; a class-based proxy would run the
+ * handlers' many final methods against its own, uninitialized, fields.
+ *
+ * @since 5.1
+ *
+ */
+public class FlowMetricsBeanPostProcessor implements BeanPostProcessor, BeanFactoryAware, BeanClassLoaderAware {
+
+	private final String flowMetricsBeanName;
+
+	private String[] handlerPatterns = { "*" };
+
+	private BeanFactory beanFactory;
+
+	private ClassLoader beanClassLoader = ClassUtils.getDefaultClassLoader();
+
+	private MetricsRegistry registry;
+
+	/**
+	 * @param flowMetricsBeanName the name of the {@link FlowMetrics} bean; it is
+	 * looked up lazily, when the first handler or queue channel is processed.
+	 */
+	public FlowMetricsBeanPostProcessor(String flowMetricsBeanName) {
+		this.flowMetricsBeanName = flowMetricsBeanName;
+	}
+
+	/**
+	 * @param handlerPatterns simple patterns ({@code *} wildcards) matching the bean
+	 * names of the handlers to advise; default all.
+	 */
+	public void setHandlerPatterns(String... handlerPatterns) {
+		this.handlerPatterns = handlerPatterns;
+	}
+
+	@Override
+	public void setBeanFactory(BeanFactory beanFactory) {
+		this.beanFactory = beanFactory;
+	}
+
+	@Override
+	public void setBeanClassLoader(ClassLoader classLoader) {
+		this.beanClassLoader = classLoader;
+	}
+
+	@Override
+	public Object postProcessAfterInitialization(Object bean, String beanName) throws BeansException {
+		if (bean instanceof QueueChannelOperations) {
+			QueueChannelOperations queue = (QueueChannelOperations) bean;
+			registry().gauge("si.channel.queue.size", queue::getQueueSize, "channel", beanName);
+			registry().gauge("si.channel.queue.remaining", queue::getRemainingCapacity, "channel", beanName);
+		}
+		else if (bean instanceof AbstractReplyProducingMessageHandler && shouldAdvise(bean, beanName)) {
+			AbstractReplyProducingMessageHandler handler = (AbstractReplyProducingMessageHandler) bean;
+			List<Advice> chain = adviceChain(handler);
+			chain.add(new MetricsHandlerAdvice(registry(), beanName));
+			handler.setAdviceChain(chain);
+		}
+		else if (bean instanceof AbstractMessageHandler && shouldAdvise(bean, beanName)) {
+			ProxyFactory proxyFactory = new ProxyFactory(bean);
+			NameMatchMethodPointcutAdvisor advisor =
+					new NameMatchMethodPointcutAdvisor(new MetricsHandlerAdvice(registry(), beanName));
+			advisor.addMethodName("handleMessage");
+			proxyFactory.addAdvisor(advisor);
+			return proxyFactory.getProxy(this.beanClassLoader);
+		}
+		return bean;
+	}
+
+	private boolean shouldAdvise(Object bean, String beanName) {
+		return !AopUtils.isAopProxy(bean) && !beanName.contains("(inner bean)")
+				&& PatternMatchUtils.simpleMatch(this.handlerPatterns, beanName);
+	}
+
+	/*
+	 * A copy of the advices already configured on the handler (there is no getter), so
+	 * that setting the extended chain keeps them.
+	 */
+	@SuppressWarnings("unchecked")
+	private static List<Advice> adviceChain(AbstractReplyProducingMessageHandler handler) {
+		List<Advice> chain = (List<Advice>) new DirectFieldAccessor(handler).getPropertyValue("adviceChain");
+		return chain != null ? new ArrayList<>(chain) : new ArrayList<>();
+	}
+
+	private MetricsRegistry registry() {
+		if (this.registry == null) {
+			this.registry = this.beanFactory.getBean(this.flowMetricsBeanName, FlowMetrics.class).getRegistry();
+		}
+		return this.registry;
+	}
+
+}
@@ -0,0 +1,69 @@
+/*
+ * Copyright 2002-2026 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.integration.samples.metrics;
+
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.integration.channel.interceptor.GlobalChannelInterceptorWrapper;
+
+/**
+ * Import (or declare as a bean in XML, with {@code <context:annotation-config/>}) to
+ * publish the metrics of every channel and handler in a sample to a
+ * {@link MetricsRegistry} and serve them for Prometheus at
+ * {@code http://localhost:<flow.metrics.port>/metrics} (default port 9464).
+ * <p>
+ * A {@link SimpleMetricsRegistry} is used unless the context contains a (single)
+ * {@link MetricsRegistry} bean; set the {@code flow.metrics.port} property to
+ * {@code -1} to disable the scrape endpoint.
+ *
+ * @since 5.1
+ *
+ */
+@Configuration
+public class FlowMetricsConfiguration {
+
+	public static final String FLOW_METRICS_BEAN_NAME = "flowMetrics";
+
+	@Bean
+	public static FlowMetricsBeanPostProcessor flowMetricsBeanPostProcessor() {
+		return new FlowMetricsBeanPostProcessor(FLOW_METRICS_BEAN_NAME);
+	}
+
+	@Bean(name = FLOW_METRICS_BEAN_NAME)
+	public FlowMetrics flowMetrics(ObjectProvider<MetricsRegistry> registry) {
+		return new FlowMetrics(registry.getIfUnique(SimpleMetricsRegistry::new));
+	}
+
+	@Bean
+	public GlobalChannelInterceptorWrapper flowMetricsChannelInterceptor(FlowMetrics flowMetrics) {
+		GlobalChannelInterceptorWrapper wrapper =
+				new GlobalChannelInterceptorWrapper(new MetricsChannelInterceptor(flowMetrics.getRegistry()));
+		wrapper.setPatterns(new String[] { "*" });
+		return wrapper;
+	}
+
+	@Bean
+	public PrometheusScrapeEndpoint flowMetricsScrapeEndpoint(FlowMetrics flowMetrics,
+			@Value("${flow.metrics.port:9464}") int port) {
+
+		PrometheusScrapeEndpoint endpoint = new PrometheusScrapeEndpoint(flowMetrics.getRegistry(), port);
+		endpoint.setAutoStartup(port >= 0);
+		return endpoint;
+	}
+
+}
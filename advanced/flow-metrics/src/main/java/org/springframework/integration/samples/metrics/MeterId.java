@@ -0,0 +1,84 @@
+/*
+ * Copyright 2002-2026 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.integration.samples.metrics;
+
+import java.util.Collections;
+import java.util.Map;
+import java.util.TreeMap;
+
+import org.springframework.util.Assert;
+
+/**
+ * The name and tags identifying a meter.
+ *
+ * @since 5.1
+ *
+ */
+public final class MeterId {
+
+	private final String name;
+
+	private final Map<String, String> tags;
+
+	/**
+	 * @param name the meter name.
+	 * @param tags alternating tag keys and values.
+	 */
+	public MeterId(String name, String... tags) {
+		Assert.hasText(name, "'name' is required");
+		Assert.isTrue(tags.length % 2 == 0, "'tags' must be key/value pairs");
+		this.name = name;
+		Map<String, String> map = new TreeMap<>();
+		for (int i = 0; i < tags.length; i += 2) {
+			map.put(tags[i], tags[i + 1]);
+		}
+		this.tags = Collections.unmodifiableMap(map);
+	}
+
+	public String getName() {
+		return this.name;
+	}
+
+	/**
+	 * @return the tags, sorted by key.
+	 */
+	public Map<String, String> getTags() {
+		return this.tags;
+	}
+
+	@Override
+	public boolean equals(Object obj) {
+		if (this == obj) {
+			return true;
+		}
+		if (!(obj instanceof MeterId)) {
+			return false;
+		}
+		MeterId other = (MeterId) obj;
+		return this.name.equals(other.name) && this.tags.equals(other.tags);
+	}
+
+	@Override
+	public int hashCode() {
+		return 31 * this.name.hashCode() + this.tags.hashCode();
+	}
+
+	@Override
+	public String toString() {
+		return this.name + this.tags;
+	}
+
+}
@@ -0,0 +1,110 @@
+/*
+ * Copyright 2002-2026 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.integration.samples.metrics;
+
+import java.util.Arrays;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import org.springframework.integration.support.context.NamedComponent;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageChannel;
+import org.springframework.messaging.support.ChannelInterceptor;
+
+/**
+ * A global channel interceptor publishing, per channel, the number of sends
+ * ({@code si.channel.sends}), failed sends ({@code si.channel.send.errors}) and the
+ * send duration ({@code si.channel.send}) to a {@link MetricsRegistry}.
+ *
+ * @since 5.1
+ *
+ */
+public class MetricsChannelInterceptor implements ChannelInterceptor {
+
+	private final ThreadLocal<SendStack> sends = ThreadLocal.withInitial(SendStack::new);
+
+	private final ConcurrentMap<MessageChannel, ChannelMeters> meters = new ConcurrentHashMap<>();
+
+	private final MetricsRegistry registry;
+
+	public MetricsChannelInterceptor(MetricsRegistry registry) {
+		this.registry = registry;
+	}
+
+	@Override
+	public Message<?> preSend(Message<?> message, MessageChannel channel) {
+		this.sends.get().push(System.nanoTime());
+		return message;
+	}
+
+	@Override
+	public void afterSendCompletion(Message<?> message, MessageChannel channel, boolean sent, Exception ex) {
+		long elapsed = System.nanoTime() - this.sends.get().pop();
+		ChannelMeters channelMeters = this.meters.get(channel);
+		if (channelMeters == null) {
+			channelMeters = this.meters.computeIfAbsent(channel, c -> new ChannelMeters(this.registry, channelName(c)));
+		}
+		channelMeters.sends.increment();
+		channelMeters.sendTimer.record(elapsed);
+		if (!sent || ex != null) {
+			channelMeters.errors.increment();
+		}
+	}
+
+	static String channelName(MessageChannel channel) {
+		String name = channel instanceof NamedComponent ? ((NamedComponent) channel).getComponentName() : null;
+		return name != null ? name : channel.toString();
+	}
+
+	private static final class ChannelMeters {
+
+		private final Counter sends;
+
+		private final Counter errors;
+
+		private final Timer sendTimer;
+
+		ChannelMeters(MetricsRegistry registry, String name) {
+			this.sends = registry.counter("si.channel.sends", "channel", name);
+			this.errors = registry.counter("si.channel.send.errors", "channel", name);
+			this.sendTimer = registry.timer("si.channel.send", "channel", name);
+		}
+
+	}
+
+	/**
+	 * Start times of (possibly nested) sends on the current thread.
+	 */
+	private static final class SendStack {
+
+		private long[] starts = new long[8];
+
+		private int depth;
+
+		void push(long start) {
+			if (this.depth == this.starts.length) {
+				this.starts = Arrays.copyOf(this.starts, this.depth * 2);
+			}
+			this.starts[this.depth++] = start;
+		}
+
+		long pop() {
+			return this.starts[--this.depth];
+		}
+
+	}
+
+}
@@ -0,0 +1,55 @@
+/*
+ * Copyright 2002-2026 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.integration.samples.metrics;
+
+import org.springframework.integration.handler.advice.AbstractRequestHandlerAdvice;
+import org.springframework.messaging.Message;
+
+/**
+ * A handler advice publishing the handler latency ({@code si.handler}, tagged with
+ * the handler name and {@code result=success|failure}) to a {@link MetricsRegistry}.
+ * Applied to every handler by the {@link FlowMetricsBeanPostProcessor}; it can also be
+ * added explicitly to an endpoint's advice chain.
+ *
+ * @since 5.1
+ *
+ */
+public class MetricsHandlerAdvice extends AbstractRequestHandlerAdvice {
+
+	private final Timer success;
+
+	private final Timer failure;
+
+	public MetricsHandlerAdvice(MetricsRegistry registry, String handlerName) {
+		this.success = registry.timer("si.handler", "handler", handlerName, "result", "success");
+		this.failure = registry.timer("si.handler", "handler", handlerName, "result", "failure");
+	}
+
+	@Override
+	protected Object doInvoke(ExecutionCallback callback, Object target, Message<?> message) throws Exception {
+		long start = System.nanoTime();
+		boolean ok = false;
+		try {
+			Object result = callback.execute();
+			ok = true;
+			return result;
+		}
+		finally {
+			(ok ? this.success : this.failure).record(System.nanoTime() - start);
+		}
+	}
+
+}
@@ -0,0 +1,48 @@
+/*
+ * Copyright 2002-2026 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.integration.samples.metrics;
+
+import java.util.Collection;
+import java.util.function.Supplier;
+
+/**
+ * A pluggable registry of meters; the {@link SimpleMetricsRegistry} keeps them in
+ * memory, other implementations may bridge to a monitoring system.
+ * <p>
+ * Meters are created on first use and returned for subsequent calls with the same
+ * name and tags.
+ *
+ * @since 5.1
+ *
+ */
+public interface MetricsRegistry {
+
+	Counter counter(String name, String... tags);
+
+	Timer timer(String name, String... tags);
+
+	/**
+	 * Register a gauge; subsequent registrations with the same id are ignored.
+	 * @param name the name.
+	 * @param value the supplier of the value.
+	 * @param tags alternating tag keys and values.
+	 * @return the gauge.
+	 */
+	Gauge gauge(String name, Supplier<? extends Number> value, String... tags);
+
+	Collection<Meter> getMeters();
+
+}
@@ -0,0 +1,124 @@
+/*
+ * Copyright 2002-2026 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.integration.samples.metrics;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+import org.springframework.context.SmartLifecycle;
+
+import com.sun.net.httpserver.HttpServer;
+
+/**
+ * Serves the Prometheus text format at {@code http://host:port/metrics} using the
+ * JDK's built-in HTTP server, so that samples without a web stack can be scraped.
+ *
+ * @since 5.1
+ *
+ */
+public class PrometheusScrapeEndpoint implements SmartLifecycle {
+
+	private static final Log logger = LogFactory.getLog(PrometheusScrapeEndpoint.class);
+
+	private final PrometheusTextFormatter formatter;
+
+	private final int port;
+
+	private boolean autoStartup = true;
+
+	private volatile HttpServer server;
+
+	/**
+	 * @param registry the registry.
+	 * @param port the port; 0 for an ephemeral port.
+	 */
+	public PrometheusScrapeEndpoint(MetricsRegistry registry, int port) {
+		this.formatter = new PrometheusTextFormatter(registry);
+		this.port = port;
+	}
+
+	public void setAutoStartup(boolean autoStartup) {
+		this.autoStartup = autoStartup;
+	}
+
+	/**
+	 * @return the port the server is listening on, or -1 if not running.
+	 */
+	public int getPort() {
+		HttpServer server = this.server;
+		return server == null ? -1 : server.getAddress().getPort();
+	}
+
+	@Override
+	public synchronized void start() {
+		if (this.server != null) {
+			return;
+		}
+		try {
+			HttpServer server = HttpServer.create(new InetSocketAddress(this.port), 0);
+			server.createContext("/metrics", exchange -> {
+				byte[] body = this.formatter.format().getBytes(StandardCharsets.UTF_8);
+				exchange.getResponseHeaders().set("Content-Type", PrometheusTextFormatter.CONTENT_TYPE);
+				exchange.sendResponseHeaders(200, body.length);
+				try (OutputStream out = exchange.getResponseBody()) {
+					out.write(body);
+				}
+			});
+			server.start();
+			this.server = server;
+			logger.info("Prometheus metrics available at http://localhost:" + getPort() + "/metrics");
+		}
+		catch (IOException e) {
+			throw new UncheckedIOException("Failed to start the scrape endpoint on port " + this.port, e);
+		}
+	}
+
+	@Override
+	public synchronized void stop() {
+		if (this.server != null) {
+			this.server.stop(0);
+			this.server = null;
+		}
+	}
+
+	@Override
+	public boolean isRunning() {
+		return this.server != null;
+	}
+
+	@Override
+	public boolean isAutoStartup() {
+		return this.autoStartup;
+	}
+
+	@Override
+	public void stop(Runnable callback) {
+		stop();
+		callback.run();
+	}
+
+	@Override
+	public int getPhase() {
+		return Integer.MAX_VALUE;
+	}
+
+}
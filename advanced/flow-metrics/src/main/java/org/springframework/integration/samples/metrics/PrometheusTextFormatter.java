@@ -0,0 +1,112 @@
+/*
+ * Copyright 2002-2026 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.integration.samples.metrics;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Renders the meters of a {@link MetricsRegistry} in the Prometheus text exposition
+ * format (version 0.0.4). Counters get a {@code _total} suffix and timers are exposed
+ * as {@code _seconds} histograms plus a {@code _seconds_max} gauge.
+ *
+ * @since 5.1
+ *
+ */
+public class PrometheusTextFormatter {
+
+	public static final String CONTENT_TYPE = "text/plain; version=0.0.4; charset=utf-8";
+
+	private final MetricsRegistry registry;
+
+	public PrometheusTextFormatter(MetricsRegistry registry) {
+		this.registry = registry;
+	}
+
+	public String format() {
+		List<Meter> meters = new ArrayList<>(this.registry.getMeters());
+		meters.sort(Comparator.comparing((Meter meter) -> meter.getId().getName())
+				.thenComparing(meter -> meter.getId().getTags().toString()));
+		Map<String, StringBuilder> families = new TreeMap<>();
+		for (Meter meter : meters) {
+			String name = sanitize(meter.getId().getName());
+			Map<String, String> tags = meter.getId().getTags();
+			if (meter instanceof Counter) {
+				name = name.endsWith("_total") ? name : name + "_total";
+				sample(family(families, name, "counter"), name, tags, null, ((Counter) meter).count());
+			}
+			else if (meter instanceof Timer) {
+				name = name + "_seconds";
+				Timer timer = (Timer) meter;
+				StringBuilder out = family(families, name, "histogram");
+				long[] boundaries = timer.bucketBoundaries();
+				long[] counts = timer.cumulativeBucketCounts();
+				for (int i = 0; i < boundaries.length; i++) {
+					sample(out, name + "_bucket", tags, Double.toString(boundaries[i] / 1e9), counts[i]);
+				}
+				long count = timer.count();
+				sample(out, name + "_bucket", tags, "+Inf", count);
+				sample(out, name + "_count", tags, null, count);
+				sample(out, name + "_sum", tags, null, timer.totalTime() / 1e9);
+				sample(family(families, name + "_max", "gauge"), name + "_max", tags, null, timer.max() / 1e9);
+			}
+			else if (meter instanceof Gauge) {
+				sample(family(families, name, "gauge"), name, tags, null, ((Gauge) meter).value());
+			}
+		}
+		StringBuilder text = new StringBuilder();
+		families.values().forEach(text::append);
+		return text.toString();
+	}
+
+	private static StringBuilder family(Map<String, StringBuilder> families, String name, String type) {
+		return families.computeIfAbsent(name,
+				n -> new StringBuilder("# TYPE ").append(n).append(' ').append(type).append('\n'));
+	}
+
+	private static void sample(StringBuilder out, String name, Map<String, String> tags, String le, Number value) {
+		out.append(name);
+		if (!tags.isEmpty() || le != null) {
+			out.append('{');
+			boolean first = true;
+			for (Map.Entry<String, String> tag : tags.entrySet()) {
+				if (!first) {
+					out.append(',');
+				}
+				first = false;
+				out.append(sanitize(tag.getKey())).append("=\"").append(escape(tag.getValue())).append('"');
+			}
+			if (le != null) {
+				out.append(first ? "" : ",").append("le=\"").append(le).append('"');
+			}
+			out.append('}');
+		}
+		out.append(' ').append(value).append('\n');
+	}
+
+	private static String sanitize(String name) {
+		String sanitized = name.replaceAll("[^a-zA-Z0-9_:]", "_");
+		return Character.isDigit(sanitized.charAt(0)) ? "_" + sanitized : sanitized;
+	}
+
+	private static String escape(String value) {
+		return value.replace("\\", "\\\\").replace("\"", "\\\"").replace("\n", "\\n");
+	}
+
+}
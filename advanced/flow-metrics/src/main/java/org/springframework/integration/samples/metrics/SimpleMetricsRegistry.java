@@ -0,0 +1,229 @@
+/*
+ * Copyright 2002-2026 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.integration.samples.metrics;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+import org.springframework.util.Assert;
+
+/**
+ * An in-memory {@link MetricsRegistry}; recording is lock-free.
+ *
+ * @since 5.1
+ *
+ */
+public class SimpleMetricsRegistry implements MetricsRegistry {
+
+	private static final long[] DEFAULT_BOUNDARIES = {
+			TimeUnit.MICROSECONDS.toNanos(100),
+			TimeUnit.MICROSECONDS.toNanos(500),
+			TimeUnit.MILLISECONDS.toNanos(1),
+			TimeUnit.MILLISECONDS.toNanos(5),
+			TimeUnit.MILLISECONDS.toNanos(10),
+			TimeUnit.MILLISECONDS.toNanos(50),
+			TimeUnit.MILLISECONDS.toNanos(100),
+			TimeUnit.MILLISECONDS.toNanos(500),
+			TimeUnit.SECONDS.toNanos(1),
+			TimeUnit.SECONDS.toNanos(5),
+			TimeUnit.SECONDS.toNanos(10)
+	};
+
+	private final ConcurrentMap<MeterId, Meter> meters = new ConcurrentHashMap<>();
+
+	private final long[] boundaries;
+
+	public SimpleMetricsRegistry() {
+		this(DEFAULT_BOUNDARIES);
+	}
+
+	/**
+	 * @param boundaries the timer bucket boundaries in nanoseconds, ascending.
+	 */
+	public SimpleMetricsRegistry(long... boundaries) {
+		Assert.isTrue(boundaries.length > 0, "at least one boundary is required");
+		for (int i = 1; i < boundaries.length; i++) {
+			Assert.isTrue(boundaries[i] > boundaries[i - 1], "'boundaries' must be ascending");
+		}
+		this.boundaries = boundaries.clone();
+	}
+
+	@Override
+	public Counter counter(String name, String... tags) {
+		return getOrCreate(new MeterId(name, tags), SimpleCounter.class, SimpleCounter::new);
+	}
+
+	@Override
+	public Timer timer(String name, String... tags) {
+		return getOrCreate(new MeterId(name, tags), SimpleTimer.class, id -> new SimpleTimer(id, this.boundaries));
+	}
+
+	@Override
+	public Gauge gauge(String name, Supplier<? extends Number> value, String... tags) {
+		return getOrCreate(new MeterId(name, tags), SimpleGauge.class, id -> new SimpleGauge(id, value));
+	}
+
+	@Override
+	public Collection<Meter> getMeters() {
+		return Collections.unmodifiableCollection(new ArrayList<>(this.meters.values()));
+	}
+
+	private <T extends Meter> T getOrCreate(MeterId id, Class<T> type, Function<MeterId, T> factory) {
+		Meter meter = this.meters.get(id);
+		if (meter == null) {
+			meter = this.meters.computeIfAbsent(id, factory);
+		}
+		Assert.isInstanceOf(type, meter, () -> "A meter of a different type is already registered as " + id);
+		return type.cast(meter);
+	}
+
+	private static final class SimpleCounter implements Counter {
+
+		private final MeterId id;
+
+		private final LongAdder count = new LongAdder();
+
+		SimpleCounter(MeterId id) {
+			this.id = id;
+		}
+
+		@Override
+		public MeterId getId() {
+			return this.id;
+		}
+
+		@Override
+		public void increment() {
+			this.count.increment();
+		}
+
+		@Override
+		public long count() {
+			return this.count.sum();
+		}
+
+	}
+
+	private static final class SimpleGauge implements Gauge {
+
+		private final MeterId id;
+
+		private final Supplier<? extends Number> value;
+
+		SimpleGauge(MeterId id, Supplier<? extends Number> value) {
+			this.id = id;
+			this.value = value;
+		}
+
+		@Override
+		public MeterId getId() {
+			return this.id;
+		}
+
+		@Override
+		public double value() {
+			Number number = this.value.get();
+			return number == null ? Double.NaN : number.doubleValue();
+		}
+
+	}
+
+	private static final class SimpleTimer implements Timer {
+
+		private final MeterId id;
+
+		private final long[] boundaries;
+
+		private final LongAdder[] buckets;
+
+		private final LongAdder count = new LongAdder();
+
+		private final LongAdder total = new LongAdder();
+
+		private final AtomicLong max = new AtomicLong();
+
+		SimpleTimer(MeterId id, long[] boundaries) {
+			this.id = id;
+			this.boundaries = boundaries;
+			this.buckets = new LongAdder[boundaries.length];
+			for (int i = 0; i < boundaries.length; i++) {
+				this.buckets[i] = new LongAdder();
+			}
+		}
+
+		@Override
+		public MeterId getId() {
+			return this.id;
+		}
+
+		@Override
+		public void record(long nanos) {
+			for (int i = 0; i < this.boundaries.length; i++) {
+				if (nanos <= this.boundaries[i]) {
+					this.buckets[i].increment();
+					break;
+				}
+			}
+			this.count.increment();
+			this.total.add(nanos);
+			long current = this.max.get();
+			while (nanos > current && !this.max.compareAndSet(current, nanos)) {
+				current = this.max.get();
+			}
+		}
+
+		@Override
+		public long count() {
+			return this.count.sum();
+		}
+
+		@Override
+		public long totalTime() {
+			return this.total.sum();
+		}
+
+		@Override
+		public long max() {
+			return this.max.get();
+		}
+
+		@Override
+		public long[] bucketBoundaries() {
+			return this.boundaries.clone();
+		}
+
+		@Override
+		public long[] cumulativeBucketCounts() {
+			long[] counts = new long[this.buckets.length];
+			long cumulative = 0;
+			for (int i = 0; i < counts.length; i++) {
+				cumulative += this.buckets[i].sum();
+				counts[i] = cumulative;
+			}
+			return counts;
+		}
+
+	}
+
+}
@@ -0,0 +1,54 @@
+/*
+ * Copyright 2002-2026 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.integration.samples.metrics;
+
+/**
+ * Records durations into a histogram with fixed bucket boundaries.
+ *
+ * @since 5.1
+ *
+ */
+public interface Timer extends Meter {
+
+	/**
+	 * @param nanos the duration in nanoseconds.
+	 */
+	void record(long nanos);
+
+	long count();
+
+	/**
+	 * @return the total of all recorded durations in nanoseconds.
+	 */
+	long totalTime();
+
+	/**
+	 * @return the maximum recorded duration in nanoseconds.
+	 */
+	long max();
+
+	/**
+	 * @return the inclusive upper bounds of the buckets in nanoseconds, ascending.
+	 */
+	long[] bucketBoundaries();
+
+	/**
+	 * @return the cumulative count of durations less than or equal to each
+	 * {@link #bucketBoundaries() boundary}.
+	 */
+	long[] cumulativeBucketCounts();
+
+}
@@ -0,0 +1,141 @@
+/*
+ * Copyright 2002-2026 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.integration.samples.metrics;
+
+import static org.hamcrest.Matchers.containsString;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertThat;
+
+import java.io.InputStream;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Import;
+import org.springframework.integration.annotation.ServiceActivator;
+import org.springframework.integration.channel.DirectChannel;
+import org.springframework.integration.channel.QueueChannel;
+import org.springframework.integration.config.EnableIntegration;
+import org.springframework.integration.handler.BridgeHandler;
+import org.springframework.integration.handler.LoggingHandler;
+import org.springframework.integration.support.MessageBuilder;
+import org.springframework.test.context.ContextConfiguration;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.context.junit4.SpringRunner;
+import org.springframework.util.StreamUtils;
+
+/**
+ * @since 5.1
+ *
+ */
+@RunWith(SpringRunner.class)
+@ContextConfiguration
+@TestPropertySource(properties = "flow.metrics.port=0")
+public class FlowMetricsTests {
+
+	@Autowired
+	private DirectChannel input;
+
+	@Autowired
+	private QueueChannel queue;
+
+	@Autowired
+	private DirectChannel log;
+
+	@Autowired
+	private PrometheusScrapeEndpoint scrapeEndpoint;
+
+	@Test
+	public void testChannelAndHandlerMetricsAreScraped() throws Exception {
+		this.input.send(MessageBuilder.withPayload("foo").build());
+		this.input.send(MessageBuilder.withPayload("bar").build());
+		assertNotNull(this.queue.receive(0));
+		this.log.send(MessageBuilder.withPayload("baz").build());
+
+		HttpURLConnection connection = (HttpURLConnection) new URL("http://localhost:"
+				+ this.scrapeEndpoint.getPort() + "/metrics").openConnection();
+		String body;
+		try (InputStream in = connection.getInputStream()) {
+			body = StreamUtils.copyToString(in, StandardCharsets.UTF_8);
+		}
+		assertThat(body, containsString("# TYPE si_channel_sends_total counter"));
+		assertThat(body, containsString("si_channel_sends_total{channel=\"input\"} 2"));
+		assertThat(body, containsString("si_channel_sends_total{channel=\"queue\"} 2"));
+		assertThat(body, containsString("si_channel_send_errors_total{channel=\"input\"} 0"));
+		assertThat(body, containsString("si_channel_queue_size{channel=\"queue\"} 1.0"));
+		assertThat(body, containsString("# TYPE si_handler_seconds histogram"));
+		assertThat(body, containsString("si_handler_seconds_count{handler=\"bridge\",result=\"success\"} 2"));
+		assertThat(body, containsString("si_handler_seconds_bucket{handler=\"bridge\",result=\"success\",le=\"+Inf\"} 2"));
+		assertThat(body, containsString("si_handler_seconds_count{handler=\"logger\",result=\"success\"} 1"));
+	}
+
+	@Test
+	public void testTimerBuckets() {
+		SimpleMetricsRegistry registry = new SimpleMetricsRegistry(1000, 2000);
+		Timer timer = registry.timer("test", "k", "v");
+		timer.record(500);
+		timer.record(1500);
+		timer.record(5000);
+		String text = new PrometheusTextFormatter(registry).format();
+		assertThat(text, containsString("test_seconds_bucket{k=\"v\",le=\"1.0E-6\"} 1\n"));
+		assertThat(text, containsString("test_seconds_bucket{k=\"v\",le=\"2.0E-6\"} 2\n"));
+		assertThat(text, containsString("test_seconds_bucket{k=\"v\",le=\"+Inf\"} 3\n"));
+		assertThat(text, containsString("test_seconds_max{k=\"v\"} 5.0E-6\n"));
+	}
+
+	@Configuration
+	@EnableIntegration
+	@Import(FlowMetricsConfiguration.class)
+	public static class Config {
+
+		@Bean
+		public DirectChannel input() {
+			return new DirectChannel();
+		}
+
+		@Bean
+		public QueueChannel queue() {
+			return new QueueChannel();
+		}
+
+		@Bean
+		@ServiceActivator(inputChannel = "input")
+		public BridgeHandler bridge() {
+			BridgeHandler bridge = new BridgeHandler();
+			bridge.setOutputChannelName("queue");
+			return bridge;
+		}
+
+		@Bean
+		public DirectChannel log() {
+			return new DirectChannel();
+		}
+
+		@Bean
+		@ServiceActivator(inputChannel = "log")
+		public LoggingHandler logger() {
+			return new LoggingHandler(LoggingHandler.Level.DEBUG);
+		}
+
+	}
+
+}
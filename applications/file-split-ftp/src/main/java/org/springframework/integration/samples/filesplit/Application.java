@@ -17,23 +17,31 @@
 package org.springframework.integration.samples.filesplit;
 
 import java.io.File;
+import java.io.IOException;
 import java.io.PrintWriter;
 import java.io.StringWriter;
+import java.io.UncheckedIOException;
+import java.util.Arrays;
+import java.util.List;
 
 import org.aopalliance.intercept.MethodInterceptor;
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
 import org.apache.commons.net.ftp.FTPFile;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.boot.autoconfigure.mail.MailProperties;
 import org.springframework.context.annotation.Bean;
 import org.springframework.integration.dsl.IntegrationFlow;
+import org.springframework.integration.dsl.IntegrationFlowBuilder;
 import org.springframework.integration.dsl.IntegrationFlows;
 import org.springframework.integration.dsl.Pollers;
 import org.springframework.integration.file.FileHeaders;
-import org.springframework.integration.file.FileWritingMessageHandler;
 import org.springframework.integration.file.dsl.Files;
 import org.springframework.integration.file.remote.session.SessionFactory;
 import org.springframework.integration.file.splitter.FileSplitter;
@@ -41,14 +49,22 @@ import org.springframework.integration.ftp.dsl.Ftp;
 import org.springframework.integration.ftp.session.DefaultFtpSessionFactory;
 import org.springframework.integration.http.config.EnableIntegrationGraphController;
 import org.springframework.integration.mail.dsl.Mail;
+import org.springframework.integration.metadata.PropertiesPersistingMetadataStore;
 import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageHandler;
 import org.springframework.messaging.MessageHeaders;
 import org.springframework.messaging.MessagingException;
+import org.springframework.retry.backoff.FixedBackOffPolicy;
+import org.springframework.retry.policy.SimpleRetryPolicy;
+import org.springframework.retry.support.RetryTemplate;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
 
 @SpringBootApplication
 @EnableIntegrationGraphController(allowedOrigins = "http://localhost:8082")
 public class Application {
 
+	private static final Log logger = LogFactory.getLog(Application.class);
+
 	private static final String EMAIL_SUCCESS_SUFFIX = "emailSuccessSuffix";
 
 	public static void main(String[] args) {
@@ -58,48 +74,147 @@ public class Application {
 	@Autowired
 	private MailProperties mailProperties;
 
+	@Value("${file-split.mapped:false}")
+	private boolean mapped;
+
+	@Value("${file-split.checkpoint.lines:1000000}")
+	private long checkpointLines;
+
+	@Value("${file-split.checkpoint.directory:/tmp/split-checkpoints}")
+	private String checkpointDirectory;
+
+	@Value("${file-split.out.max-open-files:100}")
+	private int outMaxOpenFiles;
+
+	@Value("${file-split.out.buffer-size:8192}")
+	private int outBufferSize;
+
+	@Value("${file-split.out.max-buffered-bytes:16777216}")
+	private long outMaxBufferedBytes;
+
+	@Value("${file-split.out.flush-interval:5000}")
+	private long outFlushInterval;
+
+	@Value("${file-split.upload.threads:3}")
+	private int uploadThreads;
+
+	@Value("${file-split.upload.max-attempts:3}")
+	private int uploadMaxAttempts;
+
+	@Value("${file-split.upload.back-off:1000}")
+	private long uploadBackOff;
+
+	@Value("${file-split.upload.timeout:600000}")
+	private long uploadTimeout;
+
+	@Value("${file-split.ftp.connect-timeout:10000}")
+	private int ftpConnectTimeout;
+
+	@Value("${file-split.ftp.read-timeout:60000}")
+	private int ftpReadTimeout;
+
 	/**
 	 * Poll for files, add an error channel, split into lines route the start/end markers
 	 * to {@link #markers()} and the lines to {@link #lines}.
+	 * <p>
+	 * With {@code file-split.mapped=true}, the {@link #mappedFileSplitter()} writes the
+	 * lines to the output files itself and only the start/end markers are routed.
 	 *
 	 * @return the flow.
 	 */
 	@Bean
 	public IntegrationFlow fromFile() {
-		return IntegrationFlows.from(
+		IntegrationFlowBuilder flow = IntegrationFlows.from(
 				Files.inboundAdapter(new File("/tmp/in"))
 						.preventDuplicates(false)
 						.patternFilter("*.txt"), e -> e.poller(Pollers.fixedDelay(5000)
 						.errorChannel("tfrErrors.input"))
-						.id("fileInboundChannelAdapter"))
-				.handle(Files.splitter(true, true))
-				.<Object, Class<?>>route(Object::getClass, m -> m
+						.id("fileInboundChannelAdapter"));
+		if (this.mapped) {
+			flow.handle(File.class, (file, headers) -> splitMapped(file), e -> e.id("mappedSplitter"))
+					.split();
+		}
+		else {
+			flow.handle(Files.splitter(true, true));
+		}
+		return flow.<Object, Class<?>>route(Object::getClass, m -> m
 						.channelMapping(FileSplitter.FileMarker.class, "markers.input")
 						.channelMapping(String.class, "lines.input"))
 				.get();
 	}
 
 	/**
-	 * Process lines; append (no flush) to the appropriate file.
+	 * Split (with {@code file-split.mapped=true}), checkpointing every
+	 * {@code file-split.checkpoint.lines} lines, so that a split that does not complete
+	 * is resumed when the file is next polled. Neither the splitter nor its checkpoint
+	 * store (and its directory) is created without {@code file-split.mapped=true}.
+	 *
+	 * @return the splitter.
+	 */
+	@Bean
+	@ConditionalOnProperty(name = "file-split.mapped", havingValue = "true")
+	public MappedFileSplitter mappedFileSplitter() {
+		MappedFileSplitter splitter = new MappedFileSplitter(new File("/tmp/out"));
+		splitter.setMetadataStore(splitCheckpoints());
+		splitter.setCheckpointInterval(this.checkpointLines);
+		splitter.setMaxOpenFiles(this.outMaxOpenFiles);
+		return splitter;
+	}
+
+	@Bean
+	@ConditionalOnProperty(name = "file-split.mapped", havingValue = "true")
+	public PropertiesPersistingMetadataStore splitCheckpoints() {
+		PropertiesPersistingMetadataStore store = new PropertiesPersistingMetadataStore();
+		store.setBaseDirectory(this.checkpointDirectory);
+		store.setFileName("file-split-checkpoints.properties");
+		return store;
+	}
+
+	private List<FileSplitter.FileMarker> splitMapped(File file) {
+		try {
+			MappedFileSplitter.SplitResult result = mappedFileSplitter().split(file);
+			logger.info("Split " + file + ": " + result);
+			return Arrays.asList(
+					new FileSplitter.FileMarker(file.getAbsolutePath(), FileSplitter.FileMarker.Mark.START, 0),
+					new FileSplitter.FileMarker(file.getAbsolutePath(), FileSplitter.FileMarker.Mark.END,
+							result.getLines()));
+		}
+		catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+	}
+
+	/**
+	 * Process lines; append (buffered) to the appropriate file.
 	 *
 	 * @return the flow.
 	 */
 	@Bean
-	public IntegrationFlow lines(FileWritingMessageHandler fileOut) {
+	public IntegrationFlow lines(CachingFileWritingMessageHandler fileOut) {
 		return f -> f.handle(fileOut);
 	}
 
+	/**
+	 * Append lines to a file for each account, with a limited number of open files and
+	 * bounded buffering; see {@link CachingFileWritingMessageHandler}.
+	 *
+	 * @return the handler.
+	 */
 	@Bean
-	public FileWritingMessageHandler fileOut() {
-		return Files.outboundAdapter("'/tmp/out'")
-				.appendNewLine(true)
-				.fileNameExpression("payload.substring(1, 4) + '.txt'")
-				.get();
+	public CachingFileWritingMessageHandler fileOut() {
+		CachingFileWritingMessageHandler handler = new CachingFileWritingMessageHandler(new File("/tmp/out"),
+				m -> ((String) m.getPayload()).substring(1, 4) + ".txt");
+		handler.setAppendNewLine(true);
+		handler.setMaxOpenFiles(this.outMaxOpenFiles);
+		handler.setBufferSize(this.outBufferSize);
+		handler.setMaxBufferedBytes(this.outMaxBufferedBytes);
+		handler.setFlushInterval(this.outFlushInterval);
+		return handler;
 	}
 
 	/**
-	 * Process file markers; ignore START, when END, flush the files, ftp them and
-	 * send an email.
+	 * Process file markers; ignore START, when END, flush the files, ftp them (in
+	 * parallel) and send an email.
 	 *
 	 * @return the flow.
 	 */
@@ -109,27 +224,13 @@ public class Application {
 				e -> e.id("markerFilter"))
 				.publishSubscribeChannel(s -> s
 
-						// first trigger file flushes
+						// first trigger file flushes (and fsync)
 						.subscribe(sf -> sf.transform("'/tmp/out/.*\\.txt'", e -> e.id("toTriggerPattern"))
 								.trigger("fileOut", e -> e.id("flusher")))
 
-						// send the first file
-						.subscribe(sf -> sf.<FileSplitter.FileMarker, File>transform(p -> new File("/tmp/out/002.txt"))
-								.enrichHeaders(h -> h.header(FileHeaders.FILENAME, "002.txt", true))
-								.handle(Ftp.outboundAdapter(ftp1()).remoteDirectory("foo"), e -> e.id("ftp002")))
-
-						// send the second file
-						.subscribe(sf -> sf.<FileSplitter.FileMarker, File>transform(p -> new File("/tmp/out/006.txt"))
-								.enrichHeaders(h -> h.header(FileHeaders.FILENAME, "006.txt", true))
-								.handle(Ftp.outboundAdapter(ftp2()).remoteDirectory("foo"), e -> e.id("ftp006")))
-
-						// send the third file
-						.subscribe(sf -> sf.<FileSplitter.FileMarker, File>transform(p -> new File("/tmp/out/009.txt"))
-								.enrichHeaders(h -> h.header(FileHeaders.FILENAME, "009.txt", true))
-								.handle(Ftp.outboundAdapter(ftp3()).remoteDirectory("foo"), e -> e.id("ftp009")))
-
-						// send an email
-						.subscribe(sf -> sf.transform(FileSplitter.FileMarker::getFilePath)
+						// send the files, in parallel, then an email
+						.subscribe(sf -> sf.handle(parallelUploader(), e -> e.id("parallelUpload"))
+								.transform(FileSplitter.FileMarker::getFilePath)
 								.enrichHeaders(Mail.headers()
 										.subject("File successfully split and transferred")
 										.from("foo@bar")
@@ -138,12 +239,59 @@ public class Application {
 								.channel("toMail.input")));
 	}
 
+	/**
+	 * Send the three files concurrently, retrying each transfer independently.
+	 *
+	 * @return the uploader.
+	 */
+	@Bean
+	public ParallelUploader parallelUploader() {
+		ParallelUploader uploader = new ParallelUploader(uploadExecutor());
+		RetryTemplate retryTemplate = new RetryTemplate();
+		retryTemplate.setRetryPolicy(new SimpleRetryPolicy(this.uploadMaxAttempts));
+		FixedBackOffPolicy backOffPolicy = new FixedBackOffPolicy();
+		backOffPolicy.setBackOffPeriod(this.uploadBackOff);
+		retryTemplate.setBackOffPolicy(backOffPolicy);
+		uploader.setRetryTemplate(retryTemplate);
+		uploader.setTimeout(this.uploadTimeout);
+		uploader.addDestination(new File("/tmp/out/002.txt"), ftp002());
+		uploader.addDestination(new File("/tmp/out/006.txt"), ftp006());
+		uploader.addDestination(new File("/tmp/out/009.txt"), ftp009());
+		return uploader;
+	}
+
+	@Bean
+	public ThreadPoolTaskExecutor uploadExecutor() {
+		ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+		executor.setCorePoolSize(this.uploadThreads);
+		executor.setMaxPoolSize(this.uploadThreads);
+		executor.setQueueCapacity(100);
+		executor.setThreadNamePrefix("upload-");
+		return executor;
+	}
+
+	@Bean
+	public MessageHandler ftp002() {
+		return Ftp.outboundAdapter(ftp1()).remoteDirectory("foo").get();
+	}
+
+	@Bean
+	public MessageHandler ftp006() {
+		return Ftp.outboundAdapter(ftp2()).remoteDirectory("foo").get();
+	}
+
+	@Bean
+	public MessageHandler ftp009() {
+		return Ftp.outboundAdapter(ftp3()).remoteDirectory("foo").get();
+	}
+
 	@Bean
 	public SessionFactory<FTPFile> ftp1() {
 		DefaultFtpSessionFactory ftp = new DefaultFtpSessionFactory();
 		ftp.setHost("host3");
 		ftp.setUsername("user");
 		ftp.setPassword("ftp");
+		setTimeouts(ftp);
 		return ftp;
 	}
 
@@ -153,6 +301,7 @@ public class Application {
 		ftp.setHost("host3");
 		ftp.setUsername("user");
 		ftp.setPassword("ftp");
+		setTimeouts(ftp);
 		return ftp;
 	}
 
@@ -162,9 +311,20 @@ public class Application {
 		ftp.setHost("host3");
 		ftp.setUsername("user");
 		ftp.setPassword("ftp");
+		setTimeouts(ftp);
 		return ftp;
 	}
 
+	/*
+	 * Without timeouts, a connection to an unresponsive server blocks an upload thread
+	 * indefinitely.
+	 */
+	private void setTimeouts(DefaultFtpSessionFactory ftp) {
+		ftp.setConnectTimeout(this.ftpConnectTimeout);
+		ftp.setDefaultTimeout(this.ftpReadTimeout);
+		ftp.setDataTimeout(this.ftpReadTimeout);
+	}
+
 	/**
 	 * Error flow - email failure
 	 *
@@ -196,7 +356,9 @@ public class Application {
 	}
 
 	/**
-	 * Rename the input file after success/failure.
+	 * Rename the input file after success/failure; after success (with
+	 * {@code file-split.mapped=true}), remove the split checkpoint, which is kept until
+	 * the files have been sent.
 	 *
 	 * @return the flow.
 	 */
@@ -215,6 +377,9 @@ public class Application {
 				originalFile.renameTo(
 						new File(originalFile.getAbsolutePath() + headers.get(EMAIL_SUCCESS_SUFFIX) + ".email.failed"));
 			}
+			if (this.mapped && ".success".equals(headers.get(EMAIL_SUCCESS_SUFFIX))) {
+				mappedFileSplitter().removeCheckpoint(originalFile);
+			}
 			return null;
 		};
 	}
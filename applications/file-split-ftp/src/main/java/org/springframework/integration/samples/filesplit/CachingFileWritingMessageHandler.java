@@ -0,0 +1,558 @@
+/*
+ * Copyright 2002-2026 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.integration.samples.filesplit;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ScheduledFuture;
+import java.util.regex.Pattern;
+
+import org.springframework.context.Lifecycle;
+import org.springframework.integration.file.FileNameGenerator;
+import org.springframework.integration.handler.AbstractMessageHandler;
+import org.springframework.integration.handler.MessageTriggerAction;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageHandlingException;
+import org.springframework.messaging.MessagingException;
+import org.springframework.util.Assert;
+
+/**
+ * Appends each message payload ({@code String} or {@code byte[]}) to a file in a
+ * directory, like a {@code FileWritingMessageHandler} in {@code APPEND_NO_FLUSH} mode,
+ * but with bounded resources when there are many files.
+ * <ul>
+ * <li>Each file has an in-memory buffer, flushed when it reaches {@code bufferSize},
+ * when the total of all buffers reaches {@code maxBufferedBytes} (all are flushed), or
+ * when its oldest data is older than {@code flushInterval}.</li>
+ * <li>Files are only open while they are written to; the most recently used
+ * {@code maxOpenFiles} are kept open and the least recently used is closed when
+ * another is needed.</li>
+ * <li>{@link #trigger(Message)} flushes, forces to disk and closes the files whose
+ * paths match the payload regex; for example, when the end of the input file has
+ * been reached. This includes files written since the last force that have since been
+ * closed, which are reopened to be forced.</li>
+ * </ul>
+ *
+ * @since 5.1
+ *
+ */
+public class CachingFileWritingMessageHandler extends AbstractMessageHandler
+		implements MessageTriggerAction, Lifecycle {
+
+	private static final byte[] NEW_LINE = System.lineSeparator().getBytes(StandardCharsets.US_ASCII);
+
+	private static final int INITIAL_BUFFER_SIZE = 256;
+
+	private final Object monitor = new Object();
+
+	private final File directory;
+
+	private final FileNameGenerator fileNameGenerator;
+
+	private final Map<String, Writer> writers = new HashMap<>();
+
+	private final Map<String, Writer> openWriters = new LinkedHashMap<String, Writer>(16, 0.75f, true) {
+
+		@Override
+		protected boolean removeEldestEntry(Map.Entry<String, Writer> eldest) {
+			if (size() > CachingFileWritingMessageHandler.this.maxOpenFiles) {
+				CachingFileWritingMessageHandler.this.evictions++;
+				eldest.getValue().close();
+				return true;
+			}
+			return false;
+		}
+
+	};
+
+	private final Set<String> unforced = new HashSet<>();
+
+	private Charset charset = StandardCharsets.UTF_8;
+
+	private boolean appendNewLine;
+
+	private int maxOpenFiles = 100;
+
+	private int bufferSize = 8192;
+
+	private long maxBufferedBytes = 16 * 1024 * 1024;
+
+	private long flushInterval = 5000;
+
+	private volatile ScheduledFuture<?> flushTask;
+
+	private volatile boolean running;
+
+	private long bytesBuffered;
+
+	private long bytesWritten;
+
+	private long flushes;
+
+	private long flushNanos;
+
+	private long maxFlushNanos;
+
+	private long opens;
+
+	private long evictions;
+
+	private long forces;
+
+	/**
+	 * @param directory the directory.
+	 * @param fileNameGenerator generates the file name for each message.
+	 */
+	public CachingFileWritingMessageHandler(File directory, FileNameGenerator fileNameGenerator) {
+		this.directory = directory;
+		this.fileNameGenerator = fileNameGenerator;
+	}
+
+	/**
+	 * @param charset the charset for {@code String} payloads; default UTF-8.
+	 */
+	public void setCharset(Charset charset) {
+		this.charset = charset;
+	}
+
+	/**
+	 * @param appendNewLine true to add a line separator after each payload.
+	 */
+	public void setAppendNewLine(boolean appendNewLine) {
+		this.appendNewLine = appendNewLine;
+	}
+
+	/**
+	 * @param maxOpenFiles the maximum number of open files; default 100.
+	 */
+	public void setMaxOpenFiles(int maxOpenFiles) {
+		Assert.isTrue(maxOpenFiles > 0, "'maxOpenFiles' must be greater than 0");
+		this.maxOpenFiles = maxOpenFiles;
+	}
+
+	/**
+	 * @param bufferSize the buffer size at which a file is flushed; default 8192.
+	 */
+	public void setBufferSize(int bufferSize) {
+		this.bufferSize = bufferSize;
+	}
+
+	/**
+	 * @param maxBufferedBytes the total buffered bytes (all files) at which all the
+	 * files are flushed; default 16MiB.
+	 */
+	public void setMaxBufferedBytes(long maxBufferedBytes) {
+		this.maxBufferedBytes = maxBufferedBytes;
+	}
+
+	/**
+	 * @param flushInterval the maximum time (ms) data is buffered; files are checked at
+	 * this interval, so data may be buffered for up to twice as long; default 5000;
+	 * 0 for no time-based flush.
+	 */
+	public void setFlushInterval(long flushInterval) {
+		this.flushInterval = flushInterval;
+	}
+
+	@Override
+	public String getComponentType() {
+		return "file:caching-outbound-channel-adapter";
+	}
+
+	@Override
+	public void start() {
+		if (!this.running) {
+			if (this.flushInterval > 0) {
+				this.flushTask = getTaskScheduler().scheduleAtFixedRate(this::flushStale, this.flushInterval);
+			}
+			this.running = true;
+		}
+	}
+
+	@Override
+	public void stop() {
+		this.running = false;
+		ScheduledFuture<?> task = this.flushTask;
+		if (task != null) {
+			task.cancel(false);
+			this.flushTask = null;
+		}
+		synchronized (this.monitor) {
+			for (Writer writer : new ArrayList<>(this.writers.values())) {
+				try {
+					flush(writer);
+				}
+				catch (IOException e) {
+					logger.error("Failed to flush " + writer.file, e);
+				}
+				this.openWriters.remove(writer.name);
+				writer.close();
+			}
+		}
+	}
+
+	@Override
+	public boolean isRunning() {
+		return this.running;
+	}
+
+	@Override
+	protected void handleMessageInternal(Message<?> message) {
+		Object payload = message.getPayload();
+		byte[] bytes;
+		if (payload instanceof String) {
+			bytes = ((String) payload).getBytes(this.charset);
+		}
+		else if (payload instanceof byte[]) {
+			bytes = (byte[]) payload;
+		}
+		else {
+			throw new MessageHandlingException(message, "Unsupported payload type: " + payload.getClass());
+		}
+		String name = this.fileNameGenerator.generateFileName(message);
+		synchronized (this.monitor) {
+			Writer writer = this.writers.computeIfAbsent(name, Writer::new);
+			try {
+				writer.append(bytes);
+				if (this.appendNewLine) {
+					writer.append(NEW_LINE);
+				}
+				if (this.bytesBuffered >= this.maxBufferedBytes) {
+					flushAll();
+				}
+			}
+			catch (IOException e) {
+				throw new MessageHandlingException(message, "Failed to write to " + writer.file, e);
+			}
+		}
+	}
+
+	/**
+	 * Flush, force to disk and close the files with (absolute) paths that match the
+	 * payload, a regular expression.
+	 * @param message the message.
+	 */
+	@Override
+	public void trigger(Message<?> message) {
+		Pattern pattern = Pattern.compile((String) message.getPayload());
+		synchronized (this.monitor) {
+			for (Writer writer : new ArrayList<>(this.writers.values())) {
+				if (pattern.matcher(writer.file.getAbsolutePath()).matches()) {
+					try {
+						flush(writer);
+					}
+					catch (IOException e) {
+						throw new MessagingException(message, "Failed to flush " + writer.file, e);
+					}
+				}
+			}
+			for (Iterator<String> iterator = this.unforced.iterator(); iterator.hasNext(); ) {
+				String name = iterator.next();
+				File file = new File(this.directory, name);
+				if (pattern.matcher(file.getAbsolutePath()).matches()) {
+					Writer writer = this.writers.get(name);
+					try {
+						if (writer != null && writer.channel != null) {
+							writer.channel.force(true);
+						}
+						else {
+							try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.WRITE)) {
+								channel.force(true);
+							}
+						}
+						this.forces++;
+						iterator.remove();
+					}
+					catch (IOException e) {
+						throw new MessagingException(message, "Failed to force " + file, e);
+					}
+					finally {
+						if (writer != null) {
+							this.openWriters.remove(name);
+							writer.close();
+						}
+					}
+				}
+			}
+		}
+		if (logger.isDebugEnabled()) {
+			logger.debug("Flushed " + message.getPayload() + ": " + getStatistics());
+		}
+	}
+
+	/**
+	 * @return the bytes currently buffered (all files).
+	 */
+	public long getBytesBuffered() {
+		synchronized (this.monitor) {
+			return this.bytesBuffered;
+		}
+	}
+
+	/**
+	 * @return the number of open files.
+	 */
+	public int getOpenFiles() {
+		synchronized (this.monitor) {
+			return this.openWriters.size();
+		}
+	}
+
+	public Statistics getStatistics() {
+		synchronized (this.monitor) {
+			return new Statistics(this.bytesBuffered, this.bytesWritten, this.openWriters.size(), this.flushes,
+					this.flushNanos, this.maxFlushNanos, this.opens, this.evictions, this.forces);
+		}
+	}
+
+	private void flushAll() throws IOException {
+		for (Writer writer : new ArrayList<>(this.writers.values())) {
+			flush(writer);
+		}
+	}
+
+	private void flushStale() {
+		long staleBefore = System.currentTimeMillis() - this.flushInterval;
+		synchronized (this.monitor) {
+			for (Writer writer : new ArrayList<>(this.writers.values())) {
+				if (writer.count > 0 && writer.bufferedSince < staleBefore) {
+					try {
+						flush(writer);
+					}
+					catch (IOException e) {
+						logger.error("Failed to flush " + writer.file, e);
+					}
+				}
+			}
+		}
+	}
+
+	private void flush(Writer writer) throws IOException {
+		if (writer.count > 0) {
+			long start = System.nanoTime();
+			writer.write(writer.buffer, 0, writer.count);
+			long nanos = System.nanoTime() - start;
+			this.bytesBuffered -= writer.count;
+			writer.count = 0;
+			this.flushes++;
+			this.flushNanos += nanos;
+			this.maxFlushNanos = Math.max(this.maxFlushNanos, nanos);
+		}
+		if (writer.channel == null) {
+			// no data and closed; recreated when needed
+			this.writers.remove(writer.name);
+		}
+	}
+
+	/*
+	 * Guarded by the monitor.
+	 */
+	private final class Writer {
+
+		private final String name;
+
+		private final File file;
+
+		private byte[] buffer = new byte[0];
+
+		private int count;
+
+		private long bufferedSince;
+
+		private FileChannel channel;
+
+		Writer(String name) {
+			this.name = name;
+			this.file = new File(CachingFileWritingMessageHandler.this.directory, name);
+		}
+
+		void append(byte[] bytes) throws IOException {
+			int bufferSize = CachingFileWritingMessageHandler.this.bufferSize;
+			if (this.count > 0 && this.count + bytes.length > bufferSize) {
+				flush(this);
+			}
+			if (bytes.length > bufferSize) {
+				write(bytes, 0, bytes.length);
+				return;
+			}
+			if (this.count + bytes.length > this.buffer.length) {
+				int newLength = Math.max(this.buffer.length * 2, INITIAL_BUFFER_SIZE);
+				while (newLength < this.count + bytes.length) {
+					newLength *= 2;
+				}
+				byte[] newBuffer = new byte[Math.min(newLength, bufferSize)];
+				System.arraycopy(this.buffer, 0, newBuffer, 0, this.count);
+				this.buffer = newBuffer;
+			}
+			if (this.count == 0) {
+				this.bufferedSince = System.currentTimeMillis();
+			}
+			System.arraycopy(bytes, 0, this.buffer, this.count, bytes.length);
+			this.count += bytes.length;
+			CachingFileWritingMessageHandler.this.bytesBuffered += bytes.length;
+		}
+
+		void write(byte[] bytes, int offset, int length) throws IOException {
+			if (this.channel == null) {
+				File dir = CachingFileWritingMessageHandler.this.directory;
+				if (!dir.isDirectory() && !dir.mkdirs()) {
+					throw new IOException("Cannot create " + dir);
+				}
+				this.channel = FileChannel.open(this.file.toPath(), StandardOpenOption.CREATE,
+						StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+				CachingFileWritingMessageHandler.this.opens++;
+				CachingFileWritingMessageHandler.this.openWriters.put(this.name, this);
+			}
+			else {
+				CachingFileWritingMessageHandler.this.openWriters.get(this.name); // LRU access
+			}
+			ByteBuffer byteBuffer = ByteBuffer.wrap(bytes, offset, length);
+			while (byteBuffer.hasRemaining()) {
+				this.channel.write(byteBuffer);
+			}
+			CachingFileWritingMessageHandler.this.bytesWritten += length;
+			CachingFileWritingMessageHandler.this.unforced.add(this.name);
+		}
+
+		void close() {
+			if (this.channel != null) {
+				try {
+					this.channel.close();
+				}
+				catch (IOException e) {
+					CachingFileWritingMessageHandler.this.logger.error("Failed to close " + this.file, e);
+				}
+				this.channel = null;
+			}
+			if (this.count == 0) {
+				CachingFileWritingMessageHandler.this.writers.remove(this.name);
+			}
+		}
+
+	}
+
+	/**
+	 * A snapshot of the writer statistics.
+	 */
+	public static class Statistics {
+
+		private final long bytesBuffered;
+
+		private final long bytesWritten;
+
+		private final int openFiles;
+
+		private final long flushes;
+
+		private final long flushNanos;
+
+		private final long maxFlushNanos;
+
+		private final long opens;
+
+		private final long evictions;
+
+		private final long forces;
+
+		Statistics(long bytesBuffered, long bytesWritten, int openFiles, long flushes, long flushNanos,
+				long maxFlushNanos, long opens, long evictions, long forces) {
+			this.bytesBuffered = bytesBuffered;
+			this.bytesWritten = bytesWritten;
+			this.openFiles = openFiles;
+			this.flushes = flushes;
+			this.flushNanos = flushNanos;
+			this.maxFlushNanos = maxFlushNanos;
+			this.opens = opens;
+			this.evictions = evictions;
+			this.forces = forces;
+		}
+
+		public long getBytesBuffered() {
+			return this.bytesBuffered;
+		}
+
+		public long getBytesWritten() {
+			return this.bytesWritten;
+		}
+
+		public int getOpenFiles() {
+			return this.openFiles;
+		}
+
+		public long getFlushes() {
+			return this.flushes;
+		}
+
+		/**
+		 * @return the mean flush latency in nanoseconds.
+		 */
+		public double getMeanFlushNanos() {
+			return this.flushes == 0 ? 0 : (double) this.flushNanos / this.flushes;
+		}
+
+		/**
+		 * @return the maximum flush latency in nanoseconds.
+		 */
+		public long getMaxFlushNanos() {
+			return this.maxFlushNanos;
+		}
+
+		/**
+		 * @return the number of times a file was opened.
+		 */
+		public long getOpens() {
+			return this.opens;
+		}
+
+		/**
+		 * @return the number of files closed to stay within the maximum open files.
+		 */
+		public long getEvictions() {
+			return this.evictions;
+		}
+
+		/**
+		 * @return the number of files forced to disk.
+		 */
+		public long getForces() {
+			return this.forces;
+		}
+
+		@Override
+		public String toString() {
+			return String.format("[bytesBuffered=%d, bytesWritten=%d, openFiles=%d, flushes=%d, "
+					+ "meanFlush=%.3fms, maxFlush=%.3fms, opens=%d, evictions=%d, forces=%d]", this.bytesBuffered,
+					this.bytesWritten, this.openFiles, this.flushes, getMeanFlushNanos() / 1e6,
+					this.maxFlushNanos / 1e6, this.opens, this.evictions, this.forces);
+		}
+
+	}
+
+}
@@ -0,0 +1,658 @@
+/*
+ * Copyright 2002-2026 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.integration.samples.filesplit;
+
+import java.io.File;
+import java.io.Flushable;
+import java.io.IOException;
+import java.net.URLDecoder;
+import java.net.URLEncoder;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardOpenOption;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import org.springframework.integration.metadata.MetadataStore;
+
+/**
+ * Splits a file into one file per key (a fixed range of bytes in each line), like the
+ * {@code FileSplitter} and {@code FileWritingMessageHandler} in the {@code lines} flow,
+ * without a message (or a {@code String}) per line. The input is memory-mapped in
+ * windows of {@link #setMapSize(int) mapSize} bytes and scanned for {@code '\n'}; each
+ * line is copied, unchanged, to the buffer of the {@link FileChannel} for its key. At
+ * most {@link #setMaxOpenFiles(int) maxOpenFiles} per-key files (and buffers) are open;
+ * the least recently used is flushed and closed when another is needed.
+ * <p>
+ * Lines are appended to {@code <key>.txt} in the output directory; a final line with
+ * no line terminator has {@code '\n'} appended.
+ * <p>
+ * With a {@link #setMetadataStore(MetadataStore) metadata store}, the split is
+ * checkpointed every {@link #setCheckpointInterval(long) checkpointInterval} lines and
+ * when it completes: the per-key files are flushed and forced to disk, then the input
+ * offset, the line count, and the length of each per-key file are stored. The length of
+ * a per-key file opened between checkpoints is appended to a journal
+ * ({@code .<input file name>.split} in the output directory), which is forced before
+ * anything is written to that file. If a split does not complete, the next split of the
+ * same file truncates the per-key files to their checkpointed (or journaled) lengths and
+ * resumes from the checkpointed offset, so each line is written exactly once. If the
+ * input file has changed since the checkpoint, the checkpoint is ignored and the split
+ * starts from the beginning. The checkpoint of a completed split is kept, so splitting the
+ * file again writes nothing, until it is {@link #removeCheckpoint(File) removed}; for
+ * example, when the per-key files have been sent.
+ *
+ * @since 5.1
+ *
+ */
+public class MappedFileSplitter {
+
+	private static final Pattern JOURNAL_RECORD = Pattern.compile("^([^=\\n]+)=(\\d+)\\n", Pattern.MULTILINE);
+
+	private final File outputDirectory;
+
+	private int keyOffset = 1;
+
+	private int keyLength = 3;
+
+	private int mapSize = 64 * 1024 * 1024;
+
+	private int bufferSize = 64 * 1024;
+
+	private int maxOpenFiles = 100;
+
+	private MetadataStore metadataStore;
+
+	private long checkpointInterval = 1_000_000;
+
+	/**
+	 * @param outputDirectory the directory for the per-key files.
+	 */
+	public MappedFileSplitter(File outputDirectory) {
+		this.outputDirectory = outputDirectory;
+	}
+
+	/**
+	 * @param keyOffset the offset of the key in each line; default 1.
+	 * @param keyLength the length of the key (1-7 bytes); default 3.
+	 */
+	public void setKey(int keyOffset, int keyLength) {
+		if (keyOffset < 0 || keyLength < 1 || keyLength > 7) {
+			throw new IllegalArgumentException("Invalid key offset/length: " + keyOffset + "/" + keyLength);
+		}
+		this.keyOffset = keyOffset;
+		this.keyLength = keyLength;
+	}
+
+	/**
+	 * @param mapSize the size of each mapped window of the input; also the maximum line
+	 * length; default 64MiB.
+	 */
+	public void setMapSize(int mapSize) {
+		this.mapSize = mapSize;
+	}
+
+	/**
+	 * @param bufferSize the write buffer size for each key; default 64KiB.
+	 */
+	public void setBufferSize(int bufferSize) {
+		this.bufferSize = bufferSize;
+	}
+
+	/**
+	 * @param maxOpenFiles the maximum number of open per-key files (each with a write
+	 * buffer); the least recently used is closed when another is needed; default 100.
+	 */
+	public void setMaxOpenFiles(int maxOpenFiles) {
+		if (maxOpenFiles < 1) {
+			throw new IllegalArgumentException("'maxOpenFiles' must be greater than 0");
+		}
+		this.maxOpenFiles = maxOpenFiles;
+	}
+
+	/**
+	 * @param metadataStore the store for checkpoints; if it is {@link Flushable}, it is
+	 * flushed after each checkpoint.
+	 */
+	public void setMetadataStore(MetadataStore metadataStore) {
+		this.metadataStore = metadataStore;
+	}
+
+	/**
+	 * @param checkpointInterval the number of lines between checkpoints; default 1000000;
+	 * 0 to only checkpoint when the split completes (a split that does not complete then
+	 * restarts from the beginning).
+	 */
+	public void setCheckpointInterval(long checkpointInterval) {
+		this.checkpointInterval = checkpointInterval;
+	}
+
+	/**
+	 * Split the file; all the per-key files are written and closed when this method
+	 * returns.
+	 * @param input the file.
+	 * @return the statistics for the split.
+	 * @throws IOException if an I/O error occurs.
+	 * @throws IllegalStateException if a line is too short to contain the key or longer
+	 * than the map size.
+	 */
+	public SplitResult split(File input) throws IOException {
+		long start = System.nanoTime();
+		if (!this.outputDirectory.isDirectory() && !this.outputDirectory.mkdirs()) {
+			throw new IOException("Cannot create " + this.outputDirectory);
+		}
+		Checkpoint checkpoint = this.metadataStore == null ? null : restore(input);
+		long startOffset = checkpoint == null ? 0 : checkpoint.offset;
+		long startLine = checkpoint == null ? 0 : checkpoint.lines;
+		Buckets buckets = new Buckets(input);
+		long lines = startLine;
+		long length;
+		try (FileChannel in = FileChannel.open(input.toPath(), StandardOpenOption.READ)) {
+			length = in.size();
+			long position = startOffset;
+			while (position < length) {
+				long windowSize = Math.min(this.mapSize, length - position);
+				boolean lastWindow = position + windowSize == length;
+				MappedByteBuffer window = in.map(FileChannel.MapMode.READ_ONLY, position, windowSize);
+				int limit = window.limit();
+				int lineStart = 0;
+				for (int i = 0; i < limit; i++) {
+					if (window.get(i) == '\n') {
+						lines++;
+						buckets.add(window, lineStart, i + 1, lines, false);
+						lineStart = i + 1;
+						if (this.metadataStore != null && this.checkpointInterval > 0
+								&& lines % this.checkpointInterval == 0) {
+							buckets.checkpoint(position + lineStart, lines);
+						}
+					}
+				}
+				if (lineStart == 0 && !lastWindow) {
+					throw new IllegalStateException("Line " + (lines + 1) + " of " + input
+							+ " is longer than the map size " + this.mapSize);
+				}
+				if (lastWindow && lineStart < limit) {
+					lines++;
+					buckets.add(window, lineStart, limit, lines, true);
+					lineStart = limit;
+				}
+				// the next window starts with the first incomplete line
+				position += lineStart;
+			}
+			if (this.metadataStore != null) {
+				buckets.checkpoint(length, lines);
+			}
+		}
+		finally {
+			buckets.close();
+		}
+		return new SplitResult(startLine, lines, startOffset, length, System.nanoTime() - start);
+	}
+
+	/**
+	 * Remove the checkpoint (and journal) of a split; the next split of the file starts
+	 * from the beginning.
+	 * @param input the file.
+	 * @throws IOException if an I/O error occurs.
+	 */
+	public void removeCheckpoint(File input) throws IOException {
+		if (this.metadataStore != null) {
+			this.metadataStore.remove(checkpointKey(input));
+			flushMetadataStore();
+		}
+		Files.deleteIfExists(journalFile(input).toPath());
+	}
+
+	/*
+	 * If the input file is unchanged since the checkpoint (or there is no checkpoint),
+	 * truncate the per-key files to their checkpointed (or journaled) lengths; return the
+	 * checkpoint, if any.
+	 */
+	private Checkpoint restore(File input) throws IOException {
+		String value = this.metadataStore.get(checkpointKey(input));
+		Map<String, Long> checkpointed = new HashMap<>();
+		Checkpoint checkpoint = null;
+		if (value != null) {
+			String[] parts = value.split("\\|");
+			String[] position = parts[0].split(",");
+			if (Long.parseLong(position[0]) != input.length()
+					|| Long.parseLong(position[1]) != input.lastModified()) {
+				// a different file, with the same name; its journal is also stale
+				return null;
+			}
+			for (int i = 1; i < parts.length; i++) {
+				int separator = parts[i].lastIndexOf('=');
+				checkpointed.put(decode(parts[i].substring(0, separator)),
+						Long.parseLong(parts[i].substring(separator + 1)));
+			}
+			checkpoint = new Checkpoint(Long.parseLong(position[2]), Long.parseLong(position[3]));
+		}
+		File journal = journalFile(input);
+		if (journal.exists()) {
+			String records = new String(Files.readAllBytes(journal.toPath()), StandardCharsets.ISO_8859_1);
+			Matcher record = JOURNAL_RECORD.matcher(records);
+			// an incomplete (unforced) last record is for a file that was never written to
+			while (record.find()) {
+				String fileName = decode(record.group(1));
+				if (!checkpointed.containsKey(fileName)) {
+					truncate(input, fileName, Long.parseLong(record.group(2)), false);
+				}
+			}
+		}
+		for (Map.Entry<String, Long> entry : checkpointed.entrySet()) {
+			truncate(input, entry.getKey(), entry.getValue(), true);
+		}
+		return checkpoint;
+	}
+
+	private void truncate(File input, String fileName, long length, boolean checkpointed) throws IOException {
+		File file = new File(this.outputDirectory, fileName);
+		if (!checkpointed && !file.exists()) {
+			return;
+		}
+		try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.CREATE,
+				StandardOpenOption.WRITE)) {
+			if (channel.size() < length) {
+				if (checkpointed) {
+					throw new IllegalStateException("Cannot resume the split of " + input + "; " + file
+							+ " is shorter than its checkpointed length " + length);
+				}
+			}
+			else {
+				channel.truncate(length);
+			}
+		}
+	}
+
+	private void flushMetadataStore() throws IOException {
+		if (this.metadataStore instanceof Flushable) {
+			((Flushable) this.metadataStore).flush();
+		}
+	}
+
+	private File journalFile(File input) {
+		return new File(this.outputDirectory, "." + input.getName() + ".split");
+	}
+
+	private static String checkpointKey(File input) {
+		return "split:" + input.getAbsolutePath();
+	}
+
+	/*
+	 * File names are made from arbitrary key bytes, so they are encoded in checkpoints
+	 * and journal records, which use '|', ',' and '='.
+	 */
+	private static String encode(String fileName) throws IOException {
+		return URLEncoder.encode(fileName, StandardCharsets.ISO_8859_1.name());
+	}
+
+	private static String decode(String encoded) throws IOException {
+		return URLDecoder.decode(encoded, StandardCharsets.ISO_8859_1.name());
+	}
+
+	private static final class Checkpoint {
+
+		private final long offset;
+
+		private final long lines;
+
+		Checkpoint(long offset, long lines) {
+			this.offset = offset;
+			this.lines = lines;
+		}
+
+	}
+
+	private final class Buckets {
+
+		private final Map<Long, Bucket> buckets = new HashMap<>();
+
+		private final Map<Long, Bucket> openBuckets = new LinkedHashMap<>(16, 0.75f, true);
+
+		private final File input;
+
+		private final FileChannel journal;
+
+		private boolean journalForced = true;
+
+		private long lastKey = -1;
+
+		private Bucket last;
+
+		Buckets(File input) throws IOException {
+			this.input = input;
+			this.journal = MappedFileSplitter.this.metadataStore == null ? null
+					: FileChannel.open(journalFile(input).toPath(), StandardOpenOption.CREATE,
+							StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+		}
+
+		void add(ByteBuffer window, int from, int to, long lineNumber, boolean appendNewLine) throws IOException {
+			int keyEnd = from + MappedFileSplitter.this.keyOffset + MappedFileSplitter.this.keyLength;
+			int lineEnd = appendNewLine ? to : to - 1;
+			if (lineEnd > from && window.get(lineEnd - 1) == '\r') {
+				lineEnd--;
+			}
+			if (keyEnd > lineEnd) {
+				throw new IllegalStateException("Line " + lineNumber + " is too short to contain the key");
+			}
+			long key = 0;
+			for (int i = keyEnd - MappedFileSplitter.this.keyLength; i < keyEnd; i++) {
+				key = key << 8 | (window.get(i) & 0xff);
+			}
+			Bucket bucket = this.last;
+			if (key != this.lastKey) {
+				bucket = this.openBuckets.get(key); // LRU access
+				if (bucket == null) {
+					bucket = this.buckets.get(key);
+					if (bucket == null) {
+						bucket = new Bucket(this, key, window, keyEnd - MappedFileSplitter.this.keyLength);
+						open(bucket);
+						this.buckets.put(key, bucket);
+						if (this.journal != null) {
+							journal(bucket);
+						}
+					}
+					else {
+						open(bucket);
+					}
+				}
+				this.lastKey = key;
+				this.last = bucket;
+			}
+			bucket.write(window, from, to);
+			if (appendNewLine) {
+				bucket.write('\n');
+			}
+		}
+
+		/*
+		 * Open the file, closing the least recently used one (and reusing its buffer) if
+		 * the maximum are open.
+		 */
+		private void open(Bucket bucket) throws IOException {
+			ByteBuffer buffer;
+			if (this.openBuckets.size() >= MappedFileSplitter.this.maxOpenFiles) {
+				Iterator<Bucket> eldest = this.openBuckets.values().iterator();
+				Bucket evicted = eldest.next();
+				eldest.remove();
+				buffer = evicted.close();
+			}
+			else {
+				buffer = ByteBuffer.allocateDirect(MappedFileSplitter.this.bufferSize);
+			}
+			bucket.open(buffer);
+			this.openBuckets.put(bucket.key, bucket);
+		}
+
+		void checkpoint(long offset, long lines) throws IOException {
+			StringBuilder value = new StringBuilder()
+					.append(this.input.length()).append(',')
+					.append(this.input.lastModified()).append(',')
+					.append(offset).append(',')
+					.append(lines);
+			for (Bucket bucket : this.openBuckets.values()) {
+				bucket.flush();
+			}
+			for (Bucket bucket : this.buckets.values()) {
+				bucket.force();
+				value.append('|').append(encode(bucket.fileName)).append('=').append(bucket.length);
+			}
+			MappedFileSplitter.this.metadataStore.put(checkpointKey(this.input), value.toString());
+			flushMetadataStore();
+			// all the files are in the checkpoint
+			this.journal.truncate(0);
+			this.journalForced = true;
+		}
+
+		/*
+		 * Record the new file's length before any lines are written to it; the record is
+		 * forced (with any others) when the file is first written to.
+		 */
+		private void journal(Bucket bucket) throws IOException {
+			ByteBuffer record = ByteBuffer.wrap((encode(bucket.fileName) + "=" + bucket.length + "\n")
+					.getBytes(StandardCharsets.ISO_8859_1));
+			while (record.hasRemaining()) {
+				this.journal.write(record);
+			}
+			this.journalForced = false;
+			bucket.journaled = false;
+		}
+
+		void forceJournal() throws IOException {
+			if (!this.journalForced) {
+				this.journal.force(false);
+				this.journalForced = true;
+			}
+		}
+
+		void close() throws IOException {
+			IOException exception = null;
+			if (this.journal != null) {
+				try {
+					this.journal.close();
+				}
+				catch (IOException e) {
+					exception = e;
+				}
+			}
+			for (Bucket bucket : this.openBuckets.values()) {
+				try {
+					bucket.close();
+				}
+				catch (IOException e) {
+					exception = e;
+				}
+			}
+			if (exception != null) {
+				throw exception;
+			}
+		}
+
+	}
+
+	private final class Bucket {
+
+		private final Buckets buckets;
+
+		private final long key;
+
+		private final String fileName;
+
+		private final File file;
+
+		private FileChannel channel;
+
+		private ByteBuffer buffer;
+
+		private long length = -1;
+
+		private boolean forced = true;
+
+		private boolean journaled = true;
+
+		Bucket(Buckets buckets, long key, ByteBuffer window, int keyStart) {
+			this.buckets = buckets;
+			this.key = key;
+			byte[] keyBytes = new byte[MappedFileSplitter.this.keyLength];
+			for (int i = 0; i < keyBytes.length; i++) {
+				keyBytes[i] = window.get(keyStart + i);
+			}
+			this.fileName = new String(keyBytes, StandardCharsets.ISO_8859_1) + ".txt";
+			this.file = new File(MappedFileSplitter.this.outputDirectory, this.fileName);
+		}
+
+		void open(ByteBuffer buffer) throws IOException {
+			this.channel = FileChannel.open(this.file.toPath(), StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+					StandardOpenOption.APPEND);
+			if (this.length < 0) {
+				this.length = this.channel.size();
+			}
+			this.buffer = buffer;
+		}
+
+		void write(ByteBuffer window, int from, int to) throws IOException {
+			if (to - from > this.buffer.remaining()) {
+				flush();
+			}
+			ByteBuffer line = window.duplicate();
+			line.limit(to).position(from);
+			if (line.remaining() > this.buffer.capacity()) {
+				writeToChannel(line);
+			}
+			else {
+				this.buffer.put(line);
+			}
+		}
+
+		void write(char c) throws IOException {
+			if (!this.buffer.hasRemaining()) {
+				flush();
+			}
+			this.buffer.put((byte) c);
+		}
+
+		void flush() throws IOException {
+			this.buffer.flip();
+			writeToChannel(this.buffer);
+			this.buffer.clear();
+		}
+
+		private void writeToChannel(ByteBuffer bytes) throws IOException {
+			if (!this.journaled && bytes.hasRemaining()) {
+				this.buckets.forceJournal();
+				this.journaled = true;
+			}
+			this.length += bytes.remaining();
+			while (bytes.hasRemaining()) {
+				this.channel.write(bytes);
+			}
+			this.forced = false;
+		}
+
+		void force() throws IOException {
+			if (!this.forced) {
+				if (this.channel != null) {
+					this.channel.force(false);
+				}
+				else {
+					try (FileChannel closed = FileChannel.open(this.file.toPath(), StandardOpenOption.WRITE)) {
+						closed.force(false);
+					}
+				}
+				this.forced = true;
+			}
+		}
+
+		/*
+		 * Flush and close the file; return the buffer, for reuse.
+		 */
+		ByteBuffer close() throws IOException {
+			ByteBuffer released = this.buffer;
+			try {
+				flush();
+			}
+			finally {
+				this.channel.close();
+				this.channel = null;
+				this.buffer = null;
+			}
+			return released;
+		}
+
+	}
+
+	/**
+	 * The statistics for a split.
+	 */
+	public static class SplitResult {
+
+		private final long startLine;
+
+		private final long lines;
+
+		private final long startOffset;
+
+		private final long bytes;
+
+		private final long nanos;
+
+		SplitResult(long startLine, long lines, long startOffset, long bytes, long nanos) {
+			this.startLine = startLine;
+			this.lines = lines;
+			this.startOffset = startOffset;
+			this.bytes = bytes;
+			this.nanos = nanos;
+		}
+
+		/**
+		 * @return the number of lines in the file.
+		 */
+		public long getLines() {
+			return this.lines;
+		}
+
+		/**
+		 * @return the size of the file.
+		 */
+		public long getBytes() {
+			return this.bytes;
+		}
+
+		/**
+		 * @return the number of lines skipped because the split resumed from a
+		 * checkpoint.
+		 */
+		public long getStartLine() {
+			return this.startLine;
+		}
+
+		/**
+		 * @return the offset the split started from (0, unless it resumed from a
+		 * checkpoint).
+		 */
+		public long getStartOffset() {
+			return this.startOffset;
+		}
+
+		public long getNanos() {
+			return this.nanos;
+		}
+
+		/**
+		 * @return the lines split per second (excluding any lines skipped).
+		 */
+		public double getLinesPerSecond() {
+			return this.nanos == 0 ? 0 : (this.lines - this.startLine) / (this.nanos / 1e9);
+		}
+
+		@Override
+		public String toString() {
+			return String.format("%d lines (%d bytes) in %.3f ms: %.0f lines/sec, %.1f MiB/sec%s", this.lines,
+					this.bytes, this.nanos / 1e6, getLinesPerSecond(),
+					this.nanos == 0 ? 0 : (this.bytes - this.startOffset) / 1048576.0 / (this.nanos / 1e9),
+					this.startOffset == 0 ? "" : " (resumed from line " + this.startLine + ")");
+		}
+
+	}
+
+}
@@ -0,0 +1,185 @@
+/*
+ * Copyright 2002-2026 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.integration.samples.filesplit;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import org.springframework.integration.file.FileHeaders;
+import org.springframework.integration.handler.AbstractReplyProducingMessageHandler;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageHandler;
+import org.springframework.messaging.MessageHandlingException;
+import org.springframework.retry.backoff.FixedBackOffPolicy;
+import org.springframework.retry.support.RetryTemplate;
+
+/**
+ * Sends a file to each of several destinations (typically FTP outbound adapters)
+ * concurrently, on the supplied (bounded) executor, retrying each transfer
+ * independently. The reply (the request payload) is only produced when all the
+ * transfers have completed; if any failed (after retries), a
+ * {@link MessageHandlingException} for the first failed transfer is thrown instead, with
+ * any other failures {@link Throwable#addSuppressed(Throwable) suppressed}. A failed
+ * destination does not prevent the transfers to the others. A transfer that has not
+ * completed within the {@link #setTimeout(long) timeout} counts as failed, so a hung
+ * connection cannot block the flow forever.
+ * <p>
+ * The message sent to each destination has the request headers, the local file as
+ * the payload and its name in the {@link FileHeaders#FILENAME} header.
+ *
+ * @since 5.1
+ *
+ */
+public class ParallelUploader extends AbstractReplyProducingMessageHandler {
+
+	private final Map<File, MessageHandler> destinations = new LinkedHashMap<>();
+
+	private final Executor executor;
+
+	private RetryTemplate retryTemplate;
+
+	private long timeout = 600000;
+
+	/**
+	 * @param executor the executor for the transfers.
+	 */
+	public ParallelUploader(Executor executor) {
+		this.executor = executor;
+		this.retryTemplate = new RetryTemplate();
+		FixedBackOffPolicy backOffPolicy = new FixedBackOffPolicy();
+		backOffPolicy.setBackOffPeriod(1000);
+		this.retryTemplate.setBackOffPolicy(backOffPolicy);
+	}
+
+	/**
+	 * @param retryTemplate the retry template for each transfer; by default, a transfer
+	 * is attempted 3 times, one second apart.
+	 */
+	public void setRetryTemplate(RetryTemplate retryTemplate) {
+		this.retryTemplate = retryTemplate;
+	}
+
+	/**
+	 * @param timeout the milliseconds to wait for all the transfers, including their
+	 * retries, to complete; default 600000 (10 minutes).
+	 */
+	public void setTimeout(long timeout) {
+		this.timeout = timeout;
+	}
+
+	/**
+	 * Add a destination.
+	 * @param file the local file to send.
+	 * @param handler the handler that sends it.
+	 */
+	public void addDestination(File file, MessageHandler handler) {
+		this.destinations.put(file, handler);
+	}
+
+	@Override
+	public String getComponentType() {
+		return "parallel-uploader";
+	}
+
+	@Override
+	protected Object handleRequestMessage(Message<?> requestMessage) {
+		List<Message<File>> uploads = new ArrayList<>();
+		List<CompletableFuture<Throwable>> results = new ArrayList<>();
+		for (Map.Entry<File, MessageHandler> destination : this.destinations.entrySet()) {
+			Message<File> upload = getMessageBuilderFactory().withPayload(destination.getKey())
+					.copyHeaders(requestMessage.getHeaders())
+					.setHeader(FileHeaders.FILENAME, destination.getKey().getName())
+					.build();
+			uploads.add(upload);
+			results.add(transfer(upload, destination.getValue()));
+		}
+		MessageHandlingException failure = null;
+		long deadline = System.currentTimeMillis() + this.timeout;
+		for (int i = 0; i < results.size(); i++) {
+			Throwable cause = await(results.get(i), deadline, requestMessage);
+			if (cause != null) {
+				MessageHandlingException exception = new MessageHandlingException(uploads.get(i),
+						"Failed to transfer " + uploads.get(i).getPayload(), cause);
+				if (failure == null) {
+					failure = exception;
+				}
+				else {
+					failure.addSuppressed(exception);
+				}
+			}
+		}
+		if (failure != null) {
+			throw failure;
+		}
+		return requestMessage.getPayload();
+	}
+
+	private Throwable await(CompletableFuture<Throwable> result, long deadline, Message<?> requestMessage) {
+		try {
+			return result.get(Math.max(0, deadline - System.currentTimeMillis()), TimeUnit.MILLISECONDS);
+		}
+		catch (TimeoutException e) {
+			result.cancel(false);
+			return new TimeoutException("Transfer did not complete within " + this.timeout + "ms");
+		}
+		catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new MessageHandlingException(requestMessage, "Interrupted while waiting for the transfers", e);
+		}
+		catch (ExecutionException e) { // cannot happen; transfer() completes with the exception
+			return e.getCause();
+		}
+	}
+
+	/*
+	 * The future completes with the exception, if any, so one failure does not affect
+	 * waiting for the others.
+	 */
+	private CompletableFuture<Throwable> transfer(Message<File> upload, MessageHandler handler) {
+		try {
+			return CompletableFuture.runAsync(() -> {
+				long start = System.nanoTime();
+				this.retryTemplate.execute(context -> {
+					handler.handleMessage(upload);
+					return null;
+				});
+				if (logger.isDebugEnabled()) {
+					logger.debug("Transferred " + upload.getPayload() + " in "
+							+ (System.nanoTime() - start) / 1000000 + "ms");
+				}
+			}, this.executor)
+					.handle((result, throwable) -> throwable instanceof CompletionException
+							? throwable.getCause()
+							: throwable);
+		}
+		catch (RuntimeException e) { // rejected by the executor
+			CompletableFuture<Throwable> rejected = new CompletableFuture<>();
+			rejected.complete(e);
+			return rejected;
+		}
+	}
+
+}
@@ -22,6 +22,7 @@ import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.BDDMockito.given;
 import static org.mockito.BDDMockito.willThrow;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 
 import java.io.BufferedReader;
@@ -41,7 +42,9 @@ import org.junit.Test;
 import org.junit.runner.RunWith;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.ApplicationContext;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.context.annotation.Import;
@@ -69,6 +72,12 @@ public class ApplicationTests {
 	@Autowired
 	private SourcePollingChannelAdapter fileInboundChannelAdapter;
 
+	@Autowired
+	private ApplicationContext context;
+
+	@Value("${file-split.mapped:false}")
+	private boolean mapped;
+
 	@BeforeClass
 	public static void setup() {
 		// Configure the boot property to send email to the test email server.
@@ -115,6 +124,12 @@ public class ApplicationTests {
 		assertThat(message).contains(TestUtils.applySystemFileSeparator("/tmp/out/002.txt"));
 	}
 
+	@Test
+	public void testSplitCheckpointsOnlyWhenMapped() {
+		assertThat(this.context.containsBean("mappedFileSplitter")).isEqualTo(this.mapped);
+		assertThat(this.context.containsBean("splitCheckpoints")).isEqualTo(this.mapped);
+	}
+
 	/*
 	 * Create a test file containing one row per account.
 	 * Verify the three files appear, with the correct contents.
@@ -166,13 +181,14 @@ public class ApplicationTests {
 		}
 		assertThat(in.exists()).isTrue();
 		// verify FTP
-		verify(this.session).write(any(InputStream.class), eq("foo/002.txt.writing"));
+		// a failed transfer is retried, and does not prevent the others
+		verify(this.session, times(fail ? 3 : 1)).write(any(InputStream.class), eq("foo/002.txt.writing"));
+		verify(this.session).write(any(InputStream.class), eq("foo/006.txt.writing"));
+		verify(this.session).write(any(InputStream.class), eq("foo/009.txt.writing"));
+		verify(this.session).rename("foo/006.txt.writing", "foo/006.txt");
+		verify(this.session).rename("foo/009.txt.writing", "foo/009.txt");
 		if (!fail) {
-			verify(this.session).write(any(InputStream.class), eq("foo/006.txt.writing"));
-			verify(this.session).write(any(InputStream.class), eq("foo/009.txt.writing"));
 			verify(this.session).rename("foo/002.txt.writing", "foo/002.txt");
-			verify(this.session).rename("foo/006.txt.writing", "foo/006.txt");
-			verify(this.session).rename("foo/009.txt.writing", "foo/009.txt");
 		}
 
 		String message = verifyMail();
@@ -0,0 +1,112 @@
+/*
+ * Copyright 2002-2026 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.integration.samples.filesplit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+import org.apache.commons.io.FileUtils;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import org.springframework.beans.factory.support.DefaultListableBeanFactory;
+import org.springframework.integration.context.IntegrationContextUtils;
+import org.springframework.integration.support.MessageBuilder;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskScheduler;
+
+/**
+ * @since 5.1
+ *
+ */
+public class CachingFileWritingMessageHandlerTests {
+
+	@Rule
+	public final TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+	@Test
+	public void testManyFiles() throws IOException {
+		File dir = this.temporaryFolder.newFolder("out");
+		CachingFileWritingMessageHandler handler = new CachingFileWritingMessageHandler(dir,
+				m -> ((String) m.getPayload()).substring(1, 6) + ".txt");
+		handler.setAppendNewLine(true);
+		handler.setMaxOpenFiles(50);
+		handler.setMaxBufferedBytes(1024 * 1024);
+		handler.setFlushInterval(0);
+		handler.start();
+		Random random = new Random();
+		Map<String, StringBuilder> expected = new HashMap<>();
+		int lines = 100_000;
+		for (int i = 0; i < lines; i++) {
+			String key = String.format("%05d", random.nextInt(10_000));
+			String line = "*" + key + ",line" + i;
+			handler.handleMessage(MessageBuilder.withPayload(line).build());
+			expected.computeIfAbsent(key, k -> new StringBuilder()).append(line).append(System.lineSeparator());
+			assertThat(handler.getOpenFiles()).isLessThanOrEqualTo(50);
+		}
+		CachingFileWritingMessageHandler.Statistics statistics = handler.getStatistics();
+		assertThat(statistics.getBytesBuffered()).isGreaterThan(0);
+		assertThat(statistics.getFlushes()).isLessThan(lines / 2);
+		handler.trigger(MessageBuilder.withPayload(".*\\.txt").build());
+		statistics = handler.getStatistics();
+		assertThat(statistics.getBytesBuffered()).isEqualTo(0);
+		assertThat(statistics.getOpenFiles()).isEqualTo(0);
+		assertThat(statistics.getEvictions()).isGreaterThan(0);
+		assertThat(statistics.getForces()).isEqualTo(expected.size());
+		for (Map.Entry<String, StringBuilder> entry : expected.entrySet()) {
+			assertThat(FileUtils.readFileToString(new File(dir, entry.getKey() + ".txt"), StandardCharsets.UTF_8))
+					.isEqualTo(entry.getValue().toString());
+		}
+		handler.stop();
+	}
+
+	@Test
+	public void testTimeBasedFlush() throws Exception {
+		File dir = this.temporaryFolder.newFolder("out");
+		ThreadPoolTaskScheduler scheduler = new ThreadPoolTaskScheduler();
+		scheduler.initialize();
+		CachingFileWritingMessageHandler handler = new CachingFileWritingMessageHandler(dir, m -> "foo.txt");
+		DefaultListableBeanFactory beanFactory = new DefaultListableBeanFactory();
+		beanFactory.registerSingleton(IntegrationContextUtils.TASK_SCHEDULER_BEAN_NAME, scheduler);
+		handler.setBeanFactory(beanFactory);
+		handler.afterPropertiesSet();
+		handler.setFlushInterval(100);
+		handler.start();
+		try {
+			handler.handleMessage(MessageBuilder.withPayload("foo").build());
+			File file = new File(dir, "foo.txt");
+			assertThat(file.length()).isEqualTo(0);
+			int n = 0;
+			while (n++ < 100 && file.length() == 0) {
+				Thread.sleep(100);
+			}
+			assertThat(file.length()).isEqualTo(3);
+			assertThat(handler.getBytesBuffered()).isEqualTo(0);
+		}
+		finally {
+			handler.stop();
+			scheduler.destroy();
+		}
+	}
+
+}
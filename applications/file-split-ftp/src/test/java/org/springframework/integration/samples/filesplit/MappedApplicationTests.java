@@ -0,0 +1,35 @@
+/*
+ * Copyright 2002-2026 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.integration.samples.filesplit;
+
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.integration.test.context.SpringIntegrationTest;
+import org.springframework.test.annotation.DirtiesContext;
+
+/**
+ * Runs the {@link ApplicationTests} with the {@link MappedFileSplitter}.
+ *
+ * @since 5.1
+ *
+ */
+@SpringBootTest(classes = ApplicationTests.Config.class,
+		properties = { "spring.main.allow-bean-definition-overriding=true", "file-split.mapped=true" })
+@DirtiesContext(classMode = DirtiesContext.ClassMode.AFTER_EACH_TEST_METHOD)
+@SpringIntegrationTest(noAutoStartup = "fileInboundChannelAdapter")
+public class MappedApplicationTests extends ApplicationTests {
+
+}
@@ -0,0 +1,240 @@
+/*
+ * Copyright 2002-2026 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.integration.samples.filesplit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+import org.apache.commons.io.FileUtils;
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.junit.Assume;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import org.springframework.integration.metadata.PropertiesPersistingMetadataStore;
+
+/**
+ * @since 5.1
+ *
+ */
+public class MappedFileSplitterTests {
+
+	private static final Log logger = LogFactory.getLog(MappedFileSplitterTests.class);
+
+	@Rule
+	public final TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+	@Test
+	public void testSplit() throws IOException {
+		File in = this.temporaryFolder.newFile("in.txt");
+		FileUtils.writeStringToFile(in, "*002,foo,bar\n*006,baz,qux\r\n*002,fiz,buz\n*009,last", StandardCharsets.UTF_8);
+		File out = this.temporaryFolder.newFolder("out");
+		MappedFileSplitter splitter = new MappedFileSplitter(out);
+		// lines cross the mapped windows
+		splitter.setMapSize(20);
+		splitter.setBufferSize(16);
+		assertThat(splitter.split(in).getLines()).isEqualTo(4);
+		assertThat(out.list()).containsExactlyInAnyOrder("002.txt", "006.txt", "009.txt");
+		assertThat(FileUtils.readFileToString(new File(out, "002.txt"), StandardCharsets.UTF_8))
+				.isEqualTo("*002,foo,bar\n*002,fiz,buz\n");
+		assertThat(FileUtils.readFileToString(new File(out, "006.txt"), StandardCharsets.UTF_8))
+				.isEqualTo("*006,baz,qux\r\n");
+		assertThat(FileUtils.readFileToString(new File(out, "009.txt"), StandardCharsets.UTF_8))
+				.isEqualTo("*009,last\n");
+	}
+
+	@Test
+	public void testMoreKeysThanOpenFiles() throws IOException {
+		File in = this.temporaryFolder.newFile("in.txt");
+		Random random = new Random();
+		Map<String, StringBuilder> expected = new HashMap<>();
+		StringBuilder input = new StringBuilder();
+		for (int i = 0; i < 10_000; i++) {
+			String key = String.format("%03d", random.nextInt(1000));
+			String line = "*" + key + ",line" + i + "\n";
+			input.append(line);
+			expected.computeIfAbsent(key, k -> new StringBuilder()).append(line);
+		}
+		FileUtils.writeStringToFile(in, input.toString(), StandardCharsets.UTF_8);
+		File out = this.temporaryFolder.newFolder("out");
+		MappedFileSplitter splitter = new MappedFileSplitter(out);
+		splitter.setMaxOpenFiles(10);
+		splitter.setBufferSize(64);
+		assertThat(splitter.split(in).getLines()).isEqualTo(10_000);
+		for (Map.Entry<String, StringBuilder> entry : expected.entrySet()) {
+			assertThat(FileUtils.readFileToString(new File(out, entry.getKey() + ".txt"), StandardCharsets.UTF_8))
+					.isEqualTo(entry.getValue().toString());
+		}
+	}
+
+	@Test
+	public void testShortLine() throws IOException {
+		File in = this.temporaryFolder.newFile("in.txt");
+		FileUtils.writeStringToFile(in, "*002,foo,bar\n*0\n", StandardCharsets.UTF_8);
+		assertThatThrownBy(() -> new MappedFileSplitter(this.temporaryFolder.newFolder("out")).split(in))
+				.isInstanceOf(IllegalStateException.class)
+				.hasMessageContaining("Line 2");
+	}
+
+	@Test
+	public void testResumeFromCheckpoint() throws Exception {
+		File in = this.temporaryFolder.newFile("in.txt");
+		StringBuilder input = new StringBuilder();
+		StringBuilder expected002 = new StringBuilder("existing\n");
+		StringBuilder expected006 = new StringBuilder();
+		for (int i = 1; i <= 30; i++) {
+			String key = i == 26 ? "009" : i % 2 == 0 ? "002" : "006";
+			String line = "*" + key + ",line" + i + "\n";
+			input.append(line);
+			if (key.equals("002")) {
+				expected002.append(line);
+			}
+			else if (key.equals("006")) {
+				expected006.append(line);
+			}
+		}
+		FileUtils.writeStringToFile(in, input.toString(), StandardCharsets.UTF_8);
+		File out = this.temporaryFolder.newFolder("out");
+		FileUtils.writeStringToFile(new File(out, "002.txt"), "existing\n", StandardCharsets.UTF_8);
+		// 009.txt cannot be opened, so the split fails at line 26
+		File obstacle = new File(out, "009.txt");
+		assertThat(obstacle.mkdir()).isTrue();
+		File checkpoints = this.temporaryFolder.newFolder("checkpoints");
+
+		PropertiesPersistingMetadataStore store = metadataStore(checkpoints);
+		assertThatThrownBy(() -> splitter(out, store).split(in)).isInstanceOf(IOException.class);
+		// lines 21-25, after the checkpoint at line 20, were written
+		assertThat(FileUtils.readFileToString(new File(out, "002.txt"), StandardCharsets.UTF_8))
+				.contains("*002,line24\n");
+
+		assertThat(obstacle.delete()).isTrue();
+		// a new store, as if after a restart
+		PropertiesPersistingMetadataStore restartedStore = metadataStore(checkpoints);
+		MappedFileSplitter.SplitResult result = splitter(out, restartedStore).split(in);
+		assertThat(result.getStartLine()).isEqualTo(20);
+		assertThat(result.getLines()).isEqualTo(30);
+		assertThat(FileUtils.readFileToString(new File(out, "002.txt"), StandardCharsets.UTF_8))
+				.isEqualTo(expected002.toString());
+		assertThat(FileUtils.readFileToString(new File(out, "006.txt"), StandardCharsets.UTF_8))
+				.isEqualTo(expected006.toString());
+		assertThat(FileUtils.readFileToString(new File(out, "009.txt"), StandardCharsets.UTF_8))
+				.isEqualTo("*009,line26\n");
+		// the checkpoint is kept until it is removed; splitting again writes nothing
+		assertThat(restartedStore.get("split:" + in.getAbsolutePath())).isNotNull();
+		result = splitter(out, restartedStore).split(in);
+		assertThat(result.getStartLine()).isEqualTo(30);
+		assertThat(FileUtils.readFileToString(new File(out, "002.txt"), StandardCharsets.UTF_8))
+				.isEqualTo(expected002.toString());
+		splitter(out, restartedStore).removeCheckpoint(in);
+		assertThat(restartedStore.get("split:" + in.getAbsolutePath())).isNull();
+		assertThat(new File(out, ".in.txt.split")).doesNotExist();
+	}
+
+	@Test
+	public void testResumeWithSeparatorsInKeys() throws Exception {
+		File in = this.temporaryFolder.newFile("in.txt");
+		StringBuilder input = new StringBuilder();
+		StringBuilder expected = new StringBuilder();
+		for (int i = 1; i <= 12; i++) {
+			String key = i % 3 == 0 ? "a|b" : i % 3 == 1 ? "c=d" : "e,f";
+			String line = "*" + key + ",line" + i + "\n";
+			input.append(line);
+			if (key.equals("a|b")) {
+				expected.append(line);
+			}
+		}
+		input.append("*%7C%,last\n");
+		FileUtils.writeStringToFile(in, input.toString(), StandardCharsets.UTF_8);
+		File out = this.temporaryFolder.newFolder("out");
+		// the last file cannot be opened, after the a|b.txt, c=d.txt and e,f.txt files
+		// were journaled (not checkpointed)
+		File obstacle = new File(out, "%7C.txt");
+		assertThat(obstacle.mkdir()).isTrue();
+		File checkpoints = this.temporaryFolder.newFolder("checkpoints");
+		MappedFileSplitter splitter = splitter(out, metadataStore(checkpoints));
+		splitter.setCheckpointInterval(0);
+		splitter.setBufferSize(16);
+		assertThatThrownBy(() -> splitter.split(in)).isInstanceOf(IOException.class);
+
+		assertThat(obstacle.delete()).isTrue();
+		PropertiesPersistingMetadataStore restartedStore = metadataStore(checkpoints);
+		MappedFileSplitter restarted = splitter(out, restartedStore);
+		restarted.setCheckpointInterval(5);
+		assertThat(restarted.split(in).getStartLine()).isEqualTo(0);
+		assertThat(FileUtils.readFileToString(new File(out, "a|b.txt"), StandardCharsets.UTF_8))
+				.isEqualTo(expected.toString());
+		assertThat(FileUtils.readFileToString(new File(out, "%7C.txt"), StandardCharsets.UTF_8))
+				.isEqualTo("*%7C%,last\n");
+		// resume from the final checkpoint
+		assertThat(restarted.split(in).getStartLine()).isEqualTo(13);
+		assertThat(FileUtils.readFileToString(new File(out, "a|b.txt"), StandardCharsets.UTF_8))
+				.isEqualTo(expected.toString());
+	}
+
+	private static PropertiesPersistingMetadataStore metadataStore(File directory) throws Exception {
+		PropertiesPersistingMetadataStore store = new PropertiesPersistingMetadataStore();
+		store.setBaseDirectory(directory.getAbsolutePath());
+		store.afterPropertiesSet();
+		return store;
+	}
+
+	private static MappedFileSplitter splitter(File out, PropertiesPersistingMetadataStore store) {
+		MappedFileSplitter splitter = new MappedFileSplitter(out);
+		splitter.setMetadataStore(store);
+		splitter.setCheckpointInterval(10);
+		return splitter;
+	}
+
+	/**
+	 * Logs the lines/sec for a generated file of {@code file-split.benchmark.mb} MiB
+	 * (default 64); for example {@code -Dfile-split.benchmark.mb=1024}. Only runs with
+	 * {@code -Dbenchmark=true}.
+	 */
+	@Test
+	public void testThroughput() throws IOException {
+		Assume.assumeTrue(Boolean.getBoolean("benchmark"));
+		long size = Long.getLong("file-split.benchmark.mb", 64) * 1024 * 1024;
+		File in = this.temporaryFolder.newFile("big.txt");
+		Random random = new Random();
+		byte[] rest = ",some,data,for,the,account,0123456789\n".getBytes(StandardCharsets.UTF_8);
+		long lines = 0;
+		try (OutputStream out = new BufferedOutputStream(new FileOutputStream(in), 64 * 1024)) {
+			for (long written = 0; written < size; written += 4 + rest.length) {
+				out.write(String.format("*%03d", random.nextInt(10)).getBytes(StandardCharsets.UTF_8));
+				out.write(rest);
+				lines++;
+			}
+		}
+		MappedFileSplitter.SplitResult result = new MappedFileSplitter(this.temporaryFolder.newFolder("out"))
+				.split(in);
+		logger.info("Split " + in.length() / 1024 / 1024 + " MiB: " + result);
+		assertThat(result.getLines()).isEqualTo(lines);
+	}
+
+}
@@ -0,0 +1,257 @@
+/*
+ * Copyright 2002-2026 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.integration.samples.filesplit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import org.apache.commons.io.FileUtils;
+import org.apache.commons.net.ftp.FTPFile;
+import org.apache.ftpserver.FtpServer;
+import org.apache.ftpserver.FtpServerFactory;
+import org.apache.ftpserver.listener.ListenerFactory;
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.ClassRule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.junit.runner.RunWith;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.integration.channel.QueueChannel;
+import org.springframework.integration.config.EnableIntegration;
+import org.springframework.integration.file.remote.session.SessionFactory;
+import org.springframework.integration.ftp.dsl.Ftp;
+import org.springframework.integration.ftp.session.DefaultFtpSessionFactory;
+import org.springframework.integration.samples.filesplit.support.TestUserManager;
+import org.springframework.integration.support.MessageBuilder;
+import org.springframework.messaging.MessageHandler;
+import org.springframework.messaging.MessageHandlingException;
+import org.springframework.retry.backoff.FixedBackOffPolicy;
+import org.springframework.retry.support.RetryTemplate;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.test.context.ContextConfiguration;
+import org.springframework.test.context.junit4.SpringRunner;
+
+/**
+ * Sends files to three embedded FTP servers with the {@link ParallelUploader}.
+ *
+ * @since 5.1
+ *
+ */
+@RunWith(SpringRunner.class)
+@ContextConfiguration
+public class ParallelUploaderTests {
+
+	@ClassRule
+	public static final TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+	private static final List<FtpServer> servers = new ArrayList<>();
+
+	private static final List<File> serverRoots = new ArrayList<>();
+
+	private static final List<Integer> ports = new ArrayList<>();
+
+	private static final CountDownLatch hung = new CountDownLatch(1);
+
+	private static File localDir;
+
+	@Autowired
+	private ParallelUploader uploader;
+
+	@Autowired
+	private ParallelUploader partialUploader;
+
+	@Autowired
+	private ParallelUploader hungUploader;
+
+	@BeforeClass
+	public static void setup() throws Exception {
+		for (int i = 0; i < 3; i++) {
+			File root = temporaryFolder.newFolder("server" + i);
+			FtpServerFactory serverFactory = new FtpServerFactory();
+			serverFactory.setUserManager(new TestUserManager(root.getAbsolutePath(), 0));
+			ListenerFactory factory = new ListenerFactory();
+			factory.setPort(0);
+			factory.setIdleTimeout(600);
+			serverFactory.addListener("default", factory.createListener());
+			FtpServer server = serverFactory.createServer();
+			server.start();
+			servers.add(server);
+			serverRoots.add(root);
+			ports.add(serverFactory.getListeners().values().iterator().next().getPort());
+		}
+		localDir = temporaryFolder.newFolder("out");
+		for (String name : new String[] { "002", "006", "009" }) {
+			FileUtils.writeStringToFile(new File(localDir, name + ".txt"), "*" + name + ",foo,bar\n",
+					StandardCharsets.UTF_8);
+		}
+	}
+
+	@AfterClass
+	public static void tearDown() {
+		hung.countDown();
+		servers.forEach(FtpServer::stop);
+	}
+
+	@Test
+	public void testAllTransferred() throws IOException {
+		QueueChannel replies = new QueueChannel();
+		this.uploader.handleMessage(MessageBuilder.withPayload("marker").setReplyChannel(replies).build());
+		// the reply is only sent when all the transfers are complete
+		assertThat(replies.receive(0).getPayload()).isEqualTo("marker");
+		assertTransferred(0, "002");
+		assertTransferred(1, "006");
+		assertTransferred(2, "009");
+	}
+
+	@Test
+	public void testOneFailureDoesNotBlockOthers() throws IOException {
+		assertThatThrownBy(() -> this.partialUploader.handleMessage(MessageBuilder.withPayload("marker").build()))
+				.isInstanceOf(MessageHandlingException.class)
+				.satisfies(e -> assertThat(((MessageHandlingException) e).getFailedMessage().getPayload())
+						.isEqualTo(new File(localDir, "006.txt")));
+		assertTransferred(0, "002");
+		assertTransferred(2, "009");
+	}
+
+	@Test
+	public void testHungTransferTimesOut() throws IOException {
+		long start = System.currentTimeMillis();
+		assertThatThrownBy(() -> this.hungUploader.handleMessage(MessageBuilder.withPayload("marker").build()))
+				.isInstanceOf(MessageHandlingException.class)
+				.hasCauseInstanceOf(TimeoutException.class)
+				.satisfies(e -> assertThat(((MessageHandlingException) e).getFailedMessage().getPayload())
+						.isEqualTo(new File(localDir, "006.txt")));
+		assertThat(System.currentTimeMillis() - start).isLessThan(10000);
+		assertTransferred(0, "002");
+		assertTransferred(2, "009");
+	}
+
+	private static void assertTransferred(int server, String name) throws IOException {
+		File file = new File(serverRoots.get(server), "foo/" + name + ".txt");
+		assertThat(file).exists();
+		assertThat(FileUtils.readFileToString(file, StandardCharsets.UTF_8)).isEqualTo("*" + name + ",foo,bar\n");
+	}
+
+	@Configuration
+	@EnableIntegration
+	public static class Config {
+
+		@Bean
+		public ParallelUploader uploader() {
+			ParallelUploader uploader = new ParallelUploader(uploadExecutor());
+			uploader.setRetryTemplate(retryTemplate());
+			uploader.addDestination(new File(localDir, "002.txt"), ftp0());
+			uploader.addDestination(new File(localDir, "006.txt"), ftp1());
+			uploader.addDestination(new File(localDir, "009.txt"), ftp2());
+			return uploader;
+		}
+
+		@Bean
+		public ParallelUploader partialUploader() {
+			ParallelUploader uploader = new ParallelUploader(uploadExecutor());
+			uploader.setRetryTemplate(retryTemplate());
+			uploader.addDestination(new File(localDir, "002.txt"), ftp0());
+			uploader.addDestination(new File(localDir, "006.txt"), ftp1WrongPassword());
+			uploader.addDestination(new File(localDir, "009.txt"), ftp2());
+			return uploader;
+		}
+
+		@Bean
+		public ParallelUploader hungUploader() {
+			ParallelUploader uploader = new ParallelUploader(uploadExecutor());
+			uploader.setRetryTemplate(retryTemplate());
+			uploader.setTimeout(1000);
+			uploader.addDestination(new File(localDir, "002.txt"), ftp0());
+			uploader.addDestination(new File(localDir, "006.txt"), message -> {
+				try {
+					hung.await(30, TimeUnit.SECONDS);
+				}
+				catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+				}
+			});
+			uploader.addDestination(new File(localDir, "009.txt"), ftp2());
+			return uploader;
+		}
+
+		@Bean
+		public ThreadPoolTaskExecutor uploadExecutor() {
+			ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+			executor.setCorePoolSize(3);
+			return executor;
+		}
+
+		private RetryTemplate retryTemplate() {
+			RetryTemplate retryTemplate = new RetryTemplate();
+			FixedBackOffPolicy backOffPolicy = new FixedBackOffPolicy();
+			backOffPolicy.setBackOffPeriod(100);
+			retryTemplate.setBackOffPolicy(backOffPolicy);
+			return retryTemplate;
+		}
+
+		@Bean
+		public MessageHandler ftp0() {
+			return ftp(0, "demo");
+		}
+
+		@Bean
+		public MessageHandler ftp1() {
+			return ftp(1, "demo");
+		}
+
+		@Bean
+		public MessageHandler ftp1WrongPassword() {
+			return ftp(1, "wrong");
+		}
+
+		@Bean
+		public MessageHandler ftp2() {
+			return ftp(2, "demo");
+		}
+
+		private MessageHandler ftp(int server, String password) {
+			return Ftp.outboundAdapter(sessionFactory(ports.get(server), password))
+					.remoteDirectory("foo")
+					.autoCreateDirectory(true)
+					.get();
+		}
+
+		private SessionFactory<FTPFile> sessionFactory(int port, String password) {
+			DefaultFtpSessionFactory sessionFactory = new DefaultFtpSessionFactory();
+			sessionFactory.setHost("localhost");
+			sessionFactory.setPort(port);
+			sessionFactory.setUsername("demo");
+			sessionFactory.setPassword(password);
+			return sessionFactory;
+		}
+
+	}
+
+}
@@ -0,0 +1,377 @@
+/*
+ * Copyright 2018-2026 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.integration.samples.tcpbroadcast;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.core.serializer.Serializer;
+import org.springframework.integration.handler.AbstractMessageHandler;
+import org.springframework.integration.ip.IpHeaders;
+import org.springframework.integration.ip.tcp.connection.AbstractServerConnectionFactory;
+import org.springframework.integration.ip.tcp.connection.TcpConnection;
+import org.springframework.integration.ip.tcp.connection.TcpSender;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageHandlingException;
+import org.springframework.messaging.support.GenericMessage;
+import org.springframework.util.Assert;
+
+/**
+ * Sends messages to the connections of a server connection factory: to the connection
+ * in the {@link IpHeaders#CONNECTION_ID} header if present, otherwise to all of them.
+ * <p>
+ * The payload is framed once, by the framing serializer, and the same bytes are written
+ * to every connection; the server factory must therefore use a
+ * {@link org.springframework.integration.ip.tcp.serializer.ByteArrayRawSerializer} to
+ * write them as-is. Each connection has its own bounded queue and writer, which writes
+ * its messages in order on the executor, so the calling thread never waits for a
+ * socket and one slow client does not delay the others. When a connection's queue is
+ * full, the {@link OverflowPolicy} decides whether its oldest or the newest message is
+ * dropped, or the connection is closed. A watchdog, run on the task scheduler, also
+ * closes a connection when a write to its socket has been blocked for longer than the
+ * {@link #setSendTimeout(long) sendTimeout}, so a client that stops reading cannot hold
+ * a writer thread indefinitely. {@link #getStatistics()} reports each connection's queue
+ * depth, and the numbers of messages sent and dropped.
+ *
+ * @since 5.1
+ *
+ */
+public class BroadcastMessageHandler extends AbstractMessageHandler implements TcpSender, DisposableBean {
+
+	/**
+	 * The maximum number of messages a writer sends before giving its thread to another
+	 * connection.
+	 */
+	private static final int WRITE_BATCH = 64;
+
+	private final Map<String, ConnectionWriter> writers = new ConcurrentHashMap<>();
+
+	private final Serializer<byte[]> framer;
+
+	private final Executor executor;
+
+	private final AtomicLong disconnects = new AtomicLong();
+
+	private volatile int queueCapacity = 1000;
+
+	private volatile OverflowPolicy overflowPolicy = OverflowPolicy.DISCONNECT;
+
+	private volatile long sendTimeout = 10_000;
+
+	private volatile ScheduledFuture<?> watchdog;
+
+	/**
+	 * @param serverFactory the server connection factory, which must have a raw serializer.
+	 * @param framer frames the payload, e.g. a {@code ByteArrayCrLfSerializer}.
+	 * @param executor the executor for the connection writers.
+	 */
+	public BroadcastMessageHandler(AbstractServerConnectionFactory serverFactory, Serializer<byte[]> framer,
+			Executor executor) {
+
+		Assert.notNull(serverFactory, "'serverFactory' cannot be null");
+		Assert.notNull(framer, "'framer' cannot be null");
+		Assert.notNull(executor, "'executor' cannot be null");
+		this.framer = framer;
+		this.executor = executor;
+		serverFactory.registerSender(this);
+	}
+
+	/**
+	 * @param queueCapacity the number of messages that may be waiting to be written to a
+	 * connection; default 1000. Applies to connections opened after it is set.
+	 */
+	public void setQueueCapacity(int queueCapacity) {
+		Assert.isTrue(queueCapacity > 0, "'queueCapacity' must be > 0");
+		this.queueCapacity = queueCapacity;
+	}
+
+	/**
+	 * @param overflowPolicy what to do when a connection's queue is full; default
+	 * {@link OverflowPolicy#DISCONNECT}.
+	 */
+	public void setOverflowPolicy(OverflowPolicy overflowPolicy) {
+		Assert.notNull(overflowPolicy, "'overflowPolicy' cannot be null");
+		this.overflowPolicy = overflowPolicy;
+	}
+
+	/**
+	 * @param sendTimeout the time (ms) a write to a connection may block before the
+	 * connection is closed; default 10000; 0 for no limit. The connections are checked at
+	 * half this interval.
+	 */
+	public void setSendTimeout(long sendTimeout) {
+		Assert.isTrue(sendTimeout >= 0, "'sendTimeout' cannot be negative");
+		this.sendTimeout = sendTimeout;
+	}
+
+	/**
+	 * @return the number of connections closed because their queue was full or a write
+	 * timed out.
+	 */
+	public long getDisconnects() {
+		return this.disconnects.get();
+	}
+
+	/**
+	 * @return the statistics for each open connection, by connection id.
+	 */
+	public Map<String, ConnectionStatistics> getStatistics() {
+		Map<String, ConnectionStatistics> statistics = new TreeMap<>();
+		for (ConnectionWriter writer : this.writers.values()) {
+			statistics.put(writer.connection.getConnectionId(), new ConnectionStatistics(writer.queue.size(),
+					writer.sent.get(), writer.dropped.get()));
+		}
+		return statistics;
+	}
+
+	@Override
+	public String getComponentType() {
+		return "ip:tcp-broadcast-outbound-channel-adapter";
+	}
+
+	@Override
+	protected void onInit() throws Exception {
+		super.onInit();
+		if (this.sendTimeout > 0) {
+			this.watchdog = getTaskScheduler().scheduleAtFixedRate(this::closeBlockedConnections,
+					Math.max(1, this.sendTimeout / 2));
+		}
+	}
+
+	@Override
+	public void destroy() {
+		ScheduledFuture<?> task = this.watchdog;
+		if (task != null) {
+			task.cancel(false);
+			this.watchdog = null;
+		}
+	}
+
+	@Override
+	public void addNewConnection(TcpConnection connection) {
+		this.writers.put(connection.getConnectionId(), new ConnectionWriter(connection));
+	}
+
+	@Override
+	public void removeDeadConnection(TcpConnection connection) {
+		this.writers.remove(connection.getConnectionId());
+	}
+
+	@Override
+	protected void handleMessageInternal(Message<?> message) {
+		Message<byte[]> framed = new GenericMessage<>(frame(message));
+		String connectionId = message.getHeaders().get(IpHeaders.CONNECTION_ID, String.class);
+		if (connectionId != null) {
+			ConnectionWriter writer = this.writers.get(connectionId);
+			if (writer == null) {
+				throw new MessageHandlingException(message, "Unable to find outbound socket for " + connectionId);
+			}
+			writer.enqueue(framed);
+		}
+		else {
+			for (ConnectionWriter writer : this.writers.values()) {
+				writer.enqueue(framed);
+			}
+		}
+	}
+
+	private byte[] frame(Message<?> message) {
+		Object payload = message.getPayload();
+		byte[] bytes;
+		if (payload instanceof byte[]) {
+			bytes = (byte[]) payload;
+		}
+		else if (payload instanceof String) {
+			bytes = ((String) payload).getBytes(StandardCharsets.UTF_8);
+		}
+		else {
+			throw new MessageHandlingException(message, "Expected a byte[] or String payload");
+		}
+		ByteArrayOutputStream out = new ByteArrayOutputStream(bytes.length + 16);
+		try {
+			this.framer.serialize(bytes, out);
+		}
+		catch (IOException e) {
+			throw new MessageHandlingException(message, "Failed to frame the payload", e);
+		}
+		return out.toByteArray();
+	}
+
+	void closeBlockedConnections() {
+		long now = System.currentTimeMillis();
+		for (ConnectionWriter writer : this.writers.values()) {
+			long sendStarted = writer.sendStarted;
+			if (sendStarted > 0 && now - sendStarted > this.sendTimeout) {
+				disconnect(writer, "a write blocked for " + (now - sendStarted) + "ms");
+			}
+		}
+	}
+
+	private void disconnect(ConnectionWriter writer, String reason) {
+		if (this.writers.remove(writer.connection.getConnectionId(), writer)) {
+			this.disconnects.incrementAndGet();
+			logger.warn("Closing slow consumer " + writer.connection.getConnectionId() + " (" + reason + ") with "
+					+ writer.queue.size() + " messages queued");
+			writer.connection.close();
+		}
+	}
+
+	/**
+	 * What to do with a message for a connection whose queue is full.
+	 */
+	public enum OverflowPolicy {
+
+		/**
+		 * Drop the oldest queued message to make room for the new one.
+		 */
+		DROP_OLDEST,
+
+		/**
+		 * Drop the new message.
+		 */
+		DROP_NEWEST,
+
+		/**
+		 * Close the connection.
+		 */
+		DISCONNECT
+
+	}
+
+	/**
+	 * A snapshot of a connection's queue depth and message counts.
+	 */
+	public static final class ConnectionStatistics {
+
+		private final int queueDepth;
+
+		private final long sent;
+
+		private final long dropped;
+
+		ConnectionStatistics(int queueDepth, long sent, long dropped) {
+			this.queueDepth = queueDepth;
+			this.sent = sent;
+			this.dropped = dropped;
+		}
+
+		public int getQueueDepth() {
+			return this.queueDepth;
+		}
+
+		public long getSent() {
+			return this.sent;
+		}
+
+		public long getDropped() {
+			return this.dropped;
+		}
+
+	}
+
+	/**
+	 * Writes the messages for one connection, in order, on the executor; at most one
+	 * thread runs a writer at a time.
+	 */
+	private final class ConnectionWriter implements Runnable {
+
+		private final BlockingQueue<Message<byte[]>> queue =
+				new LinkedBlockingQueue<>(BroadcastMessageHandler.this.queueCapacity);
+
+		private final AtomicLong sent = new AtomicLong();
+
+		private final AtomicLong dropped = new AtomicLong();
+
+		private final AtomicBoolean scheduled = new AtomicBoolean();
+
+		private final TcpConnection connection;
+
+		private volatile long sendStarted;
+
+		ConnectionWriter(TcpConnection connection) {
+			this.connection = connection;
+		}
+
+		void enqueue(Message<byte[]> message) {
+			if (!this.queue.offer(message)) {
+				switch (BroadcastMessageHandler.this.overflowPolicy) {
+					case DROP_OLDEST:
+						do {
+							if (this.queue.poll() != null) {
+								this.dropped.incrementAndGet();
+							}
+						}
+						while (!this.queue.offer(message));
+						break;
+					case DROP_NEWEST:
+						this.dropped.incrementAndGet();
+						return;
+					default:
+						disconnect(this, "queue full");
+						return;
+				}
+			}
+			schedule();
+		}
+
+		private void schedule() {
+			if (this.scheduled.compareAndSet(false, true)) {
+				BroadcastMessageHandler.this.executor.execute(this);
+			}
+		}
+
+		@Override
+		public void run() {
+			try {
+				Message<byte[]> message;
+				for (int i = 0; i < WRITE_BATCH && (message = this.queue.poll()) != null; i++) {
+					this.sendStarted = System.currentTimeMillis();
+					this.connection.send(message);
+					this.sendStarted = 0;
+					this.sent.incrementAndGet();
+				}
+			}
+			catch (Exception e) {
+				// the connection closes itself and is removed via removeDeadConnection()
+				if (logger.isDebugEnabled()) {
+					logger.debug("Failed to send to " + this.connection.getConnectionId(), e);
+				}
+				this.queue.clear();
+			}
+			finally {
+				this.sendStarted = 0;
+				this.scheduled.set(false);
+				if (!this.queue.isEmpty() && this.connection.isOpen()) {
+					schedule();
+				}
+			}
+		}
+
+	}
+
+}
@@ -0,0 +1,447 @@
+/*
+ * Copyright 2018-2026 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.integration.samples.tcpbroadcast;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.StandardSocketOptions;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+/**
+ * A load test for the broadcast server: opens many client connections, broadcasts
+ * messages containing their send time ({@link System#nanoTime()}, so the broadcaster
+ * must run in the same JVM), and measures the time until each client receives each
+ * message.
+ * <p>
+ * All clients are served by one NIO selector thread, so thousands of connections do
+ * not need thousands of client threads (the server may still need them, unless it
+ * uses NIO too); that thread is also the only one recording latencies, so the
+ * histogram needs no synchronization.
+ *
+ * @since 5.1
+ *
+ */
+public class LoadTestClient {
+
+	private static final Log logger = LogFactory.getLog(LoadTestClient.class);
+
+	private static final byte[] HELLO = "hello\r\n".getBytes(StandardCharsets.US_ASCII);
+
+	private static final int BUFFER_SIZE = 256;
+
+	private final List<ClientState> clients = new ArrayList<>();
+
+	private final Histogram histogram = new Histogram();
+
+	private final AtomicLong received = new AtomicLong();
+
+	private final InetSocketAddress address;
+
+	private final int clientCount;
+
+	private final CountDownLatch connected;
+
+	private volatile boolean running = true;
+
+	/**
+	 * @param host the server host.
+	 * @param port the server port.
+	 * @param clients the number of client connections.
+	 */
+	public LoadTestClient(String host, int port, int clients) {
+		this.address = new InetSocketAddress(host, port);
+		this.clientCount = clients;
+		this.connected = new CountDownLatch(clients);
+	}
+
+	/**
+	 * Connect the clients, broadcast the messages and wait for the clients to receive them.
+	 * @param broadcaster broadcasts a payload to all connected clients.
+	 * @param messages the number of messages to broadcast.
+	 * @param intervalMillis the time between messages.
+	 * @param timeoutMillis how long to wait for the clients to connect, and for them to
+	 * receive the messages.
+	 * @return the results.
+	 * @throws IOException if the selector cannot be opened.
+	 * @throws InterruptedException if interrupted.
+	 */
+	public Report run(Consumer<String> broadcaster, int messages, long intervalMillis, long timeoutMillis)
+			throws IOException, InterruptedException {
+
+		Selector selector = Selector.open();
+		int failedToConnect = 0;
+		for (int i = 0; i < this.clientCount; i++) {
+			try {
+				SocketChannel channel = SocketChannel.open();
+				channel.configureBlocking(false);
+				channel.setOption(StandardSocketOptions.TCP_NODELAY, true);
+				ClientState client = new ClientState(i, channel);
+				if (channel.connect(this.address)) { // can complete immediately on localhost
+					channel.write(ByteBuffer.wrap(HELLO));
+					channel.register(selector, SelectionKey.OP_READ, client);
+				}
+				else {
+					channel.register(selector, SelectionKey.OP_CONNECT, client);
+				}
+				this.clients.add(client);
+			}
+			catch (IOException e) {
+				failedToConnect++;
+				this.connected.countDown();
+			}
+		}
+		Thread reader = new Thread(() -> select(selector), "load-test-selector");
+		reader.start();
+		this.connected.await(timeoutMillis, TimeUnit.MILLISECONDS);
+		long connectedClients = this.clients.stream().filter(client -> client.connected).count();
+		long start = System.nanoTime();
+		for (int i = 0; i < messages; i++) {
+			broadcaster.accept(Long.toString(System.nanoTime()));
+			if (intervalMillis > 0) {
+				Thread.sleep(intervalMillis);
+			}
+		}
+		long sendNanos = System.nanoTime() - start;
+		long expected = connectedClients * messages;
+		long deadline = System.currentTimeMillis() + timeoutMillis;
+		while (this.received.get() < expected && System.currentTimeMillis() < deadline) {
+			Thread.sleep(10);
+		}
+		long elapsed = System.nanoTime() - start;
+		this.running = false;
+		selector.wakeup();
+		reader.join(timeoutMillis);
+		for (ClientState client : this.clients) {
+			try {
+				client.channel.close();
+			}
+			catch (IOException e) {
+				// ignore
+			}
+		}
+		selector.close();
+		return new Report(connectedClients, failedToConnect, messages, sendNanos, elapsed);
+	}
+
+	private void select(Selector selector) {
+		try {
+			while (this.running) {
+				selector.select(100);
+				Iterator<SelectionKey> keys = selector.selectedKeys().iterator();
+				while (keys.hasNext()) {
+					SelectionKey key = keys.next();
+					keys.remove();
+					ClientState client = (ClientState) key.attachment();
+					try {
+						if (key.isConnectable()) {
+							if (client.channel.finishConnect()) {
+								client.channel.write(ByteBuffer.wrap(HELLO));
+								key.interestOps(SelectionKey.OP_READ);
+							}
+						}
+						else if (key.isReadable()) {
+							read(client);
+						}
+					}
+					catch (IOException e) {
+						key.cancel();
+						client.failed = true;
+						if (!client.connected) {
+							this.connected.countDown();
+						}
+					}
+				}
+			}
+		}
+		catch (IOException e) {
+			logger.error("Load test selector failed", e);
+		}
+	}
+
+	private void read(ClientState client) throws IOException {
+		ByteBuffer buffer = client.buffer;
+		if (client.channel.read(buffer) < 0) {
+			throw new EOFException();
+		}
+		long now = System.nanoTime();
+		buffer.flip();
+		int lineStart = buffer.position();
+		for (int i = lineStart; i < buffer.limit(); i++) {
+			if (buffer.get(i) == '\n') {
+				line(client, buffer, lineStart, i, now);
+				lineStart = i + 1;
+			}
+		}
+		buffer.position(lineStart);
+		buffer.compact();
+		if (!buffer.hasRemaining()) {
+			buffer.clear(); // not a line we sent; discard it
+		}
+	}
+
+	private void line(ClientState client, ByteBuffer buffer, int start, int end, long now) {
+		long timestamp = 0;
+		boolean numeric = end > start;
+		for (int i = start; i < end && numeric; i++) {
+			byte b = buffer.get(i);
+			if (b >= '0' && b <= '9') {
+				timestamp = timestamp * 10 + (b - '0');
+			}
+			else if (b != '\r') {
+				numeric = false;
+			}
+		}
+		if (numeric) {
+			long latency = now - timestamp;
+			this.histogram.record(latency);
+			client.received++;
+			client.maxLatency = Math.max(client.maxLatency, latency);
+			this.received.incrementAndGet();
+		}
+		else if (!client.connected) { // "connected!"
+			client.connected = true;
+			this.connected.countDown();
+		}
+	}
+
+	private static final class ClientState {
+
+		private final ByteBuffer buffer = ByteBuffer.allocate(BUFFER_SIZE);
+
+		private final int id;
+
+		private final SocketChannel channel;
+
+		private volatile boolean connected;
+
+		private volatile boolean failed;
+
+		private long received;
+
+		private long maxLatency;
+
+		ClientState(int id, SocketChannel channel) {
+			this.id = id;
+			this.channel = channel;
+		}
+
+	}
+
+	/**
+	 * Latencies in buckets with 3 bits of sub-bucket resolution (about 12% relative
+	 * error); not thread-safe.
+	 */
+	static final class Histogram {
+
+		private static final int SUB_BUCKET_BITS = 3;
+
+		private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+
+		private final long[] counts = new long[64 * SUB_BUCKETS];
+
+		private long count;
+
+		private long sum;
+
+		private long max;
+
+		void record(long nanos) {
+			long value = Math.max(0, nanos);
+			this.counts[index(value)]++;
+			this.count++;
+			this.sum += value;
+			this.max = Math.max(this.max, value);
+		}
+
+		long getCount() {
+			return this.count;
+		}
+
+		double getMean() {
+			return this.count == 0 ? 0 : (double) this.sum / this.count;
+		}
+
+		long getMax() {
+			return this.max;
+		}
+
+		long getValueAtPercentile(double percentile) {
+			long target = Math.max(1, (long) Math.ceil(percentile / 100 * this.count));
+			long seen = 0;
+			for (int i = 0; i < this.counts.length; i++) {
+				seen += this.counts[i];
+				if (seen >= target) {
+					return Math.min(highestValue(i), this.max);
+				}
+			}
+			return this.max;
+		}
+
+		/**
+		 * @return the counts for power of two ranges: element {@code i} counts values in
+		 * {@code [2^i, 2^(i+1))} nanoseconds.
+		 */
+		long[] getPowerOfTwoCounts() {
+			long[] powers = new long[64];
+			for (int i = 0; i < this.counts.length; i++) {
+				if (this.counts[i] > 0) {
+					powers[63 - Long.numberOfLeadingZeros(Math.max(1, highestValue(i)))] += this.counts[i];
+				}
+			}
+			return powers;
+		}
+
+		static int index(long value) {
+			if (value < SUB_BUCKETS) {
+				return (int) value;
+			}
+			int shift = 63 - Long.numberOfLeadingZeros(value) - SUB_BUCKET_BITS;
+			return (shift + 1) * SUB_BUCKETS + (int) (value >>> shift) - SUB_BUCKETS;
+		}
+
+		static long highestValue(int index) {
+			if (index < SUB_BUCKETS) {
+				return index;
+			}
+			int shift = index / SUB_BUCKETS - 1;
+			long subBucket = index % SUB_BUCKETS + SUB_BUCKETS;
+			return ((subBucket + 1) << shift) - 1;
+		}
+
+	}
+
+	/**
+	 * The results of a run.
+	 */
+	public final class Report {
+
+		private final long connectedClients;
+
+		private final int failedToConnect;
+
+		private final int messages;
+
+		private final long sendNanos;
+
+		private final long elapsedNanos;
+
+		Report(long connectedClients, int failedToConnect, int messages, long sendNanos, long elapsedNanos) {
+			this.connectedClients = connectedClients;
+			this.failedToConnect = failedToConnect;
+			this.messages = messages;
+			this.sendNanos = sendNanos;
+			this.elapsedNanos = elapsedNanos;
+		}
+
+		public long getConnectedClients() {
+			return this.connectedClients;
+		}
+
+		public long getReceived() {
+			return LoadTestClient.this.received.get();
+		}
+
+		public long getExpected() {
+			return this.connectedClients * this.messages;
+		}
+
+		/**
+		 * @return messages received by all clients per second.
+		 */
+		public double getThroughput() {
+			return getReceived() / (this.elapsedNanos / 1e9);
+		}
+
+		/**
+		 * @param percentile the percentile (0-100).
+		 * @return the latency at the percentile, in nanoseconds.
+		 */
+		public long getLatencyAtPercentile(double percentile) {
+			return LoadTestClient.this.histogram.getValueAtPercentile(percentile);
+		}
+
+		@Override
+		public String toString() {
+			Histogram histogram = LoadTestClient.this.histogram;
+			StringBuilder report = new StringBuilder(String.format(
+					"clients: %d connected, %d failed to connect, %d disconnected%n"
+							+ "messages: %d broadcast in %.1f ms, %d/%d received in %.1f ms (%.0f/s)%n"
+							+ "latency (ms): mean=%.3f p50=%.3f p90=%.3f p99=%.3f p99.9=%.3f max=%.3f%n",
+					this.connectedClients, this.failedToConnect,
+					LoadTestClient.this.clients.stream().filter(client -> client.failed).count(),
+					this.messages, this.sendNanos / 1e6, getReceived(), getExpected(), this.elapsedNanos / 1e6,
+					getThroughput(), histogram.getMean() / 1e6, millis(getLatencyAtPercentile(50)),
+					millis(getLatencyAtPercentile(90)), millis(getLatencyAtPercentile(99)),
+					millis(getLatencyAtPercentile(99.9)), millis(histogram.getMax())));
+			long[] powers = histogram.getPowerOfTwoCounts();
+			long most = 1;
+			for (long count : powers) {
+				most = Math.max(most, count);
+			}
+			for (int i = 0; i < powers.length; i++) {
+				if (powers[i] > 0) {
+					report.append(String.format("  < %10.3f ms %10d %s%n", (1L << (i + 1)) / 1e6, powers[i],
+							bar(powers[i], most)));
+				}
+			}
+			List<ClientState> slowest = LoadTestClient.this.clients.stream()
+					.filter(client -> client.received > 0)
+					.sorted(Comparator.comparingLong((ClientState client) -> client.maxLatency).reversed())
+					.limit(5)
+					.collect(Collectors.toList());
+			report.append("slowest clients (max ms):");
+			for (ClientState client : slowest) {
+				report.append(String.format(" #%d=%.3f", client.id, millis(client.maxLatency)));
+			}
+			long incomplete = LoadTestClient.this.clients.stream()
+					.filter(client -> client.connected && client.received < this.messages)
+					.count();
+			return report.append(String.format("%nclients missing messages: %d", incomplete)).toString();
+		}
+
+		private double millis(long nanos) {
+			return nanos / 1e6;
+		}
+
+		private String bar(long count, long most) {
+			StringBuilder bar = new StringBuilder();
+			for (int i = 0; i < 50 * count / most; i++) {
+				bar.append('#');
+			}
+			return bar.toString();
+		}
+
+	}
+
+}
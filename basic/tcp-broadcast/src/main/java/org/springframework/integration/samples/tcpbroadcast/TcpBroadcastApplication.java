@@ -1,5 +1,5 @@
 /*
- * Copyright 2018 the original author or authors.
+ * Copyright 2018-2026 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -19,13 +19,19 @@ package org.springframework.integration.samples.tcpbroadcast;
 import java.io.IOException;
 import java.io.InputStream;
 import java.net.Socket;
+import java.util.Map;
 import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.TimeUnit;
 import java.util.stream.IntStream;
 
 import javax.net.SocketFactory;
 
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.ApplicationRunner;
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
@@ -39,12 +45,17 @@ import org.springframework.integration.dsl.IntegrationFlow;
 import org.springframework.integration.dsl.IntegrationFlows;
 import org.springframework.integration.ip.IpHeaders;
 import org.springframework.integration.ip.dsl.Tcp;
+import org.springframework.integration.ip.dsl.TcpServerConnectionFactorySpec;
 import org.springframework.integration.ip.tcp.connection.AbstractServerConnectionFactory;
 import org.springframework.integration.ip.tcp.connection.TcpConnectionServerListeningEvent;
 import org.springframework.integration.ip.tcp.serializer.ByteArrayCrLfSerializer;
+import org.springframework.integration.ip.tcp.serializer.ByteArrayRawSerializer;
+import org.springframework.integration.samples.tcpbroadcast.BroadcastMessageHandler.ConnectionStatistics;
+import org.springframework.integration.samples.tcpbroadcast.BroadcastMessageHandler.OverflowPolicy;
 import org.springframework.messaging.handler.annotation.Header;
 import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
 import org.springframework.stereotype.Component;
+import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestMapping;
@@ -53,6 +64,8 @@ import org.springframework.web.bind.annotation.RestController;
 @SpringBootApplication
 public class TcpBroadcastApplication {
 
+	private static final Log logger = LogFactory.getLog(TcpBroadcastApplication.class);
+
 	private static final int PORT = 1234;
 
 	@Configuration
@@ -61,11 +74,17 @@ public class TcpBroadcastApplication {
 		private final CountDownLatch listenLatch = new CountDownLatch(1);
 
 		/*
-		 * Server connection factory.
+		 * Server connection factory; the broadcast handler frames outbound messages itself.
 		 */
 		@Bean
-		public AbstractServerConnectionFactory serverFactory() {
-			return Tcp.netServer(PORT).get();
+		public AbstractServerConnectionFactory serverFactory(@Value("${broadcast.server.nio:false}") boolean nio,
+				@Value("${broadcast.server.backlog:100}") int backlog) {
+
+			TcpServerConnectionFactorySpec server = nio ? Tcp.nioServer(PORT) : Tcp.netServer(PORT);
+			return server
+					.serializer(new ByteArrayRawSerializer())
+					.backlog(backlog)
+					.get();
 		}
 
 		/*
@@ -90,11 +109,37 @@ public class TcpBroadcastApplication {
 		}
 
 		/*
-		 * Outbound channel adapter flow.
+		 * Outbound flow - to one connection, or all of them if there's no connection id header.
 		 */
 		@Bean
-		public IntegrationFlow toTcp(AbstractServerConnectionFactory serverFactory) {
-			return f -> f.handle(Tcp.outboundAdapter(serverFactory));
+		public IntegrationFlow toTcp(BroadcastMessageHandler broadcastHandler) {
+			return f -> f.handle(broadcastHandler);
+		}
+
+		@Bean
+		public BroadcastMessageHandler broadcastHandler(AbstractServerConnectionFactory serverFactory,
+				@Qualifier("broadcastExec") TaskExecutor broadcastExec,
+				@Value("${broadcast.queue-capacity:1000}") int queueCapacity,
+				@Value("${broadcast.overflow-policy:DISCONNECT}") OverflowPolicy overflowPolicy,
+				@Value("${broadcast.send-timeout:10000}") long sendTimeout) {
+
+			BroadcastMessageHandler handler = new BroadcastMessageHandler(serverFactory,
+					new ByteArrayCrLfSerializer(), broadcastExec);
+			handler.setQueueCapacity(queueCapacity);
+			handler.setOverflowPolicy(overflowPolicy);
+			handler.setSendTimeout(sendTimeout);
+			return handler;
+		}
+
+		/*
+		 * Dedicated executor for the broadcast handler's connection writers.
+		 */
+		@Bean
+		public ThreadPoolTaskExecutor broadcastExec(@Value("${broadcast.writer-threads:16}") int writerThreads) {
+			ThreadPoolTaskExecutor exec = new ThreadPoolTaskExecutor();
+			exec.setCorePoolSize(writerThreads);
+			exec.setThreadNamePrefix("broadcast-");
+			return exec;
 		}
 
 		/*
@@ -108,15 +153,32 @@ public class TcpBroadcastApplication {
 		}
 
 		/*
-		 * Wait for server to start listenng and start 5 clients.
+		 * Wait for server to start listenng and start 5 clients, or the load test.
 		 */
 		@Bean
-		public ApplicationRunner runner(TaskExecutor exec, Broadcaster caster) {
+		public ApplicationRunner runner(@Qualifier("exec") TaskExecutor exec, Broadcaster caster,
+				@Value("${broadcast.load-test.clients:0}") int loadTestClients,
+				@Value("${broadcast.load-test.messages:100}") int loadTestMessages,
+				@Value("${broadcast.load-test.interval:10}") long loadTestInterval) {
+
 			return args -> {
 				if (!this.listenLatch.await(10, TimeUnit.SECONDS)) {
 					throw new IllegalStateException("Failed to start listening");
 				}
-				IntStream.range(1, 6).forEach(i -> exec.execute(new Client()));
+				if (loadTestClients > 0) {
+					exec.execute(() -> {
+						try {
+							logger.info("Load test results:\n" + new LoadTestClient("localhost", PORT, loadTestClients)
+									.run(caster::send, loadTestMessages, loadTestInterval, 60_000));
+						}
+						catch (Exception e) {
+							logger.error("Load test failed", e);
+						}
+					});
+				}
+				else {
+					IntStream.range(1, 6).forEach(i -> exec.execute(new Client()));
+				}
 			};
 		}
 
@@ -128,12 +190,14 @@ public class TcpBroadcastApplication {
 	}
 
 	/*
-	 * Sender gateway sets the connection id header.
+	 * Sender gateway - to one connection (connection id header) or all of them.
 	 */
 	public interface Sender {
 
 		void send(String payload, @Header(IpHeaders.CONNECTION_ID) String connectionId);
 
+		void broadcast(String payload);
+
 	}
 
 	@RestController
@@ -142,6 +206,9 @@ public class TcpBroadcastApplication {
 		@Autowired
 		private Broadcaster broadcaster;
 
+		@Autowired
+		private BroadcastMessageHandler broadcastHandler;
+
 		@Autowired
 		private ConfigurableApplicationContext applicationContext;
 
@@ -151,6 +218,11 @@ public class TcpBroadcastApplication {
 			return "sent: " + what;
 		}
 
+		@GetMapping("/broadcast/stats")
+		public Map<String, ConnectionStatistics> stats() {
+			return this.broadcastHandler.getStatistics();
+		}
+
 		@RequestMapping("/shutdown")
 		public void shutDown() {
 			this.applicationContext.close();
@@ -164,11 +236,11 @@ public class TcpBroadcastApplication {
 		@Autowired
 		private Sender sender;
 
-		@Autowired
-		private AbstractServerConnectionFactory server;
-
+		/*
+		 * One message; the handler writes it to all connections.
+		 */
 		public void send(String what) {
-			this.server.getOpenConnectionIds().forEach(cid -> sender.send(what, cid));
+			this.sender.broadcast(what);
 		}
 
 	}
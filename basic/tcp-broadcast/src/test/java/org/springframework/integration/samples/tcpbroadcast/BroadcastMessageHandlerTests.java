@@ -0,0 +1,201 @@
+/*
+ * Copyright 2002-2026 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.integration.samples.tcpbroadcast;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.BDDMockito.willAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import org.springframework.integration.ip.IpHeaders;
+import org.springframework.integration.ip.tcp.connection.AbstractServerConnectionFactory;
+import org.springframework.integration.ip.tcp.connection.TcpConnection;
+import org.springframework.integration.ip.tcp.serializer.ByteArrayCrLfSerializer;
+import org.springframework.integration.samples.tcpbroadcast.BroadcastMessageHandler.ConnectionStatistics;
+import org.springframework.integration.samples.tcpbroadcast.BroadcastMessageHandler.OverflowPolicy;
+import org.springframework.integration.support.MessageBuilder;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageHandlingException;
+import org.springframework.messaging.support.GenericMessage;
+
+/**
+ * @since 5.1
+ *
+ */
+public class BroadcastMessageHandlerTests {
+
+	private final List<Runnable> tasks = new ArrayList<>();
+
+	private final List<String> sent = new ArrayList<>();
+
+	private TcpConnection connection;
+
+	private BroadcastMessageHandler handler;
+
+	@Before
+	public void setUp() throws Exception {
+		this.connection = connection("conn1");
+		willAnswer(i -> {
+			Message<?> message = i.getArgument(0);
+			return this.sent.add(new String((byte[]) message.getPayload()));
+		}).given(this.connection).send(any());
+		// writers only run when the test runs the tasks
+		this.handler = new BroadcastMessageHandler(mock(AbstractServerConnectionFactory.class),
+				new ByteArrayCrLfSerializer(), this.tasks::add);
+		this.handler.setQueueCapacity(2);
+	}
+
+	@Test
+	public void testSendsInOrder() {
+		this.handler.addNewConnection(this.connection);
+		send("foo", "bar");
+		runTasks();
+		assertThat(this.sent).containsExactly("foo\r\n", "bar\r\n");
+		assertStatistics(0, 2, 0);
+	}
+
+	@Test
+	public void testDropOldest() {
+		this.handler.setOverflowPolicy(OverflowPolicy.DROP_OLDEST);
+		this.handler.addNewConnection(this.connection);
+		send("one", "two", "three", "four");
+		assertStatistics(2, 0, 2);
+		runTasks();
+		assertThat(this.sent).containsExactly("three\r\n", "four\r\n");
+		assertStatistics(0, 2, 2);
+		verify(this.connection, never()).close();
+	}
+
+	@Test
+	public void testDropNewest() {
+		this.handler.setOverflowPolicy(OverflowPolicy.DROP_NEWEST);
+		this.handler.addNewConnection(this.connection);
+		send("one", "two", "three", "four");
+		assertStatistics(2, 0, 2);
+		runTasks();
+		assertThat(this.sent).containsExactly("one\r\n", "two\r\n");
+		assertStatistics(0, 2, 2);
+		verify(this.connection, never()).close();
+	}
+
+	@Test
+	public void testDisconnect() {
+		TcpConnection other = connection("conn2");
+		this.handler.addNewConnection(this.connection);
+		send("one", "two");
+		this.handler.addNewConnection(other);
+		send("three");
+		verify(this.connection).close();
+		verify(other, never()).close();
+		assertThat(this.handler.getDisconnects()).isEqualTo(1);
+		assertThat(this.handler.getStatistics()).containsOnlyKeys("conn2");
+		// later broadcasts only go to the remaining connection
+		send("four");
+		assertThat(this.handler.getStatistics().get("conn2").getQueueDepth()).isEqualTo(2);
+	}
+
+	@Test
+	public void testSendToConnectionId() {
+		TcpConnection other = connection("conn2");
+		this.handler.addNewConnection(this.connection);
+		this.handler.addNewConnection(other);
+		this.handler.handleMessage(MessageBuilder.withPayload("foo")
+				.setHeader(IpHeaders.CONNECTION_ID, "conn1")
+				.build());
+		assertThat(this.handler.getStatistics().get("conn1").getQueueDepth()).isEqualTo(1);
+		assertThat(this.handler.getStatistics().get("conn2").getQueueDepth()).isEqualTo(0);
+		assertThatThrownBy(() -> this.handler.handleMessage(MessageBuilder.withPayload("foo")
+				.setHeader(IpHeaders.CONNECTION_ID, "unknown")
+				.build()))
+				.isInstanceOf(MessageHandlingException.class);
+	}
+
+	@Test
+	public void testBlockedSendDisconnects() throws Exception {
+		ExecutorService executor = Executors.newSingleThreadExecutor();
+		try {
+			CountDownLatch closed = new CountDownLatch(1);
+			TcpConnection blocked = connection("blocked");
+			willAnswer(i -> {
+				closed.await(10, TimeUnit.SECONDS);
+				throw new IOException("Socket closed");
+			}).given(blocked).send(any());
+			willAnswer(i -> {
+				closed.countDown();
+				this.handler.removeDeadConnection(blocked);
+				return null;
+			}).given(blocked).close();
+			this.handler = new BroadcastMessageHandler(mock(AbstractServerConnectionFactory.class),
+					new ByteArrayCrLfSerializer(), executor);
+			this.handler.setSendTimeout(100);
+			this.handler.addNewConnection(blocked);
+			send("foo");
+			this.handler.closeBlockedConnections();
+			verify(blocked, never()).close();
+			Thread.sleep(200);
+			this.handler.closeBlockedConnections();
+			assertThat(closed.await(10, TimeUnit.SECONDS)).isTrue();
+			assertThat(this.handler.getDisconnects()).isEqualTo(1);
+			assertThat(this.handler.getStatistics()).isEmpty();
+		}
+		finally {
+			executor.shutdownNow();
+		}
+	}
+
+	private static TcpConnection connection(String id) {
+		TcpConnection connection = mock(TcpConnection.class);
+		when(connection.getConnectionId()).thenReturn(id);
+		when(connection.isOpen()).thenReturn(true);
+		return connection;
+	}
+
+	private void send(String... payloads) {
+		for (String payload : payloads) {
+			this.handler.handleMessage(new GenericMessage<>(payload));
+		}
+	}
+
+	private void runTasks() {
+		while (!this.tasks.isEmpty()) {
+			this.tasks.remove(0).run();
+		}
+	}
+
+	private void assertStatistics(int queueDepth, long sent, long dropped) {
+		ConnectionStatistics statistics = this.handler.getStatistics().get("conn1");
+		assertThat(statistics.getQueueDepth()).isEqualTo(queueDepth);
+		assertThat(statistics.getSent()).isEqualTo(sent);
+		assertThat(statistics.getDropped()).isEqualTo(dropped);
+	}
+
+}
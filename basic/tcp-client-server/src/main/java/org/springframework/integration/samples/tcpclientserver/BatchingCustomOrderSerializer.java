@@ -0,0 +1,61 @@
+/*
+ * Copyright 2002-2026 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.integration.samples.tcpclientserver;
+
+import java.io.IOException;
+import java.io.OutputStream;
+
+import org.springframework.core.serializer.Serializer;
+import org.springframework.util.Assert;
+
+/**
+ * A {@link Serializer} for connections that are shared by several producers: a
+ * payload that is a single {@link CustomOrder} is written as usual, a payload that is
+ * an {@link Iterable} of orders (for example the output of an aggregator) is encoded
+ * into one pooled buffer and written with a single write and a single flush.
+ *
+ * @since 5.1
+ *
+ */
+public class BatchingCustomOrderSerializer implements Serializer<Object> {
+
+	private final BufferedCustomSerializerDeserializer delegate;
+
+	public BatchingCustomOrderSerializer() {
+		this(new BufferedCustomSerializerDeserializer());
+	}
+
+	public BatchingCustomOrderSerializer(BufferedCustomSerializerDeserializer delegate) {
+		Assert.notNull(delegate, "'delegate' cannot be null");
+		this.delegate = delegate;
+	}
+
+	@Override
+	@SuppressWarnings("unchecked")
+	public void serialize(Object object, OutputStream outputStream) throws IOException {
+		if (object instanceof CustomOrder) {
+			this.delegate.serialize((CustomOrder) object, outputStream);
+		}
+		else if (object instanceof Iterable) {
+			this.delegate.serializeBatch((Iterable<? extends CustomOrder>) object, outputStream);
+		}
+		else {
+			throw new IllegalArgumentException("Expected a CustomOrder or an Iterable of CustomOrder, got: "
+					+ (object == null ? null : object.getClass().getName()));
+		}
+	}
+
+}
@@ -0,0 +1,327 @@
+/*
+ * Copyright 2002-2026 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.integration.samples.tcpclientserver;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.charset.CharacterCodingException;
+import java.nio.charset.Charset;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.CharsetEncoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
+
+import org.springframework.util.Assert;
+
+/**
+ * A variant of {@link CustomSerializerDeserializer} that reads the fixed 19 byte
+ * header (3 byte order number, 10 byte sender name, 6 byte message length) with a
+ * single bulk read, parses the numeric fields directly from the bytes and decodes the
+ * text fields with a reusable {@link CharsetDecoder} into pooled (per-thread)
+ * buffers, instead of calling {@code InputStream.read()} and allocating a
+ * {@code String} per field.
+ * <p>
+ * Serialization encodes the whole order into a pooled (per-thread) buffer, with an
+ * explicit charset, and writes it with a single {@code write} call;
+ * {@link #serializeBatch(Iterable, OutputStream)} does the same for several orders
+ * with a single write and flush ({@link BatchingCustomOrderSerializer} uses it for
+ * collection payloads).
+ * <p>
+ * The wire format is unchanged, except that the order number is always zero-padded
+ * to 3 digits and the length field is the number of encoded bytes (which is the
+ * number of characters for ASCII messages). The default charset is UTF-8, so text
+ * outside ISO-8859-1 survives the round trip; ASCII orders are byte for byte the same
+ * as those of {@link CustomSerializerDeserializer}.
+ *
+ * @since 5.1
+ */
+public class BufferedCustomSerializerDeserializer extends CustomSerializerDeserializer {
+
+	private static final int ORDER_NUMBER_LENGTH = 3;
+	private static final int SENDER_NAME_LENGTH = 10;
+	private static final int MESSAGE_LENGTH_LENGTH = 6;
+	private static final int HEADER_LENGTH = ORDER_NUMBER_LENGTH + SENDER_NAME_LENGTH + MESSAGE_LENGTH_LENGTH;
+
+	private final ThreadLocal<Buffers> buffers;
+
+	private final Charset charset;
+
+	private int maxMessageSize = 999999;
+
+	public BufferedCustomSerializerDeserializer() {
+		this(StandardCharsets.UTF_8);
+	}
+
+	public BufferedCustomSerializerDeserializer(Charset charset) {
+		Assert.notNull(charset, "'charset' cannot be null");
+		this.charset = charset;
+		this.buffers = ThreadLocal.withInitial(() -> new Buffers(charset));
+	}
+
+	public Charset getCharset() {
+		return this.charset;
+	}
+
+	/**
+	 * @param maxMessageSize the maximum message length accepted; the pooled buffers
+	 * grow up to this size (default and maximum 999999, the largest the 6 digit length
+	 * field can hold).
+	 */
+	public void setMaxMessageSize(int maxMessageSize) {
+		Assert.isTrue(maxMessageSize >= 0 && maxMessageSize <= 999999,
+				"'maxMessageSize' must be between 0 and 999999");
+		this.maxMessageSize = maxMessageSize;
+	}
+
+	/**
+	 * Encode the order into a pooled buffer and write it with a single call.
+	 */
+	@Override
+	public void serialize(CustomOrder object, OutputStream outputStream) throws IOException {
+		Buffers buffers = this.buffers.get();
+		buffers.clearOut();
+		buffers.append(object, this.maxMessageSize);
+		outputStream.write(buffers.out.array(), 0, buffers.out.position());
+		outputStream.flush();
+	}
+
+	/**
+	 * Encode several orders into a pooled buffer and write them with a single call
+	 * and a single flush.
+	 * @param orders the orders.
+	 * @param outputStream the stream.
+	 * @throws IOException if an I/O error occurs.
+	 */
+	public void serializeBatch(Iterable<? extends CustomOrder> orders, OutputStream outputStream)
+			throws IOException {
+
+		Buffers buffers = this.buffers.get();
+		buffers.clearOut();
+		for (CustomOrder order : orders) {
+			buffers.append(order, this.maxMessageSize);
+		}
+		outputStream.write(buffers.out.array(), 0, buffers.out.position());
+		outputStream.flush();
+	}
+
+	@Override
+	public CustomOrder deserialize(InputStream inputStream) throws IOException {
+		Buffers buffers = this.buffers.get();
+		byte[] header = buffers.header;
+		readFully(inputStream, header, HEADER_LENGTH);
+
+		int orderNumber = parseInt(header, 0, ORDER_NUMBER_LENGTH);
+		int messageLength = parseInt(header, ORDER_NUMBER_LENGTH + SENDER_NAME_LENGTH, MESSAGE_LENGTH_LENGTH);
+		if (messageLength > this.maxMessageSize) {
+			throw new IOException("Message length " + messageLength + " exceeds max message size "
+					+ this.maxMessageSize);
+		}
+		String senderName = buffers.decode(header, ORDER_NUMBER_LENGTH, SENDER_NAME_LENGTH);
+
+		byte[] body = buffers.body(messageLength);
+		readFully(inputStream, body, messageLength);
+
+		CustomOrder order = new CustomOrder(orderNumber, senderName);
+		order.setMessage(buffers.decode(body, 0, messageLength));
+		return order;
+	}
+
+	private void readFully(InputStream inputStream, byte[] buffer, int length) throws IOException {
+		int offset = 0;
+		while (offset < length) {
+			int count = inputStream.read(buffer, offset, length - offset);
+			checkClosure(count);
+			offset += count;
+		}
+	}
+
+	/**
+	 * Parse a left-zero-padded, unsigned decimal directly from ASCII digits.
+	 */
+	private static int parseInt(byte[] bytes, int offset, int length) throws IOException {
+		int value = 0;
+		for (int i = offset; i < offset + length; i++) {
+			int digit = bytes[i] - '0';
+			if (digit < 0 || digit > 9) {
+				throw new IOException("Invalid digit in numeric field: " + (char) (bytes[i] & 0xff));
+			}
+			value = value * 10 + digit;
+		}
+		return value;
+	}
+
+	/**
+	 * Per-thread buffers, decoder and encoder, reused for every message.
+	 */
+	private static final class Buffers {
+
+		private final byte[] header = new byte[HEADER_LENGTH];
+
+		private final CharsetDecoder decoder;
+
+		private final float maxCharsPerByte;
+
+		private final CharsetEncoder encoder;
+
+		private final boolean asciiCompatible;
+
+		private byte[] body = new byte[256];
+
+		private CharBuffer chars = CharBuffer.allocate(256);
+
+		private ByteBuffer out = ByteBuffer.allocate(1024);
+
+		Buffers(Charset charset) {
+			this.decoder = charset.newDecoder()
+					.onMalformedInput(CodingErrorAction.REPLACE)
+					.onUnmappableCharacter(CodingErrorAction.REPLACE);
+			this.maxCharsPerByte = this.decoder.maxCharsPerByte();
+			this.encoder = charset.newEncoder()
+					.onMalformedInput(CodingErrorAction.REPLACE)
+					.onUnmappableCharacter(CodingErrorAction.REPLACE);
+			this.asciiCompatible = StandardCharsets.UTF_8.equals(charset)
+					|| StandardCharsets.ISO_8859_1.equals(charset)
+					|| StandardCharsets.US_ASCII.equals(charset);
+		}
+
+		ByteBuffer clearOut() {
+			this.out.clear();
+			return this.out;
+		}
+
+		void append(CustomOrder order, int maxMessageSize) throws IOException {
+			int number = order.getNumber();
+			if (number < 0 || number > 999) {
+				throw new IOException("Order number must be 0-999: " + number);
+			}
+			ensure(HEADER_LENGTH);
+			putDigits(number, ORDER_NUMBER_LENGTH);
+
+			int senderStart = this.out.position();
+			encode(order.getSender());
+			if (this.out.position() - senderStart != SENDER_NAME_LENGTH) {
+				throw new IOException("Sender name must encode to " + SENDER_NAME_LENGTH + " bytes: "
+						+ order.getSender());
+			}
+
+			ensure(MESSAGE_LENGTH_LENGTH);
+			int lengthPosition = this.out.position();
+			this.out.position(lengthPosition + MESSAGE_LENGTH_LENGTH);
+			encode(order.getMessage());
+			int length = this.out.position() - lengthPosition - MESSAGE_LENGTH_LENGTH;
+			if (length > maxMessageSize) {
+				throw new IOException("Message length " + length + " exceeds max message size " + maxMessageSize);
+			}
+			int end = this.out.position();
+			this.out.position(lengthPosition);
+			putDigits(length, MESSAGE_LENGTH_LENGTH);
+			this.out.position(end);
+		}
+
+		private void putDigits(int value, int width) {
+			int position = this.out.position();
+			byte[] array = this.out.array();
+			for (int i = position + width - 1; i >= position; i--) {
+				array[i] = (byte) ('0' + value % 10);
+				value /= 10;
+			}
+			this.out.position(position + width);
+		}
+
+		private void encode(String text) throws CharacterCodingException {
+			int length = text.length();
+			if (this.asciiCompatible) {
+				ensure(length);
+				byte[] array = this.out.array();
+				int position = this.out.position();
+				int i = 0;
+				while (i < length) {
+					char c = text.charAt(i);
+					if (c >= 0x80) {
+						break;
+					}
+					array[position + i++] = (byte) c;
+				}
+				this.out.position(position + i);
+				if (i == length) {
+					return;
+				}
+				text = text.substring(i);
+			}
+			this.encoder.reset();
+			CharBuffer in = CharBuffer.wrap(text);
+			while (true) {
+				CoderResult result = this.encoder.encode(in, this.out, true);
+				if (result.isUnderflow()) {
+					result = this.encoder.flush(this.out);
+				}
+				if (result.isUnderflow()) {
+					return;
+				}
+				if (result.isOverflow()) {
+					ensure((int) Math.ceil(in.remaining() * this.encoder.maxBytesPerChar()) + 16);
+				}
+				else {
+					result.throwException();
+				}
+			}
+		}
+
+		private void ensure(int bytes) {
+			if (this.out.remaining() < bytes) {
+				ByteBuffer bigger = ByteBuffer.allocate(Math.max(this.out.capacity() * 2,
+						this.out.position() + bytes));
+				this.out.flip();
+				bigger.put(this.out);
+				this.out = bigger;
+			}
+		}
+
+		byte[] body(int length) {
+			if (this.body.length < length) {
+				this.body = new byte[Math.max(length, this.body.length * 2)];
+			}
+			return this.body;
+		}
+
+		String decode(byte[] bytes, int offset, int length) throws CharacterCodingException {
+			int capacity = (int) Math.ceil(length * this.maxCharsPerByte);
+			if (this.chars.capacity() < capacity) {
+				this.chars = CharBuffer.allocate(Math.max(capacity, this.chars.capacity() * 2));
+			}
+			CharBuffer out = this.chars;
+			out.clear();
+			this.decoder.reset();
+			ByteBuffer in = ByteBuffer.wrap(bytes, offset, length);
+			CoderResult result = this.decoder.decode(in, out, true);
+			if (!result.isUnderflow()) {
+				result.throwException();
+			}
+			result = this.decoder.flush(out);
+			if (!result.isUnderflow()) {
+				result.throwException();
+			}
+			out.flip();
+			return out.toString();
+		}
+
+	}
+
+}
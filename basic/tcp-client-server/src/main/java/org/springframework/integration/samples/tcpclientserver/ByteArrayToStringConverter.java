@@ -15,13 +15,23 @@
  */
 package org.springframework.integration.samples.tcpclientserver;
 
-import java.io.UnsupportedEncodingException;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
 
 import org.springframework.core.convert.converter.Converter;
+import org.springframework.util.Assert;
 
 /**
  * Simple byte array to String converter; allowing the character set
  * to be specified.
+ * <p>
+ * The character set is resolved once, when it is set. Payloads that are pure ASCII
+ * are copied without going through a decoder when the character set is ASCII
+ * compatible (UTF-8, ISO-8859-1, US-ASCII). Optionally, small payloads can be
+ * deduplicated through a fixed-size cache (see {@link #setCacheSize(int)}), so that
+ * repetitive payloads (such as commands) are converted to the same {@code String}
+ * instance instead of a new one each time.
  *
  * @author Gary Russell
  * @since 2.1
@@ -29,29 +39,103 @@ import org.springframework.core.convert.converter.Converter;
  */
 public class ByteArrayToStringConverter implements Converter<byte[], String> {
 
-	private String charSet = "UTF-8";
+	private volatile Charset charset = StandardCharsets.UTF_8;
+
+	private volatile boolean asciiCompatible = true;
+
+	private volatile CachedString[] cache;
+
+	private volatile int maxCachedLength = 64;
 
 	public String convert(byte[] bytes) {
-		try {
-			return new String(bytes, this.charSet);
-		} catch (UnsupportedEncodingException e) {
-			e.printStackTrace();
-			return new String(bytes);
+		CachedString[] cache = this.cache;
+		if (cache == null || bytes.length > this.maxCachedLength) {
+			return decode(bytes);
+		}
+		int hash = Arrays.hashCode(bytes);
+		int index = (hash ^ (hash >>> 16)) & (cache.length - 1);
+		CachedString cached = cache[index];
+		if (cached != null && cached.hash == hash && Arrays.equals(cached.bytes, bytes)) {
+			return cached.value;
+		}
+		String value = decode(bytes);
+		cache[index] = new CachedString(bytes.clone(), hash, value);
+		return value;
+	}
+
+	private String decode(byte[] bytes) {
+		if (this.asciiCompatible && isAscii(bytes)) {
+			return new String(bytes, StandardCharsets.ISO_8859_1);
 		}
+		return new String(bytes, this.charset);
+	}
+
+	private static boolean isAscii(byte[] bytes) {
+		int bits = 0;
+		for (byte b : bytes) {
+			bits |= b;
+		}
+		return bits >= 0;
 	}
 
 	/**
 	 * @return the charSet
 	 */
 	public String getCharSet() {
-		return charSet;
+		return this.charset.name();
 	}
 
 	/**
 	 * @param charSet the charSet to set
 	 */
 	public void setCharSet(String charSet) {
-		this.charSet = charSet;
+		Charset charset = Charset.forName(charSet);
+		this.asciiCompatible = StandardCharsets.UTF_8.equals(charset)
+				|| StandardCharsets.ISO_8859_1.equals(charset)
+				|| StandardCharsets.US_ASCII.equals(charset);
+		this.charset = charset;
+	}
+
+	/**
+	 * Set the number of entries in the deduplication cache; rounded up to a power of
+	 * two. The cache is direct mapped: a payload that hashes to an occupied slot
+	 * replaces the previous entry. Default 0 (no cache).
+	 * @param cacheSize the cache size.
+	 */
+	public void setCacheSize(int cacheSize) {
+		Assert.isTrue(cacheSize >= 0, "'cacheSize' must be >= 0");
+		if (cacheSize == 0) {
+			this.cache = null;
+		}
+		else {
+			int size = Integer.highestOneBit(cacheSize);
+			this.cache = new CachedString[size < cacheSize ? size << 1 : size];
+		}
+	}
+
+	/**
+	 * Set the maximum length of payloads that are looked up in and added to the
+	 * cache; default 64 bytes.
+	 * @param maxCachedLength the maximum length.
+	 */
+	public void setMaxCachedLength(int maxCachedLength) {
+		this.maxCachedLength = maxCachedLength;
+	}
+
+	private static final class CachedString {
+
+		private final byte[] bytes;
+
+		private final int hash;
+
+		private final String value;
+
+		CachedString(byte[] bytes, int hash, String value) {
+			this.bytes = bytes;
+			this.hash = hash;
+			this.value = value;
+		}
+
 	}
 
 }
@@ -0,0 +1,188 @@
+/*
+ * Copyright 2002-2026 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.integration.samples.tcpclientserver;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import org.springframework.context.support.GenericXmlApplicationContext;
+import org.springframework.integration.ip.tcp.connection.AbstractServerConnectionFactory;
+import org.springframework.integration.ip.util.TestingUtilities;
+import org.springframework.util.Assert;
+
+/**
+ * Drives a {@link SimpleGateway} from several threads and reports requests/sec and
+ * latency percentiles. Every reply is checked against the request it was sent with,
+ * so a reply correlated with the wrong request is counted as an error.
+ * <p>
+ * Run {@link #main(String...)} to compare the single-use, blocking configuration
+ * ({@code tcpClientServerDemo-context.xml}) with the NIO, pooled connection
+ * configuration ({@code tcpClientServerNio-context.xml}); the optional arguments are
+ * the number of threads and the number of requests per thread.
+ *
+ * @since 5.1
+ *
+ */
+public class LoadGenerator {
+
+	private final SimpleGateway gateway;
+
+	private final int threads;
+
+	private final int requestsPerThread;
+
+	public LoadGenerator(SimpleGateway gateway, int threads, int requestsPerThread) {
+		Assert.notNull(gateway, "'gateway' cannot be null");
+		Assert.isTrue(threads > 0, "'threads' must be > 0");
+		Assert.isTrue(requestsPerThread > 0, "'requestsPerThread' must be > 0");
+		this.gateway = gateway;
+		this.threads = threads;
+		this.requestsPerThread = requestsPerThread;
+	}
+
+	/**
+	 * Send {@code threads * requestsPerThread} requests, all threads starting together.
+	 * @return the result.
+	 * @throws Exception if a sending thread fails unexpectedly.
+	 */
+	public Result run() throws Exception {
+		ExecutorService executor = Executors.newFixedThreadPool(this.threads);
+		try {
+			CountDownLatch start = new CountDownLatch(1);
+			List<Future<long[]>> futures = new ArrayList<>(this.threads);
+			int[] errors = new int[this.threads];
+			for (int t = 0; t < this.threads; t++) {
+				final int thread = t;
+				futures.add(executor.submit(() -> {
+					long[] latencies = new long[this.requestsPerThread];
+					start.await();
+					for (int i = 0; i < this.requestsPerThread; i++) {
+						String request = "load-" + thread + "-" + i;
+						long sent = System.nanoTime();
+						String reply;
+						try {
+							reply = this.gateway.send(request);
+						}
+						catch (RuntimeException e) {
+							reply = null;
+						}
+						latencies[i] = System.nanoTime() - sent;
+						if (!("echo:" + request).equals(reply)) {
+							errors[thread]++;
+						}
+					}
+					return latencies;
+				}));
+			}
+			long began = System.nanoTime();
+			start.countDown();
+			long[] all = new long[this.threads * this.requestsPerThread];
+			for (int t = 0; t < this.threads; t++) {
+				System.arraycopy(futures.get(t).get(), 0, all, t * this.requestsPerThread, this.requestsPerThread);
+			}
+			long elapsed = System.nanoTime() - began;
+			int errorCount = 0;
+			for (int error : errors) {
+				errorCount += error;
+			}
+			Arrays.sort(all);
+			return new Result(all, elapsed, errorCount);
+		}
+		finally {
+			executor.shutdownNow();
+		}
+	}
+
+	public static void main(String... args) throws Exception {
+		int threads = args.length > 0 ? Integer.parseInt(args[0]) : 16;
+		int requests = args.length > 1 ? Integer.parseInt(args[1]) : 2000;
+		System.out.println("single-use: " + run(Main.DEMO_CONTEXT, threads, requests));
+		System.out.println("nio pooled: " + run(Main.NIO_CONTEXT, threads, requests));
+		System.exit(0);
+	}
+
+	/**
+	 * Start the context, warm it up, run the load and close the context.
+	 * @param contextLocation the context.
+	 * @param threads the number of sending threads.
+	 * @param requestsPerThread the requests per thread.
+	 * @return the result.
+	 * @throws Exception if a sending thread fails unexpectedly.
+	 */
+	public static Result run(String contextLocation, int threads, int requestsPerThread) throws Exception {
+		try (GenericXmlApplicationContext context = Main.setupContext(contextLocation)) {
+			TestingUtilities.waitListening(context.getBean(AbstractServerConnectionFactory.class), 10000L);
+			SimpleGateway gateway = context.getBean(SimpleGateway.class);
+			new LoadGenerator(gateway, threads, Math.max(1, requestsPerThread / 10)).run();
+			return new LoadGenerator(gateway, threads, requestsPerThread).run();
+		}
+	}
+
+	/**
+	 * The outcome of a run.
+	 */
+	public static class Result {
+
+		private final long[] sortedLatencies;
+
+		private final long elapsed;
+
+		private final int errors;
+
+		Result(long[] sortedLatencies, long elapsed, int errors) {
+			this.sortedLatencies = sortedLatencies;
+			this.elapsed = elapsed;
+			this.errors = errors;
+		}
+
+		public int getRequests() {
+			return this.sortedLatencies.length;
+		}
+
+		public int getErrors() {
+			return this.errors;
+		}
+
+		public double getRequestsPerSecond() {
+			return this.sortedLatencies.length * (double) TimeUnit.SECONDS.toNanos(1) / this.elapsed;
+		}
+
+		/**
+		 * @param percentile the percentile (0-100).
+		 * @return the latency at the percentile, in nanoseconds.
+		 */
+		public long getLatencyAtPercentile(double percentile) {
+			int index = (int) Math.ceil(percentile / 100.0 * this.sortedLatencies.length) - 1;
+			return this.sortedLatencies[Math.max(0, Math.min(index, this.sortedLatencies.length - 1))];
+		}
+
+		@Override
+		public String toString() {
+			return String.format("%,d requests, %,.0f req/s, p50=%.3fms, p99=%.3fms, max=%.3fms, errors=%d",
+					getRequests(), getRequestsPerSecond(), getLatencyAtPercentile(50) / 1e6,
+					getLatencyAtPercentile(99) / 1e6, getLatencyAtPercentile(100) / 1e6, this.errors);
+		}
+
+	}
+
+}
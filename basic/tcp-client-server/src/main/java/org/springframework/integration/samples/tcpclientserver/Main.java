@@ -42,6 +42,7 @@ import org.springframework.util.SocketUtils;
  *     <li>TcpClientServerDemoWithConversionServiceTest</li>
  *     <li>TcpServerConnectionDeserializeTest</li>
  *     <li>TcpServerCustomSerializerTest</li>
+ *     <li>TcpClientServerNioDemoTest</li>
  * </ul>
  *
  * @author Gunnar Hillert
@@ -52,6 +53,10 @@ public final class Main {
 
 	private static final String AVAILABLE_SERVER_SOCKET = "availableServerSocket";
 
+	static final String DEMO_CONTEXT = "classpath:META-INF/spring/integration/tcpClientServerDemo-context.xml";
+
+	static final String NIO_CONTEXT = "classpath:META-INF/spring/integration/tcpClientServerNio-context.xml";
+
 	/**
 	 * Prevent instantiation.
 	 */
@@ -60,7 +65,8 @@ public final class Main {
 	/**
 	 * Load the Spring Integration Application Context
 	 *
-	 * @param args - command line arguments
+	 * @param args - command line arguments; {@code nio} selects the NIO, pooled
+	 * connection variant
 	 */
 	public static void main(final String... args) {
 
@@ -76,7 +82,8 @@ public final class Main {
 				+ "\n                                                         "
 				+ "\n=========================================================");
 
-		final GenericXmlApplicationContext context = Main.setupContext();
+		final boolean nio = args.length > 0 && "nio".equals(args[0]);
+		final GenericXmlApplicationContext context = Main.setupContext(nio ? NIO_CONTEXT : DEMO_CONTEXT);
 		final SimpleGateway gateway = context.getBean(SimpleGateway.class);
 		final AbstractServerConnectionFactory crLfServer = context.getBean(AbstractServerConnectionFactory.class);
 
@@ -112,6 +119,10 @@ public final class Main {
 	}
 
 	public static GenericXmlApplicationContext setupContext() {
+		return setupContext(DEMO_CONTEXT);
+	}
+
+	public static GenericXmlApplicationContext setupContext(String contextLocation) {
 		final GenericXmlApplicationContext context = new GenericXmlApplicationContext();
 
 		if (System.getProperty(AVAILABLE_SERVER_SOCKET) == null) {
@@ -128,7 +139,7 @@ public final class Main {
 
 		System.out.println("using port " + context.getEnvironment().getProperty(AVAILABLE_SERVER_SOCKET));
 
-		context.load("classpath:META-INF/spring/integration/tcpClientServerDemo-context.xml");
+		context.load(contextLocation);
 		context.registerShutdownHook();
 		context.refresh();
 
@@ -0,0 +1,117 @@
+/*
+ * Copyright 2002-2026 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.integration.samples.tcpclientserver;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.io.UnsupportedEncodingException;
+import java.nio.charset.StandardCharsets;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.junit.Assume;
+import org.junit.Test;
+
+/**
+ * Checks the conversions and the cache of {@link ByteArrayToStringConverter}. With
+ * {@code -Dbenchmark=true}, also logs its cost per conversion next to that of the
+ * previous implementation, which resolved the character set by name on every call.
+ *
+ * @since 5.1
+ *
+ */
+public class ByteArrayToStringConverterBenchmarkTests {
+
+	private static final Log LOGGER = LogFactory.getLog(ByteArrayToStringConverterBenchmarkTests.class);
+
+	private static final int CONVERSIONS = 1000000;
+
+	private static final int ROUNDS = 5;
+
+	@Test
+	public void testConversions() {
+		ByteArrayToStringConverter converter = new ByteArrayToStringConverter();
+		assertEquals("", converter.convert(new byte[0]));
+		assertEquals("Hello world!", converter.convert("Hello world!".getBytes(StandardCharsets.UTF_8)));
+		assertEquals("H\u00e9llo \u4e16\u754c", converter.convert("H\u00e9llo \u4e16\u754c".getBytes(StandardCharsets.UTF_8)));
+
+		converter.setCharSet("ISO-8859-1");
+		assertEquals("ISO-8859-1", converter.getCharSet());
+		assertEquals("H\u00e9llo", converter.convert("H\u00e9llo".getBytes(StandardCharsets.ISO_8859_1)));
+
+		converter.setCharSet("UTF-16BE");
+		assertEquals("Hello", converter.convert("Hello".getBytes(StandardCharsets.UTF_16BE)));
+	}
+
+	@Test
+	public void testCache() {
+		ByteArrayToStringConverter converter = new ByteArrayToStringConverter();
+		converter.setCacheSize(100);
+		converter.setMaxCachedLength(8);
+		String first = converter.convert("stop".getBytes(StandardCharsets.UTF_8));
+		assertSame(first, converter.convert("stop".getBytes(StandardCharsets.UTF_8)));
+		assertEquals("start", converter.convert("start".getBytes(StandardCharsets.UTF_8)));
+		assertEquals("stop", converter.convert("stop".getBytes(StandardCharsets.UTF_8)));
+		String longer = converter.convert("too long to cache".getBytes(StandardCharsets.UTF_8));
+		assertEquals("too long to cache", longer);
+		assertEquals(longer, converter.convert("too long to cache".getBytes(StandardCharsets.UTF_8)));
+	}
+
+	@Test
+	public void testThroughput() throws UnsupportedEncodingException {
+		Assume.assumeTrue(Boolean.getBoolean("benchmark"));
+		byte[][] payloads = new byte[64][];
+		for (int i = 0; i < payloads.length; i++) {
+			payloads[i] = (i + "Hello world!").getBytes(StandardCharsets.UTF_8);
+		}
+		ByteArrayToStringConverter converter = new ByteArrayToStringConverter();
+		ByteArrayToStringConverter caching = new ByteArrayToStringConverter();
+		caching.setCacheSize(128);
+
+		long byName = Long.MAX_VALUE;
+		long resolved = Long.MAX_VALUE;
+		long cached = Long.MAX_VALUE;
+		int length = 0;
+		for (int round = 0; round < ROUNDS; round++) {
+			long start = System.nanoTime();
+			for (int i = 0; i < CONVERSIONS; i++) {
+				length += new String(payloads[i & 63], "UTF-8").length();
+			}
+			byName = Math.min(byName, System.nanoTime() - start);
+
+			start = System.nanoTime();
+			for (int i = 0; i < CONVERSIONS; i++) {
+				length += converter.convert(payloads[i & 63]).length();
+			}
+			resolved = Math.min(resolved, System.nanoTime() - start);
+
+			start = System.nanoTime();
+			for (int i = 0; i < CONVERSIONS; i++) {
+				length += caching.convert(payloads[i & 63]).length();
+			}
+			cached = Math.min(cached, System.nanoTime() - start);
+		}
+
+		LOGGER.info(String.format("new String(bytes, \"UTF-8\"): %.1f ns/conversion", (double) byName / CONVERSIONS));
+		LOGGER.info(String.format("ByteArrayToStringConverter: %.1f ns/conversion", (double) resolved / CONVERSIONS));
+		LOGGER.info(String.format("ByteArrayToStringConverter (cache): %.1f ns/conversion", (double) cached / CONVERSIONS));
+		assertTrue(length > 0); // consume the results
+	}
+
+}
@@ -0,0 +1,290 @@
+/*
+ * Copyright 2002-2026 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.integration.samples.tcpclientserver;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.junit.Assume;
+import org.junit.Test;
+
+/**
+ * Round-trip comparison of the byte-at-a-time {@link CustomSerializerDeserializer} and
+ * the bulk-reading {@link BufferedCustomSerializerDeserializer}. Both must produce the
+ * same orders, and the buffered one must make far fewer {@code read} calls on the stream
+ * (each one a potential system call on a socket). The throughput and allocation
+ * measurements only run with {@code -Dbenchmark=true}.
+ *
+ * @since 5.1
+ *
+ */
+public class CustomSerializerDeserializerBenchmarkTests {
+
+	private static final Log LOGGER = LogFactory.getLog(CustomSerializerDeserializerBenchmarkTests.class);
+
+	private static final int ORDERS = 100000;
+
+	private static final int ROUNDS = 5;
+
+	@Test
+	public void testReadCalls() throws IOException {
+		int count = 1000;
+		byte[] stream = orders(count);
+		CustomSerializerDeserializer original = new CustomSerializerDeserializer();
+		BufferedCustomSerializerDeserializer buffered = new BufferedCustomSerializerDeserializer();
+
+		CountingInputStream in = new CountingInputStream(new ByteArrayInputStream(stream));
+		for (int i = 0; i < count; i++) {
+			assertOrder(i, original.deserialize(in));
+		}
+		long originalReads = in.reads;
+
+		in = new CountingInputStream(new ByteArrayInputStream(stream));
+		for (int i = 0; i < count; i++) {
+			assertOrder(i, buffered.deserialize(in));
+		}
+		assertEquals(2L * count, in.reads);
+		assertTrue(originalReads > 10 * in.reads);
+	}
+
+	@Test
+	public void testRoundTripThroughput() throws IOException {
+		Assume.assumeTrue(Boolean.getBoolean("benchmark"));
+		byte[] stream = orders(ORDERS);
+		CustomSerializerDeserializer original = new CustomSerializerDeserializer();
+		BufferedCustomSerializerDeserializer buffered = new BufferedCustomSerializerDeserializer();
+
+		long originalReads = 0;
+		long bufferedReads = 0;
+		long originalNanos = Long.MAX_VALUE;
+		long bufferedNanos = Long.MAX_VALUE;
+		for (int round = 0; round < ROUNDS; round++) {
+			CountingInputStream in = new CountingInputStream(new ByteArrayInputStream(stream));
+			long start = System.nanoTime();
+			for (int i = 0; i < ORDERS; i++) {
+				assertOrder(i, original.deserialize(in));
+			}
+			originalNanos = Math.min(originalNanos, System.nanoTime() - start);
+			originalReads = in.reads;
+
+			in = new CountingInputStream(new ByteArrayInputStream(stream));
+			start = System.nanoTime();
+			for (int i = 0; i < ORDERS; i++) {
+				assertOrder(i, buffered.deserialize(in));
+			}
+			bufferedNanos = Math.min(bufferedNanos, System.nanoTime() - start);
+			bufferedReads = in.reads;
+		}
+
+		LOGGER.info(String.format("CustomSerializerDeserializer: %,d orders/s, %.1f reads/order",
+				ORDERS * 1000000000L / originalNanos, (double) originalReads / ORDERS));
+		LOGGER.info(String.format("BufferedCustomSerializerDeserializer: %,d orders/s, %.1f reads/order",
+				ORDERS * 1000000000L / bufferedNanos, (double) bufferedReads / ORDERS));
+	}
+
+	@Test
+	public void testBufferedSerializeMatchesOriginal() throws IOException {
+		byte[] expected = orders(1000);
+		BufferedCustomSerializerDeserializer buffered = new BufferedCustomSerializerDeserializer();
+		ByteArrayOutputStream single = new ByteArrayOutputStream();
+		List<CustomOrder> batch = new ArrayList<>();
+		for (int i = 0; i < 1000; i++) {
+			buffered.serialize(order(i), single);
+			batch.add(order(i));
+		}
+		assertArrayEquals(expected, single.toByteArray());
+
+		ByteArrayOutputStream batched = new ByteArrayOutputStream();
+		CountingOutputStream counting = new CountingOutputStream(batched);
+		buffered.serializeBatch(batch, counting);
+		assertArrayEquals(expected, batched.toByteArray());
+		assertEquals(1, counting.writes);
+		assertEquals(1, counting.flushes);
+	}
+
+	@Test
+	public void testNonAsciiRoundTrip() throws IOException {
+		BufferedCustomSerializerDeserializer buffered = new BufferedCustomSerializerDeserializer();
+		CustomOrder order = new CustomOrder(42, "SENDER0042");
+		order.setMessage("Gr\u00fc\u00dfe aus K\u00f6ln, \u4e16\u754c \u20ac");
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		buffered.serialize(order, out);
+		buffered.serializeBatch(Arrays.asList(order, order), out);
+		byte[] bytes = out.toByteArray();
+		int length = order.getMessage().getBytes(StandardCharsets.UTF_8).length;
+		assertEquals(String.format("%06d", length),
+				new String(bytes, 13, 6, StandardCharsets.US_ASCII));
+
+		ByteArrayInputStream in = new ByteArrayInputStream(bytes);
+		for (int i = 0; i < 3; i++) {
+			CustomOrder actual = buffered.deserialize(in);
+			assertEquals(42, actual.getNumber());
+			assertEquals("SENDER0042", actual.getSender());
+			assertEquals(order.getMessage(), actual.getMessage());
+		}
+		assertEquals(-1, in.read());
+	}
+
+	@Test
+	public void testSerializeAllocations() throws IOException {
+		Assume.assumeTrue(Boolean.getBoolean("benchmark"));
+		ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+		Assume.assumeTrue(threads instanceof com.sun.management.ThreadMXBean
+				&& ((com.sun.management.ThreadMXBean) threads).isThreadAllocatedMemorySupported());
+		com.sun.management.ThreadMXBean allocations = (com.sun.management.ThreadMXBean) threads;
+		allocations.setThreadAllocatedMemoryEnabled(true);
+		CustomOrder[] orders = new CustomOrder[1000];
+		for (int i = 0; i < orders.length; i++) {
+			orders[i] = order(i);
+		}
+		CustomSerializerDeserializer original = new CustomSerializerDeserializer();
+		BufferedCustomSerializerDeserializer buffered = new BufferedCustomSerializerDeserializer();
+
+		long originalBytes = Long.MAX_VALUE;
+		long bufferedBytes = Long.MAX_VALUE;
+		long originalWrites = 0;
+		long bufferedWrites = 0;
+		long threadId = Thread.currentThread().getId();
+		for (int round = 0; round < ROUNDS; round++) {
+			CountingOutputStream out = new CountingOutputStream(null);
+			long start = allocations.getThreadAllocatedBytes(threadId);
+			for (int i = 0; i < ORDERS; i++) {
+				original.serialize(orders[i % orders.length], out);
+			}
+			originalBytes = Math.min(originalBytes, allocations.getThreadAllocatedBytes(threadId) - start);
+			originalWrites = out.writes;
+
+			out = new CountingOutputStream(null);
+			start = allocations.getThreadAllocatedBytes(threadId);
+			for (int i = 0; i < ORDERS; i++) {
+				buffered.serialize(orders[i % orders.length], out);
+			}
+			bufferedBytes = Math.min(bufferedBytes, allocations.getThreadAllocatedBytes(threadId) - start);
+			bufferedWrites = out.writes;
+		}
+
+		LOGGER.info(String.format("CustomSerializerDeserializer: %.1f bytes allocated/order, %.1f writes/order",
+				(double) originalBytes / ORDERS, (double) originalWrites / ORDERS));
+		LOGGER.info(String.format("BufferedCustomSerializerDeserializer: %.1f bytes allocated/order, %.1f writes/order",
+				(double) bufferedBytes / ORDERS, (double) bufferedWrites / ORDERS));
+		assertEquals(ORDERS, bufferedWrites);
+		assertTrue(bufferedBytes < originalBytes);
+	}
+
+	private static byte[] orders(int count) throws IOException {
+		CustomSerializerDeserializer serializer = new CustomSerializerDeserializer();
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		for (int i = 0; i < count; i++) {
+			serializer.serialize(order(i), out);
+		}
+		return out.toByteArray();
+	}
+
+	private static CustomOrder order(int i) {
+		CustomOrder order = new CustomOrder(100 + i % 900, String.format("SENDER%04d", i % 10000));
+		order.setMessage("Order message number " + i + " with some padding to look like a real payload");
+		return order;
+	}
+
+	private static void assertOrder(int i, CustomOrder actual) {
+		CustomOrder expected = order(i);
+		assertEquals(expected.getNumber(), actual.getNumber());
+		assertEquals(expected.getSender(), actual.getSender());
+		assertEquals(expected.getMessage(), actual.getMessage());
+	}
+
+	private static final class CountingInputStream extends FilterInputStream {
+
+		private long reads;
+
+		CountingInputStream(InputStream in) {
+			super(in);
+		}
+
+		@Override
+		public int read() throws IOException {
+			this.reads++;
+			return super.read();
+		}
+
+		@Override
+		public int read(byte[] b, int off, int len) throws IOException {
+			this.reads++;
+			return super.read(b, off, len);
+		}
+
+	}
+
+	/**
+	 * Counts {@code write} and {@code flush} calls; discards the data when there is no
+	 * delegate.
+	 */
+	private static final class CountingOutputStream extends OutputStream {
+
+		private final OutputStream delegate;
+
+		private long writes;
+
+		private long flushes;
+
+		CountingOutputStream(OutputStream delegate) {
+			this.delegate = delegate;
+		}
+
+		@Override
+		public void write(int b) throws IOException {
+			this.writes++;
+			if (this.delegate != null) {
+				this.delegate.write(b);
+			}
+		}
+
+		@Override
+		public void write(byte[] b, int off, int len) throws IOException {
+			this.writes++;
+			if (this.delegate != null) {
+				this.delegate.write(b, off, len);
+			}
+		}
+
+		@Override
+		public void flush() throws IOException {
+			this.flushes++;
+			if (this.delegate != null) {
+				this.delegate.flush();
+			}
+		}
+
+	}
+
+}
@@ -0,0 +1,100 @@
+/*
+ * Copyright 2002-2026 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.integration.samples.tcpclientserver;
+
+import static org.junit.Assert.assertEquals;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.junit.Assume;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.integration.endpoint.AbstractEndpoint;
+import org.springframework.integration.ip.tcp.connection.AbstractClientConnectionFactory;
+import org.springframework.integration.ip.tcp.connection.AbstractServerConnectionFactory;
+import org.springframework.integration.ip.util.TestingUtilities;
+import org.springframework.integration.test.context.SpringIntegrationTest;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.ContextConfiguration;
+import org.springframework.test.context.junit4.SpringJUnit4ClassRunner;
+
+/**
+ * Same flow as {@link TcpClientServerDemoTest}, but with NIO connection factories on
+ * both sides and a pool of long-lived client connections. {@link #testLoad()} runs
+ * concurrent requests over the pool and compares them with the single-use setup, when
+ * the {@code benchmark} system property is set.
+ *
+ * @since 5.1
+ *
+ */
+@ContextConfiguration("/META-INF/spring/integration/tcpClientServerNio-context.xml")
+@RunWith(SpringJUnit4ClassRunner.class)
+@DirtiesContext
+@SpringIntegrationTest(noAutoStartup = "outGateway")
+public class TcpClientServerNioDemoTest {
+
+	private static final Log LOGGER = LogFactory.getLog(TcpClientServerNioDemoTest.class);
+
+	@Autowired
+	SimpleGateway gw;
+
+	@Autowired
+	AbstractServerConnectionFactory nioServer;
+
+	@Autowired
+	@Qualifier("nioClient")
+	AbstractClientConnectionFactory nioClient;
+
+	@Autowired
+	AbstractEndpoint outGateway;
+
+	@Before
+	public void setup() {
+		if (!this.outGateway.isRunning()) {
+			TestingUtilities.waitListening(this.nioServer, 10000L);
+			this.nioClient.setPort(this.nioServer.getPort());
+			this.outGateway.start();
+		}
+	}
+
+	@Test
+	public void testHappyDay() {
+		assertEquals("echo:Hello world!", gw.send("Hello world!"));
+	}
+
+	@Test
+	public void testFail() {
+		assertEquals("FAIL:Failure Demonstration", gw.send("FAIL"));
+	}
+
+	@Test
+	public void testLoad() throws Exception {
+		Assume.assumeTrue(Boolean.getBoolean("benchmark"));
+		LoadGenerator.Result nio = new LoadGenerator(this.gw, 8, 500).run();
+		LOGGER.info("nio pooled: " + nio);
+		assertEquals(0, nio.getErrors());
+
+		LoadGenerator.Result singleUse = LoadGenerator.run(Main.DEMO_CONTEXT, 8, 500);
+		LOGGER.info("single-use: " + singleUse);
+		assertEquals(0, singleUse.getErrors());
+	}
+
+}
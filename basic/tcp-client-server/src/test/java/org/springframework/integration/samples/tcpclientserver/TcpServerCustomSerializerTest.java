@@ -21,11 +21,17 @@ import static org.junit.Assert.fail;
 
 import java.io.BufferedReader;
 import java.io.BufferedWriter;
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.InputStreamReader;
 import java.io.OutputStreamWriter;
 import java.io.Writer;
+import java.io.InputStream;
+import java.io.OutputStream;
 import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
 
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
@@ -42,6 +48,7 @@ import org.springframework.messaging.Message;
 import org.springframework.messaging.MessageChannel;
 import org.springframework.messaging.SubscribableChannel;
 import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.annotation.DirtiesContext.ClassMode;
 import org.springframework.test.context.ContextConfiguration;
 import org.springframework.test.context.junit4.SpringJUnit4ClassRunner;
 
@@ -59,7 +66,7 @@ import org.springframework.test.context.junit4.SpringJUnit4ClassRunner;
  */
 @RunWith(SpringJUnit4ClassRunner.class)
 @ContextConfiguration("/META-INF/spring/integration/tcpServerCustomSerialize-context.xml")
-@DirtiesContext
+@DirtiesContext(classMode = ClassMode.AFTER_EACH_TEST_METHOD)
 public class TcpServerCustomSerializerTest {
 
 	private static final Log LOGGER = LogFactory.getLog(TcpServerCustomSerializerTest.class);
@@ -143,4 +150,40 @@ public class TcpServerCustomSerializerTest {
 		}
 	}
 
+	@Test
+	public void testBatchedReply() throws IOException {
+		SubscribableChannel channel = (SubscribableChannel) incomingServerChannel;
+		channel.subscribe(new AbstractReplyProducingMessageHandler() {
+
+			@Override
+			protected Object handleRequestMessage(Message<?> requestMessage) {
+				CustomOrder request = (CustomOrder) requestMessage.getPayload();
+				List<CustomOrder> replies = new ArrayList<>();
+				for (int i = 0; i < 3; i++) {
+					CustomOrder reply = new CustomOrder(request.getNumber() + i, request.getSender());
+					reply.setMessage("Part " + i + " of " + request.getMessage());
+					replies.add(reply);
+				}
+				return replies;
+			}
+		});
+
+		try (Socket socket = new Socket("localhost", this.serverConnectionFactory.getPort())) {
+			OutputStream out = socket.getOutputStream();
+			out.write("123PINGPONG02000006\u00dcbung".getBytes(StandardCharsets.UTF_8));
+			out.flush();
+			InputStream in = socket.getInputStream();
+			ByteArrayOutputStream replies = new ByteArrayOutputStream();
+			byte[] buffer = new byte[256];
+			int count;
+			while ((count = in.read(buffer)) != -1) {
+				replies.write(buffer, 0, count);
+			}
+			assertEquals("123PINGPONG02000016Part 0 of \u00dcbung"
+					+ "124PINGPONG02000016Part 1 of \u00dcbung"
+					+ "125PINGPONG02000016Part 2 of \u00dcbung",
+					new String(replies.toByteArray(), StandardCharsets.UTF_8));
+		}
+	}
+
 }
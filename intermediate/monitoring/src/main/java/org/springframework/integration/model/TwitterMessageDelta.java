@@ -0,0 +1,70 @@
+/*
+ * Copyright 2002-2026 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.integration.model;
+
+import java.util.List;
+
+/**
+ * The Twitter messages published since the previous event sent to a streaming
+ * client, plus some statistics.
+ */
+public class TwitterMessageDelta {
+
+	private final List<TwitterMessage> messages;
+
+	private final long sequence;
+
+	private final long skipped;
+
+	private final int capacity;
+
+	private final int clients;
+
+	public TwitterMessageDelta(List<TwitterMessage> messages, long sequence, long skipped, int capacity,
+			int clients) {
+		this.messages = messages;
+		this.sequence = sequence;
+		this.skipped = skipped;
+		this.capacity = capacity;
+		this.clients = clients;
+	}
+
+	/** The new messages, oldest first. */
+	public List<TwitterMessage> getMessages() {
+		return messages;
+	}
+
+	/** The sequence number of the last message published (the total published). */
+	public long getSequence() {
+		return sequence;
+	}
+
+	/** The number of messages coalesced away because the client fell behind. */
+	public long getSkipped() {
+		return skipped;
+	}
+
+	/** The maximum number of messages a client should display. */
+	public int getCapacity() {
+		return capacity;
+	}
+
+	/** The number of connected streaming clients. */
+	public int getClients() {
+		return clients;
+	}
+
+}
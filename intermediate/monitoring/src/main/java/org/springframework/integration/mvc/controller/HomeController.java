@@ -25,8 +25,12 @@ import org.springframework.integration.model.TwitterMessage;
 import org.springframework.integration.service.TwitterService;
 import org.springframework.stereotype.Controller;
 import org.springframework.ui.Model;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.ResponseBody;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import org.springintegration.service.impl.TwitterMessageStream;
 
 /**
  * Handles requests for the application home page.
@@ -39,6 +43,9 @@ public class HomeController {
 	@Autowired
 	private TwitterService twitterService;
 
+	@Autowired
+	private TwitterMessageStream twitterMessageStream;
+
 	/**
 	 * Simply selects the home view to render by returning its name.
 	 */
@@ -85,5 +92,15 @@ public class HomeController {
 		return "twitterMessages";
 
 	}
+
+	/**
+	 * Streams new Twitter messages (deltas only) as Server-Sent-Events; an alternative
+	 * to polling {@code /ajax}.
+	 */
+	@RequestMapping(value="/stream", produces="text/event-stream")
+	@ResponseBody
+	public SseEmitter stream(@RequestHeader(value="Last-Event-ID", required=false) Long lastEventId) {
+		return this.twitterMessageStream.subscribe(lastEventId);
+	}
 }
 
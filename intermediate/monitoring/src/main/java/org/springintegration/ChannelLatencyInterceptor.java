@@ -0,0 +1,100 @@
+/*
+ * Copyright 2002-2026 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springintegration;
+
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+
+import org.springframework.integration.support.context.NamedComponent;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageChannel;
+import org.springframework.messaging.support.ChannelInterceptor;
+
+/**
+ * A global channel interceptor that attributes latency to each channel, by bean name.
+ * <p>
+ * The execution time is measured from {@code preSend} to {@code afterSendCompletion};
+ * for subscribable channels this includes the downstream flow on the sending thread,
+ * so compare it with the {@link EndpointLatencyAdvice} figures to find the hot stage.
+ * For pollable channels the queue wait is measured on {@code postReceive} from the
+ * channel's {@code <int:message-history/>} entry (millisecond resolution).
+ *
+ * @since 5.1
+ *
+ */
+public class ChannelLatencyInterceptor implements ChannelInterceptor {
+
+	private final ThreadLocal<SendStack> sends = ThreadLocal.withInitial(SendStack::new);
+
+	private final LatencyAttributionRegistry registry;
+
+	public ChannelLatencyInterceptor(LatencyAttributionRegistry registry) {
+		this.registry = registry;
+	}
+
+	@Override
+	public Message<?> preSend(Message<?> message, MessageChannel channel) {
+		this.sends.get().push(System.nanoTime());
+		return message;
+	}
+
+	@Override
+	public void afterSendCompletion(Message<?> message, MessageChannel channel, boolean sent, Exception ex) {
+		long elapsed = System.nanoTime() - this.sends.get().pop();
+		this.registry.channel(channelName(channel)).recordExecution(elapsed);
+	}
+
+	@Override
+	public Message<?> postReceive(Message<?> message, MessageChannel channel) {
+		if (message != null) {
+			String name = channelName(channel);
+			long sentAt = LatencyAttributionRegistry.historyTimestamp(message, name);
+			if (sentAt > 0) {
+				this.registry.channel(name).recordQueueWait(
+						TimeUnit.MILLISECONDS.toNanos(System.currentTimeMillis() - sentAt));
+			}
+		}
+		return message;
+	}
+
+	private static String channelName(MessageChannel channel) {
+		String name = channel instanceof NamedComponent ? ((NamedComponent) channel).getComponentName() : null;
+		return name != null ? name : channel.toString();
+	}
+
+	/**
+	 * Start times of (possibly nested) sends on the current thread.
+	 */
+	private static class SendStack {
+
+		private long[] starts = new long[8];
+
+		private int depth;
+
+		void push(long start) {
+			if (this.depth == this.starts.length) {
+				this.starts = Arrays.copyOf(this.starts, this.depth * 2);
+			}
+			this.starts[this.depth++] = start;
+		}
+
+		long pop() {
+			return this.starts[--this.depth];
+		}
+
+	}
+
+}
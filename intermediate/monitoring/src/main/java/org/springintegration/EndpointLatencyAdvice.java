@@ -0,0 +1,89 @@
+/*
+ * Copyright 2002-2026 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springintegration;
+
+import java.util.Properties;
+import java.util.concurrent.TimeUnit;
+
+import org.springframework.integration.handler.AbstractReplyProducingMessageHandler;
+import org.springframework.integration.handler.advice.AbstractRequestHandlerAdvice;
+import org.springframework.integration.history.MessageHistory;
+import org.springframework.integration.support.context.NamedComponent;
+import org.springframework.messaging.Message;
+
+/**
+ * A request handler advice that attributes latency to each endpoint, by bean name;
+ * the {@link EndpointLatencyBeanPostProcessor} adds it to every reply-producing
+ * endpoint.
+ * <p>
+ * The execution time covers only the handler itself (not the sending of its reply).
+ * The queue wait is the time between the message arriving at the endpoint's input
+ * channel and the handler being invoked, taken from the
+ * {@code <int:message-history/>} entries (millisecond resolution).
+ *
+ * @since 5.1
+ *
+ */
+public class EndpointLatencyAdvice extends AbstractRequestHandlerAdvice {
+
+	private final LatencyAttributionRegistry registry;
+
+	public EndpointLatencyAdvice(LatencyAttributionRegistry registry) {
+		this.registry = registry;
+	}
+
+	@Override
+	protected Object doInvoke(ExecutionCallback callback, Object target, Message<?> message) throws Exception {
+		Object handler = target instanceof AbstractReplyProducingMessageHandler.RequestHandler
+				? ((AbstractReplyProducingMessageHandler.RequestHandler) target).getAdvisedHandler()
+				: target;
+		String name = handler instanceof NamedComponent ? ((NamedComponent) handler).getComponentName() : null;
+		StageLatency stage = this.registry.endpoint(name != null ? name : handler.getClass().getSimpleName());
+		long wait = queueWait(message, name);
+		if (wait >= 0) {
+			stage.recordQueueWait(TimeUnit.MILLISECONDS.toNanos(wait));
+		}
+		long start = System.nanoTime();
+		try {
+			return callback.execute();
+		}
+		finally {
+			stage.recordExecution(System.nanoTime() - start);
+		}
+	}
+
+	/**
+	 * The handler writes its own history entry before invoking the advice, so the
+	 * wait is the difference between it and the preceding (input channel) entry.
+	 */
+	private static long queueWait(Message<?> message, String name) {
+		MessageHistory history = MessageHistory.read(message);
+		if (history == null || history.isEmpty()) {
+			return -1;
+		}
+		Properties last = history.get(history.size() - 1);
+		long lastTimestamp = Long.parseLong(last.getProperty(MessageHistory.TIMESTAMP_PROPERTY));
+		if (name != null && name.equals(last.getProperty(MessageHistory.NAME_PROPERTY))) {
+			if (history.size() < 2) {
+				return -1;
+			}
+			Properties input = history.get(history.size() - 2);
+			return lastTimestamp - Long.parseLong(input.getProperty(MessageHistory.TIMESTAMP_PROPERTY));
+		}
+		return System.currentTimeMillis() - lastTimestamp;
+	}
+
+}
@@ -0,0 +1,95 @@
+/*
+ * Copyright 2002-2026 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springintegration;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.aopalliance.aop.Advice;
+
+import org.springframework.beans.BeansException;
+import org.springframework.beans.DirectFieldAccessor;
+import org.springframework.beans.factory.BeanFactory;
+import org.springframework.beans.factory.BeanFactoryAware;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.integration.handler.AbstractReplyProducingMessageHandler;
+
+/**
+ * Adds the {@link EndpointLatencyAdvice} to the advice chain of every
+ * {@link AbstractReplyProducingMessageHandler}, so that endpoints whose XML element
+ * has no {@code <request-handler-advice-chain/>}, such as
+ * {@code <int:header-enricher/>} and {@code <int:control-bus/>}, are attributed too.
+ * Advices already in a chain are kept.
+ * <p>
+ * Handlers that produce no reply (outbound channel adapters) have no advice chain;
+ * their time is part of the {@code send()} time the {@link ChannelLatencyInterceptor}
+ * records for their input channel.
+ *
+ * @since 5.1
+ *
+ */
+public class EndpointLatencyBeanPostProcessor implements BeanPostProcessor, BeanFactoryAware {
+
+	private final String adviceBeanName;
+
+	private BeanFactory beanFactory;
+
+	private EndpointLatencyAdvice advice;
+
+	/**
+	 * @param adviceBeanName the name of the {@link EndpointLatencyAdvice} bean; it is
+	 * looked up lazily, when the first handler is processed.
+	 */
+	public EndpointLatencyBeanPostProcessor(String adviceBeanName) {
+		this.adviceBeanName = adviceBeanName;
+	}
+
+	@Override
+	public void setBeanFactory(BeanFactory beanFactory) {
+		this.beanFactory = beanFactory;
+	}
+
+	@Override
+	public Object postProcessAfterInitialization(Object bean, String beanName) throws BeansException {
+		if (bean instanceof AbstractReplyProducingMessageHandler) {
+			AbstractReplyProducingMessageHandler handler = (AbstractReplyProducingMessageHandler) bean;
+			List<Advice> chain = adviceChain(handler);
+			if (chain.stream().noneMatch(EndpointLatencyAdvice.class::isInstance)) {
+				chain.add(advice());
+				handler.setAdviceChain(chain);
+			}
+		}
+		return bean;
+	}
+
+	/*
+	 * The handler has no getter for its chain, which the parsers may already have set;
+	 * setAdviceChain() replaces it, so read it to append to it.
+	 */
+	@SuppressWarnings("unchecked")
+	private static List<Advice> adviceChain(AbstractReplyProducingMessageHandler handler) {
+		List<Advice> chain = (List<Advice>) new DirectFieldAccessor(handler).getPropertyValue("adviceChain");
+		return chain != null ? new ArrayList<>(chain) : new ArrayList<>();
+	}
+
+	private EndpointLatencyAdvice advice() {
+		if (this.advice == null) {
+			this.advice = this.beanFactory.getBean(this.adviceBeanName, EndpointLatencyAdvice.class);
+		}
+		return this.advice;
+	}
+
+}
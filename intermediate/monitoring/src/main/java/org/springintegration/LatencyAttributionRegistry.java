@@ -0,0 +1,142 @@
+/*
+ * Copyright 2002-2026 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springintegration;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Properties;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import javax.management.MalformedObjectNameException;
+import javax.management.ObjectName;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+import org.springframework.integration.history.MessageHistory;
+import org.springframework.jmx.export.MBeanExportOperations;
+import org.springframework.jmx.export.annotation.ManagedOperation;
+import org.springframework.jmx.export.annotation.ManagedResource;
+import org.springframework.messaging.Message;
+
+/**
+ * Collects the {@link StageLatency} of every channel and endpoint, keyed by bean
+ * name, as recorded by the {@link ChannelLatencyInterceptor} and
+ * {@link EndpointLatencyAdvice}. Each stage is exported as an MBean
+ * ({@code <domain>:type=StageLatency,stage=channel|endpoint,name=<beanName>}) when it
+ * is first seen, if an {@link MBeanExportOperations} is provided.
+ *
+ * @since 5.1
+ *
+ */
+@ManagedResource
+public class LatencyAttributionRegistry {
+
+	public static final String CHANNEL = "channel";
+
+	public static final String ENDPOINT = "endpoint";
+
+	private static final Log logger = LogFactory.getLog(LatencyAttributionRegistry.class);
+
+	private final ConcurrentMap<String, StageLatency> channels = new ConcurrentHashMap<>();
+
+	private final ConcurrentMap<String, StageLatency> endpoints = new ConcurrentHashMap<>();
+
+	private String domain = "spring.application";
+
+	private MBeanExportOperations mbeanExporter;
+
+	public void setDomain(String domain) {
+		this.domain = domain;
+	}
+
+	public void setMbeanExporter(MBeanExportOperations mbeanExporter) {
+		this.mbeanExporter = mbeanExporter;
+	}
+
+	StageLatency channel(String name) {
+		StageLatency stage = this.channels.get(name);
+		return stage != null ? stage : this.channels.computeIfAbsent(name, n -> register(n, CHANNEL));
+	}
+
+	StageLatency endpoint(String name) {
+		StageLatency stage = this.endpoints.get(name);
+		return stage != null ? stage : this.endpoints.computeIfAbsent(name, n -> register(n, ENDPOINT));
+	}
+
+	private StageLatency register(String name, String stageType) {
+		StageLatency stage = new StageLatency(name, stageType);
+		if (this.mbeanExporter != null) {
+			try {
+				this.mbeanExporter.registerManagedResource(stage, new ObjectName(this.domain
+						+ ":type=StageLatency,stage=" + stageType + ",name=" + ObjectName.quote(name)));
+			}
+			catch (MalformedObjectNameException | RuntimeException e) {
+				logger.error("Failed to export latency MBean for " + stageType + " " + name, e);
+			}
+		}
+		return stage;
+	}
+
+	/**
+	 * @return the statistics of all stages, slowest (p99 queue wait plus execution)
+	 * first.
+	 */
+	@ManagedOperation
+	public String[] getHotStages() {
+		List<StageLatency> stages = new ArrayList<>(this.channels.values());
+		stages.addAll(this.endpoints.values());
+		stages.sort(Comparator.comparingLong(LatencyAttributionRegistry::p99).reversed());
+		String[] data = new String[stages.size()];
+		for (int i = 0; i < data.length; i++) {
+			data[i] = stages.get(i).toString();
+		}
+		return data;
+	}
+
+	@ManagedOperation
+	public void reset() {
+		this.channels.values().forEach(StageLatency::reset);
+		this.endpoints.values().forEach(StageLatency::reset);
+	}
+
+	private static long p99(StageLatency stage) {
+		return stage.queueWaitSnapshot().getValueAtPercentile(99)
+				+ stage.executionSnapshot().getValueAtPercentile(99);
+	}
+
+	/**
+	 * @param message the message.
+	 * @param componentName the component's bean name.
+	 * @return the timestamp of the latest {@link MessageHistory} entry for the
+	 * component, or -1.
+	 */
+	static long historyTimestamp(Message<?> message, String componentName) {
+		MessageHistory history = MessageHistory.read(message);
+		if (history != null) {
+			for (int i = history.size() - 1; i >= 0; i--) {
+				Properties entry = history.get(i);
+				if (componentName.equals(entry.getProperty(MessageHistory.NAME_PROPERTY))) {
+					return Long.parseLong(entry.getProperty(MessageHistory.TIMESTAMP_PROPERTY));
+				}
+			}
+		}
+		return -1;
+	}
+
+}
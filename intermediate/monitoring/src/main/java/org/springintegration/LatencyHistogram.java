@@ -0,0 +1,245 @@
+/*
+ * Copyright 2002-2026 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springintegration;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * A lock-free, allocation-free latency recorder using HDR-style log-bucketed counts.
+ * <p>
+ * Values (nanoseconds) are placed in buckets with 7 bits of sub-bucket resolution,
+ * giving a worst-case relative error of about 1.6%. Recording is striped by thread
+ * so that concurrent writers rarely touch the same cache lines; readers
+ * {@link #drainInto(Snapshot) drain} or {@link #copyInto(Snapshot) copy} the stripes
+ * into a {@link Snapshot}, which is only ever used on the reader side.
+ *
+ * @since 5.1
+ *
+ */
+public class LatencyHistogram {
+
+	private static final int SUB_BUCKET_BITS = 7;
+
+	private static final int SUB_BUCKET_COUNT = 1 << SUB_BUCKET_BITS;
+
+	private static final int SUB_BUCKET_HALF = SUB_BUCKET_COUNT >> 1;
+
+	/**
+	 * Values above 2^36 ns (~68 seconds) are clamped.
+	 */
+	private static final int MAX_MAGNITUDE = 36;
+
+	private static final long MAX_TRACKABLE = (1L << MAX_MAGNITUDE) - 1;
+
+	static final int BUCKET_COUNT = bucketIndex(MAX_TRACKABLE) + 1;
+
+	private static final int SUM = BUCKET_COUNT;
+
+	private static final int MAX = BUCKET_COUNT + 1;
+
+	private static final int LAST = BUCKET_COUNT + 2;
+
+	private static final int LAST_TIMESTAMP = BUCKET_COUNT + 3;
+
+	private static final int SLOTS = BUCKET_COUNT + 4;
+
+	private final AtomicLongArray[] stripes;
+
+	private final int mask;
+
+	public LatencyHistogram() {
+		this(Runtime.getRuntime().availableProcessors());
+	}
+
+	/**
+	 * @param concurrency the expected number of concurrent writers; rounded up to a
+	 * power of two (max 16) to determine the number of stripes.
+	 */
+	public LatencyHistogram(int concurrency) {
+		int stripeCount = 1;
+		while (stripeCount < concurrency && stripeCount < 16) {
+			stripeCount <<= 1;
+		}
+		this.stripes = new AtomicLongArray[stripeCount];
+		for (int i = 0; i < stripeCount; i++) {
+			this.stripes[i] = new AtomicLongArray(SLOTS);
+		}
+		this.mask = stripeCount - 1;
+	}
+
+	/**
+	 * Record an elapsed time.
+	 * @param nanos the elapsed time in nanoseconds.
+	 */
+	public void record(long nanos) {
+		long value = nanos < 0 ? 0 : Math.min(nanos, MAX_TRACKABLE);
+		AtomicLongArray stripe = this.stripes[(int) Thread.currentThread().getId() & this.mask];
+		stripe.incrementAndGet(bucketIndex(value));
+		stripe.addAndGet(SUM, value);
+		long max = stripe.get(MAX);
+		while (value > max && !stripe.compareAndSet(MAX, max, value)) {
+			max = stripe.get(MAX);
+		}
+		stripe.lazySet(LAST, value);
+		stripe.lazySet(LAST_TIMESTAMP, System.nanoTime());
+	}
+
+	/**
+	 * Move all recorded values into the snapshot, leaving this histogram empty.
+	 * Values recorded concurrently are either included or left for the next drain;
+	 * none are lost.
+	 * @param snapshot the snapshot to add to.
+	 */
+	public void drainInto(Snapshot snapshot) {
+		for (AtomicLongArray stripe : this.stripes) {
+			for (int i = 0; i < BUCKET_COUNT; i++) {
+				if (stripe.get(i) != 0) {
+					long count = stripe.getAndSet(i, 0);
+					snapshot.counts[i] += count;
+					snapshot.count += count;
+				}
+			}
+			snapshot.sum += stripe.getAndSet(SUM, 0);
+			snapshot.max = Math.max(snapshot.max, stripe.getAndSet(MAX, 0));
+		}
+	}
+
+	/**
+	 * Add all recorded values into the snapshot without resetting this histogram.
+	 * @param snapshot the snapshot to add to.
+	 */
+	public void copyInto(Snapshot snapshot) {
+		for (AtomicLongArray stripe : this.stripes) {
+			for (int i = 0; i < BUCKET_COUNT; i++) {
+				long count = stripe.get(i);
+				snapshot.counts[i] += count;
+				snapshot.count += count;
+			}
+			snapshot.sum += stripe.get(SUM);
+			snapshot.max = Math.max(snapshot.max, stripe.get(MAX));
+		}
+	}
+
+	/**
+	 * @return the most recently recorded value, in nanoseconds.
+	 */
+	public long getLastValue() {
+		long last = 0;
+		long lastTimestamp = Long.MIN_VALUE;
+		for (AtomicLongArray stripe : this.stripes) {
+			long timestamp = stripe.get(LAST_TIMESTAMP);
+			if (timestamp != 0 && (lastTimestamp == Long.MIN_VALUE || timestamp - lastTimestamp > 0)) {
+				lastTimestamp = timestamp;
+				last = stripe.get(LAST);
+			}
+		}
+		return last;
+	}
+
+	static int bucketIndex(long value) {
+		if (value < SUB_BUCKET_COUNT) {
+			return (int) value;
+		}
+		int shift = 63 - Long.numberOfLeadingZeros(value) - (SUB_BUCKET_BITS - 1);
+		return (shift + 1) * SUB_BUCKET_HALF + (int) (value >>> shift) - SUB_BUCKET_HALF;
+	}
+
+	static long highestEquivalentValue(int index) {
+		if (index < SUB_BUCKET_COUNT) {
+			return index;
+		}
+		int shift = index / SUB_BUCKET_HALF - 1;
+		long subBucket = index % SUB_BUCKET_HALF + SUB_BUCKET_HALF;
+		return ((subBucket + 1) << shift) - 1;
+	}
+
+	/**
+	 * A point-in-time, mutable copy of histogram data; not thread-safe.
+	 */
+	public static class Snapshot {
+
+		private final long[] counts = new long[BUCKET_COUNT];
+
+		private long count;
+
+		private long sum;
+
+		private long max;
+
+		public long getCount() {
+			return this.count;
+		}
+
+		public long getMax() {
+			return this.max;
+		}
+
+		public double getMean() {
+			return this.count == 0 ? 0 : (double) this.sum / this.count;
+		}
+
+		/**
+		 * @param percentile the percentile (0-100).
+		 * @return the highest value equivalent to the value at the percentile, in
+		 * nanoseconds, capped at the recorded maximum.
+		 */
+		public long getValueAtPercentile(double percentile) {
+			if (this.count == 0) {
+				return 0;
+			}
+			long target = Math.max(1, (long) Math.ceil(Math.min(percentile, 100.0) / 100.0 * this.count));
+			long seen = 0;
+			for (int i = 0; i < BUCKET_COUNT; i++) {
+				seen += this.counts[i];
+				if (seen >= target) {
+					return Math.min(highestEquivalentValue(i), this.max);
+				}
+			}
+			return this.max;
+		}
+
+		public void add(Snapshot other) {
+			for (int i = 0; i < BUCKET_COUNT; i++) {
+				this.counts[i] += other.counts[i];
+			}
+			this.count += other.count;
+			this.sum += other.sum;
+			this.max = Math.max(this.max, other.max);
+		}
+
+		public void reset() {
+			Arrays.fill(this.counts, 0);
+			this.count = 0;
+			this.sum = 0;
+			this.max = 0;
+		}
+
+		@Override
+		public String toString() {
+			return String.format("[count=%d, mean=%.3f, p50=%.3f, p90=%.3f, p99=%.3f, p99.9=%.3f, max=%.3f] (ms)",
+					this.count, this.getMean() / 1e6, millis(getValueAtPercentile(50)),
+					millis(getValueAtPercentile(90)), millis(getValueAtPercentile(99)),
+					millis(getValueAtPercentile(99.9)), millis(this.max));
+		}
+
+		private static double millis(long nanos) {
+			return nanos / 1e6;
+		}
+
+	}
+
+}
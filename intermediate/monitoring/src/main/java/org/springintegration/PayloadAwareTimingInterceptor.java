@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2018 the original author or authors.
+ * Copyright 2002-2026 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -15,32 +15,63 @@
  */
 package org.springintegration;
 
+import java.util.Arrays;
 import java.util.Map;
 import java.util.Map.Entry;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ScheduledFuture;
 
+import org.springframework.beans.factory.BeanFactory;
+import org.springframework.beans.factory.BeanFactoryAware;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.integration.context.IntegrationContextUtils;
 import org.springframework.jmx.export.annotation.ManagedOperation;
 import org.springframework.jmx.export.annotation.ManagedResource;
 import org.springframework.messaging.Message;
 import org.springframework.messaging.MessageChannel;
 import org.springframework.messaging.support.ChannelInterceptor;
-import org.springframework.util.StopWatch;
+import org.springframework.scheduling.TaskScheduler;
+import org.springframework.util.Assert;
 
 /**
  * A sample channel interceptor that illustrates a technique to capture elapsed times
  * based on message payload types.
+ * <p>
+ * Samples are taken with {@link System#nanoTime()} and recorded in a striped,
+ * log-bucketed {@link LatencyHistogram} per payload type; the send path neither
+ * allocates nor locks. The samples of each thread are kept on a stack, so a send made
+ * while handling another one (e.g. by a downstream direct channel) is timed
+ * separately and does not disturb the outer sample.
+ * <p>
+ * Every {@link #setInterval(long) interval} the recorded values are rolled into the
+ * cumulative statistics and a ring of the most recent {@link #setWindows(int) windows},
+ * from which percentiles are reported.
  *
  * @author Gary Russell
  * @since 2.2
  *
  */
 @ManagedResource
-public class PayloadAwareTimingInterceptor implements ChannelInterceptor {
+public class PayloadAwareTimingInterceptor implements ChannelInterceptor, BeanFactoryAware, InitializingBean,
+		DisposableBean {
 
-	private final ThreadLocal<StopWatchHolder> stopWatchHolder = new ThreadLocal<PayloadAwareTimingInterceptor.StopWatchHolder>();
+	private final ThreadLocal<SampleStack> samples = ThreadLocal.withInitial(SampleStack::new);
 
 	private final Map<Class<?>, Stats> statsMap = new ConcurrentHashMap<Class<?>, PayloadAwareTimingInterceptor.Stats>();
 
+	private final Stats defaultStats;
+
+	private long interval = 10000;
+
+	private int windows = 6;
+
+	private TaskScheduler taskScheduler;
+
+	private BeanFactory beanFactory;
+
+	private volatile ScheduledFuture<?> rollFuture;
+
 	/**
 	 *
 	 * @param classes An array of types for which statistics will be captured; if
@@ -53,112 +84,310 @@ public class PayloadAwareTimingInterceptor implements ChannelInterceptor {
 		if (!this.statsMap.containsKey(Object.class)) {
 			this.statsMap.put(Object.class, new Stats());
 		}
+		this.defaultStats = this.statsMap.get(Object.class);
+	}
+
+	/**
+	 * @param interval the rolling interval in milliseconds (default 10000).
+	 */
+	public void setInterval(long interval) {
+		Assert.isTrue(interval > 0, "'interval' must be > 0");
+		this.interval = interval;
+	}
+
+	/**
+	 * @param windows the number of intervals retained for the rolling statistics
+	 * (default 6).
+	 */
+	public void setWindows(int windows) {
+		Assert.isTrue(windows > 0, "'windows' must be > 0");
+		this.windows = windows;
+	}
+
+	/**
+	 * @param taskScheduler the scheduler used to roll intervals; defaults to the
+	 * integration {@code taskScheduler} bean.
+	 */
+	public void setTaskScheduler(TaskScheduler taskScheduler) {
+		this.taskScheduler = taskScheduler;
+	}
+
+	@Override
+	public void setBeanFactory(BeanFactory beanFactory) {
+		this.beanFactory = beanFactory;
+	}
+
+	@Override
+	public void afterPropertiesSet() {
+		for (Stats stats : this.statsMap.values()) {
+			stats.initWindows(this.windows);
+		}
+		if (this.taskScheduler == null && this.beanFactory != null) {
+			this.taskScheduler = IntegrationContextUtils.getTaskScheduler(this.beanFactory);
+		}
+		if (this.taskScheduler != null) {
+			this.rollFuture = this.taskScheduler.scheduleAtFixedRate(this::roll, this.interval);
+		}
+	}
+
+	@Override
+	public void destroy() {
+		if (this.rollFuture != null) {
+			this.rollFuture.cancel(false);
+		}
 	}
 
 	@Override
 	public Message<?> preSend(Message<?> message, MessageChannel channel) {
-		StopWatch stopWatch = new StopWatch();
-		stopWatch.start();
-		this.stopWatchHolder.set(new StopWatchHolder(stopWatch, message.getPayload().getClass()));
+		Stats stats = this.statsMap.get(message.getPayload().getClass());
+		Sample sample = this.samples.get().push();
+		sample.stats = stats == null ? this.defaultStats : stats;
+		sample.start = System.nanoTime();
 		return message;
 	}
 
 	@Override
 	public void postSend(Message<?> message, MessageChannel channel, boolean sent) {
-		StopWatchHolder holder = this.stopWatchHolder.get();
-		if (holder != null) {
-			holder.getStopWatch().stop();
-			Stats stats = this.statsMap.get(holder.getType());
-			if (stats == null) {
-				stats = this.statsMap.get(Object.class);
-			}
-			stats.add(holder.getStopWatch().getLastTaskTimeMillis());
+		Sample sample = this.samples.get().peek();
+		if (sample != null) {
+			sample.stats.histogram.record(System.nanoTime() - sample.start);
+		}
+	}
+
+	/*
+	 * Always called (unlike postSend) once preSend has returned, so the sample is popped
+	 * even if the send failed.
+	 */
+	@Override
+	public void afterSendCompletion(Message<?> message, MessageChannel channel, boolean sent, Exception ex) {
+		this.samples.get().pop();
+	}
+
+	/**
+	 * Roll the current interval into the cumulative and rolling statistics.
+	 */
+	@ManagedOperation
+	public synchronized void roll() {
+		for (Stats stats : this.statsMap.values()) {
+			stats.roll();
 		}
 	}
 
+	/**
+	 * @return the cumulative statistics for each type.
+	 */
 	@ManagedOperation
-	public String[] getSummary() {
+	public synchronized String[] getSummary() {
 		String[] data = new String[this.statsMap.size()];
 		int i = 0;
 		for (Entry<Class<?>, Stats> entry : this.statsMap.entrySet()) {
-			data[i++] = entry.getKey().getName() + " " + entry.getValue().toString();
+			data[i++] = entry.getKey().getName() + " " + entry.getValue().cumulative();
 		}
 		return data;
 	}
 
+	/**
+	 * @return the statistics for the most recent {@link #setWindows(int) windows}
+	 * intervals for each type.
+	 */
 	@ManagedOperation
-	public long getCount(String className) throws Exception {
-		return this.statsMap.get(Class.forName(className)).getCount();
+	public synchronized String[] getRollingSummary() {
+		String[] data = new String[this.statsMap.size()];
+		int i = 0;
+		for (Entry<Class<?>, Stats> entry : this.statsMap.entrySet()) {
+			data[i++] = entry.getKey().getName() + " " + entry.getValue().rolling();
+		}
+		return data;
+	}
+
+	/**
+	 * @return the statistics for the last completed interval for each type.
+	 */
+	@ManagedOperation
+	public synchronized String[] getIntervalSummary() {
+		String[] data = new String[this.statsMap.size()];
+		int i = 0;
+		for (Entry<Class<?>, Stats> entry : this.statsMap.entrySet()) {
+			data[i++] = entry.getKey().getName() + " " + entry.getValue().lastInterval();
+		}
+		return data;
+	}
+
+	/**
+	 * Return the cumulative statistics and reset them, so the next call reports only
+	 * activity since this one.
+	 * @return the cumulative statistics for each type.
+	 */
+	@ManagedOperation
+	public synchronized String[] getAndResetSummary() {
+		roll();
+		String[] data = getSummary();
+		reset();
+		return data;
+	}
+
+	/**
+	 * Discard all statistics.
+	 */
+	@ManagedOperation
+	public synchronized void reset() {
+		for (Stats stats : this.statsMap.values()) {
+			stats.reset();
+		}
+	}
+
+	@ManagedOperation
+	public synchronized long getCount(String className) throws Exception {
+		return stats(className).cumulative().getCount();
 	}
 
 	@ManagedOperation
 	public long getLastTime(String className) throws Exception {
-		return this.statsMap.get(Class.forName(className)).getLastTime();
+		return stats(className).histogram.getLastValue() / 1000000;
 	}
 
 	@ManagedOperation
-	public float getAverage(String className) throws Exception {
-		return this.statsMap.get(Class.forName(className)).getAverage();
+	public synchronized float getAverage(String className) throws Exception {
+		return (float) (stats(className).cumulative().getMean() / 1e6);
 	}
 
-	private class StopWatchHolder {
+	/**
+	 * @param className the payload type.
+	 * @param percentile the percentile (0-100), e.g. 99.9.
+	 * @return the cumulative value at the percentile in milliseconds.
+	 * @throws Exception if the class cannot be loaded.
+	 */
+	@ManagedOperation
+	public synchronized double getPercentile(String className, double percentile) throws Exception {
+		return stats(className).cumulative().getValueAtPercentile(percentile) / 1e6;
+	}
 
-		private final StopWatch stopWatch;
+	/**
+	 * @param className the payload type.
+	 * @param percentile the percentile (0-100), e.g. 99.9.
+	 * @return the value at the percentile over the rolling windows in milliseconds.
+	 * @throws Exception if the class cannot be loaded.
+	 */
+	@ManagedOperation
+	public synchronized double getRollingPercentile(String className, double percentile) throws Exception {
+		return stats(className).rolling().getValueAtPercentile(percentile) / 1e6;
+	}
 
-		private final Class<?> type;
+	@ManagedOperation
+	public synchronized double getMax(String className) throws Exception {
+		return stats(className).cumulative().getMax() / 1e6;
+	}
+
+	private Stats stats(String className) throws ClassNotFoundException {
+		Stats stats = this.statsMap.get(Class.forName(className));
+		Assert.notNull(stats, () -> "No statistics are captured for " + className);
+		return stats;
+	}
+
+	/**
+	 * Per-thread, reusable state between {@code preSend} and {@code postSend}.
+	 */
+	private static class Sample {
+
+		private Stats stats;
+
+		private long start;
+
+	}
+
+	/**
+	 * The samples of the sends in progress on a thread, innermost last; the samples are
+	 * reused, so only a deeper nesting than seen before allocates.
+	 */
+	private static class SampleStack {
 
-		/**
-		 * @param stopWatch
-		 * @param type
-		 */
-		public StopWatchHolder(StopWatch stopWatch, Class<?> type) {
-			this.stopWatch = stopWatch;
-			this.type = type;
+		private Sample[] samples = new Sample[4];
+
+		private int depth;
+
+		Sample push() {
+			if (this.depth == this.samples.length) {
+				this.samples = Arrays.copyOf(this.samples, this.depth * 2);
+			}
+			Sample sample = this.samples[this.depth];
+			if (sample == null) {
+				sample = new Sample();
+				this.samples[this.depth] = sample;
+			}
+			this.depth++;
+			return sample;
 		}
 
-		public StopWatch getStopWatch() {
-			return stopWatch;
+		Sample peek() {
+			return this.depth == 0 ? null : this.samples[this.depth - 1];
 		}
 
-		public Class<?> getType() {
-			return type;
+		void pop() {
+			if (this.depth > 0) {
+				this.samples[--this.depth].stats = null;
+			}
 		}
+
 	}
 
-	private class Stats {
+	/**
+	 * Per-type statistics; the histogram is written lock-free by senders; everything
+	 * else is only accessed by readers, under the interceptor's monitor.
+	 */
+	private static class Stats {
 
-		private long count;
+		private final LatencyHistogram histogram = new LatencyHistogram();
 
-		private long totalTime;
+		private final LatencyHistogram.Snapshot cumulative = new LatencyHistogram.Snapshot();
 
-		private float average;
+		private LatencyHistogram.Snapshot[] windows = { new LatencyHistogram.Snapshot() };
 
-		private long lastTime;
+		private int current;
 
-		public long getCount() {
-			return count;
+		void initWindows(int count) {
+			this.windows = new LatencyHistogram.Snapshot[count];
+			for (int i = 0; i < count; i++) {
+				this.windows[i] = new LatencyHistogram.Snapshot();
+			}
+			this.current = 0;
 		}
 
-		public long getLastTime() {
-			return lastTime;
+		void roll() {
+			this.current = (this.current + 1) % this.windows.length;
+			LatencyHistogram.Snapshot window = this.windows[this.current];
+			window.reset();
+			this.histogram.drainInto(window);
+			this.cumulative.add(window);
 		}
 
-		public float getAverage() {
-			return average;
+		LatencyHistogram.Snapshot cumulative() {
+			LatencyHistogram.Snapshot snapshot = new LatencyHistogram.Snapshot();
+			snapshot.add(this.cumulative);
+			this.histogram.copyInto(snapshot);
+			return snapshot;
 		}
 
-		public synchronized void add(long time) {
-			this.count++;
-			this.lastTime = time;
-			this.totalTime += time;
-			this.average = (float) this.totalTime / (float) this.count;
+		LatencyHistogram.Snapshot rolling() {
+			LatencyHistogram.Snapshot snapshot = new LatencyHistogram.Snapshot();
+			for (LatencyHistogram.Snapshot window : this.windows) {
+				snapshot.add(window);
+			}
+			this.histogram.copyInto(snapshot);
+			return snapshot;
 		}
 
-		@Override
-		public String toString() {
-			return "Stats [count=" + count + ", average=" + average + ", lastTime=" + lastTime + "]";
+		LatencyHistogram.Snapshot lastInterval() {
+			return this.windows[this.current];
 		}
 
+		void reset() {
+			this.histogram.drainInto(new LatencyHistogram.Snapshot());
+			this.cumulative.reset();
+			for (LatencyHistogram.Snapshot window : this.windows) {
+				window.reset();
+			}
+		}
 
 	}
+
 }
@@ -0,0 +1,118 @@
+/*
+ * Copyright 2002-2026 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springintegration;
+
+import org.springframework.jmx.export.annotation.ManagedAttribute;
+import org.springframework.jmx.export.annotation.ManagedOperation;
+import org.springframework.jmx.export.annotation.ManagedResource;
+
+/**
+ * Latency attributed to a single stage (channel or endpoint) of a flow; exported as
+ * an MBean by the {@link LatencyAttributionRegistry}.
+ * <p>
+ * The queue wait is the time a message spent between arriving at a stage and being
+ * picked up (zero for subscribable channels); the execution time is the time spent
+ * in the channel's {@code send()} or in the endpoint's handler.
+ *
+ * @since 5.1
+ *
+ */
+@ManagedResource
+public class StageLatency {
+
+	private final String name;
+
+	private final String stageType;
+
+	private final LatencyHistogram queueWait = new LatencyHistogram();
+
+	private final LatencyHistogram execution = new LatencyHistogram();
+
+	StageLatency(String name, String stageType) {
+		this.name = name;
+		this.stageType = stageType;
+	}
+
+	@ManagedAttribute
+	public String getName() {
+		return this.name;
+	}
+
+	@ManagedAttribute
+	public String getStageType() {
+		return this.stageType;
+	}
+
+	void recordQueueWait(long nanos) {
+		this.queueWait.record(nanos);
+	}
+
+	void recordExecution(long nanos) {
+		this.execution.record(nanos);
+	}
+
+	@ManagedAttribute
+	public String getQueueWait() {
+		return queueWaitSnapshot().toString();
+	}
+
+	@ManagedAttribute
+	public String getExecution() {
+		return executionSnapshot().toString();
+	}
+
+	/**
+	 * @param percentile the percentile (0-100).
+	 * @return the queue wait at the percentile in milliseconds.
+	 */
+	@ManagedOperation
+	public double getQueueWaitPercentile(double percentile) {
+		return queueWaitSnapshot().getValueAtPercentile(percentile) / 1e6;
+	}
+
+	/**
+	 * @param percentile the percentile (0-100).
+	 * @return the execution time at the percentile in milliseconds.
+	 */
+	@ManagedOperation
+	public double getExecutionPercentile(double percentile) {
+		return executionSnapshot().getValueAtPercentile(percentile) / 1e6;
+	}
+
+	@ManagedOperation
+	public void reset() {
+		this.queueWait.drainInto(new LatencyHistogram.Snapshot());
+		this.execution.drainInto(new LatencyHistogram.Snapshot());
+	}
+
+	LatencyHistogram.Snapshot queueWaitSnapshot() {
+		LatencyHistogram.Snapshot snapshot = new LatencyHistogram.Snapshot();
+		this.queueWait.copyInto(snapshot);
+		return snapshot;
+	}
+
+	LatencyHistogram.Snapshot executionSnapshot() {
+		LatencyHistogram.Snapshot snapshot = new LatencyHistogram.Snapshot();
+		this.execution.copyInto(snapshot);
+		return snapshot;
+	}
+
+	@Override
+	public String toString() {
+		return this.stageType + " " + this.name + " queueWait=" + getQueueWait() + " execution=" + getExecution();
+	}
+
+}
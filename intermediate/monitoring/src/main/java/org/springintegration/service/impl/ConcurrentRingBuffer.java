@@ -0,0 +1,138 @@
+/*
+ * Copyright 2002-2026 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springintegration.service.impl;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+import org.springframework.util.Assert;
+
+/**
+ * A bounded, lock-free buffer retaining the most recently added items.
+ * <p>
+ * Writers claim a sequence number and publish the item into the slot for that
+ * sequence, unless a newer item is already there (a writer delayed for a whole lap of
+ * the buffer must not replace it); readers take snapshots without locking or blocking
+ * writers, skipping any slot that has not yet been published or has already been
+ * overwritten.
+ *
+ * @param <E> the item type.
+ *
+ * @since 5.1
+ *
+ */
+public class ConcurrentRingBuffer<E> {
+
+	private final AtomicReferenceArray<Slot<E>> slots;
+
+	private final int capacity;
+
+	private final AtomicLong sequence = new AtomicLong();
+
+	public ConcurrentRingBuffer(int capacity) {
+		Assert.isTrue(capacity > 0, "'capacity' must be > 0");
+		this.capacity = capacity;
+		this.slots = new AtomicReferenceArray<>(capacity);
+	}
+
+	public int getCapacity() {
+		return this.capacity;
+	}
+
+	/**
+	 * Add an item, overwriting the oldest if the buffer is full.
+	 * @param item the item.
+	 * @return the sequence number of the item (starting at 1).
+	 */
+	public long add(E item) {
+		long seq = this.sequence.incrementAndGet();
+		int index = (int) (seq % this.capacity);
+		Slot<E> slot = new Slot<>(seq, item);
+		Slot<E> current;
+		do {
+			current = this.slots.get(index);
+			if (current != null && current.seq > seq) {
+				break; // overwritten by a later lap already; the item is too old to retain
+			}
+		}
+		while (!this.slots.compareAndSet(index, current, slot));
+		return seq;
+	}
+
+	/**
+	 * @return the sequence number of the most recently added item (0 if none).
+	 */
+	public long getSequence() {
+		return this.sequence.get();
+	}
+
+	/**
+	 * @return the retained items, oldest first.
+	 */
+	public List<E> snapshot() {
+		return snapshotSince(0);
+	}
+
+	/**
+	 * @param sequence a sequence number previously returned by {@link #add(Object)}
+	 * or {@link #getSequence()}.
+	 * @return the retained items added after that sequence, oldest first.
+	 */
+	public List<E> snapshotSince(long sequence) {
+		return snapshotSince(sequence, this.sequence.get());
+	}
+
+	/**
+	 * @param sequence a sequence number previously returned by {@link #add(Object)}
+	 * or {@link #getSequence()}.
+	 * @param upTo the last sequence number to include; typically obtained from
+	 * {@link #getSequence()} so the caller knows exactly where the snapshot ends.
+	 * @return the retained items added after {@code sequence} up to and including
+	 * {@code upTo}, oldest first.
+	 */
+	public List<E> snapshotSince(long sequence, long upTo) {
+		long last = Math.min(upTo, this.sequence.get());
+		long first = Math.max(sequence, last - this.capacity) + 1;
+		if (first > last) {
+			return Collections.emptyList();
+		}
+		List<E> items = new ArrayList<>((int) (last - first + 1));
+		for (long seq = first; seq <= last; seq++) {
+			Slot<E> slot = this.slots.get((int) (seq % this.capacity));
+			if (slot != null && slot.seq == seq) {
+				items.add(slot.item);
+			}
+		}
+		return Collections.unmodifiableList(items);
+	}
+
+	private static final class Slot<E> {
+
+		private final long seq;
+
+		private final E item;
+
+		Slot(long seq, E item) {
+			this.seq = seq;
+			this.item = item;
+		}
+
+	}
+
+}
@@ -16,8 +16,7 @@
 package org.springintegration.service.impl;
 
 import java.util.Collection;
-import java.util.LinkedHashMap;
-import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
 
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Qualifier;
@@ -43,13 +42,13 @@ import org.springframework.stereotype.Service;
 @ManagedResource
 public class DefaultTwitterService implements TwitterService {
 
-	/** Holds a collection of polled Twitter messages */
-	private Map<Long, TwitterMessage> twitterMessages;
+	/** Holds the most recently polled Twitter messages */
+	private volatile ConcurrentRingBuffer<TwitterMessage> twitterMessages = new ConcurrentRingBuffer<>(10);
 
 	@Autowired
 	private MessageChannel controlBusChannel;
 
-	private long totalTweets;
+	private final LongAdder totalTweets = new LongAdder();
 
 	@Autowired(required=false)
 	@Qualifier("dummyTwitter")
@@ -57,39 +56,31 @@ public class DefaultTwitterService implements TwitterService {
 
 	@Autowired(required=false)
 	private IntegrationMBeanExporter exporter;
+
 	/**
-	 * Constructor that initializes the 'twitterMessages' Map as a simple LRU
-	 * cache. @See http://blogs.oracle.com/swinger/entry/collections_trick_i_lru_cache
+	 * @param capacity the number of recent messages to retain (default 10).
 	 */
-	public DefaultTwitterService() {
-
-		twitterMessages = new LinkedHashMap<Long, TwitterMessage>( 10, 0.75f, true ) {
-
-			private static final long serialVersionUID = 1L;
-
-			@Override
-			protected boolean removeEldestEntry( java.util.Map.Entry<Long, TwitterMessage> entry ) {
-				return size() > 10;
-			}
-
-		};
-
+	public void setCapacity(int capacity) {
+		this.twitterMessages = new ConcurrentRingBuffer<>(capacity);
 	}
 
-
 	/**
 	 * @return the totalTweets
 	 */
 	@ManagedMetric(metricType=MetricType.COUNTER)
 	public long getTotalTweets() {
-		return totalTweets;
+		return this.totalTweets.sum();
 	}
 
 
-	/** {@inheritDoc} */
+	/**
+	 * {@inheritDoc}
+	 * <p>The returned collection is an immutable snapshot, oldest first; it is taken
+	 * without locking so it never blocks (or is corrupted by) the poller thread.
+	 */
 	@Override
 	public Collection<TwitterMessage> getTwitterMessages() {
-		return twitterMessages.values();
+		return this.twitterMessages.snapshot();
 	}
 
 	/** {@inheritDoc} */
@@ -130,20 +121,23 @@ public class DefaultTwitterService implements TwitterService {
 
 
 	/**
-	 * Called by Spring Integration to populate a simple LRU cache.
+	 * Called by Spring Integration to add a message to the ring buffer of recent messages.
 	 *
 	 * @param tweet - The Spring Integration tweet object.
+	 * @return the message that was added, for streaming to clients.
 	 * @throws InterruptedException
 	 */
-	public void addTwitterMessages(Tweet tweet) throws Exception {
+	public TwitterMessage addTwitterMessages(Tweet tweet) throws Exception {
 		if ("SomeUser".equals(tweet.getFromUser())) {
 			Thread.sleep(2000);
 		}
-		this.totalTweets++;
-		this.twitterMessages.put(tweet.getCreatedAt().getTime(), new TwitterMessage(tweet.getCreatedAt(),
+		this.totalTweets.increment();
+		TwitterMessage twitterMessage = new TwitterMessage(tweet.getCreatedAt(),
 				tweet.getText(),
 				tweet.getFromUser(),
-				tweet.getProfileImageUrl()));
+				tweet.getProfileImageUrl());
+		this.twitterMessages.add(twitterMessage);
+		return twitterMessage;
 	}
 
 }
@@ -0,0 +1,298 @@
+/*
+ * Copyright 2002-2026 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springintegration.service.impl;
+
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.http.MediaType;
+import org.springframework.integration.model.TwitterMessage;
+import org.springframework.integration.model.TwitterMessageDelta;
+import org.springframework.jmx.export.annotation.ManagedMetric;
+import org.springframework.jmx.export.annotation.ManagedResource;
+import org.springframework.jmx.support.MetricType;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+/**
+ * Pushes new {@link TwitterMessage}s to Server-Sent-Events clients as deltas.
+ * <p>
+ * Each client has at most one send in progress on the (bounded) executor; messages
+ * published while a send is in progress are coalesced into the next event. A client's
+ * position in the ring buffer is its queue: one that falls more than {@code capacity}
+ * messages behind receives only the most recent ones, with the number skipped
+ * reported in the event. A send that blocks (a client that stops reading) for longer
+ * than the {@link #setSendTimeout(long) send timeout} completes the client's emitter
+ * and interrupts the send, and no more sends are started for it, so slow clients do
+ * not accumulate on the executor.
+ *
+ * @since 5.1
+ *
+ */
+@ManagedResource
+public class TwitterMessageStream implements InitializingBean, DisposableBean {
+
+	private static final Log logger = LogFactory.getLog(TwitterMessageStream.class);
+
+	private final ConcurrentRingBuffer<TwitterMessage> messages;
+
+	private final Set<Client> clients = ConcurrentHashMap.newKeySet();
+
+	private final ExecutorService executor;
+
+	private final ScheduledExecutorService watchdog =
+			Executors.newSingleThreadScheduledExecutor(new CustomizableThreadFactory("tweet-stream-watchdog-"));
+
+	private final LongAdder eventsSent = new LongAdder();
+
+	private final LongAdder messagesSkipped = new LongAdder();
+
+	private final LongAdder clientsTimedOut = new LongAdder();
+
+	private long timeout = 30 * 60 * 1000L;
+
+	private long sendTimeout = 10000;
+
+	public TwitterMessageStream() {
+		this(10, 4);
+	}
+
+	/**
+	 * @param capacity the number of recent messages retained for (re)connecting and
+	 * lagging clients.
+	 * @param poolSize the number of threads used to write to clients.
+	 */
+	public TwitterMessageStream(int capacity, int poolSize) {
+		this.messages = new ConcurrentRingBuffer<>(capacity);
+		this.executor = Executors.newFixedThreadPool(poolSize, new CustomizableThreadFactory("tweet-stream-"));
+	}
+
+	/**
+	 * @param timeout the emitter timeout in milliseconds, after which browsers
+	 * reconnect (default 30 minutes).
+	 */
+	public void setTimeout(long timeout) {
+		this.timeout = timeout;
+	}
+
+	/**
+	 * @param sendTimeout the milliseconds a send to a client may block before the
+	 * client is removed (default 10000; 0 for no limit).
+	 */
+	public void setSendTimeout(long sendTimeout) {
+		this.sendTimeout = sendTimeout;
+	}
+
+	@Override
+	public void afterPropertiesSet() {
+		if (this.sendTimeout > 0) {
+			long period = Math.max(1, this.sendTimeout / 2);
+			this.watchdog.scheduleWithFixedDelay(this::removeBlockedClients, period, period, TimeUnit.MILLISECONDS);
+		}
+	}
+
+	@ManagedMetric(metricType = MetricType.GAUGE)
+	public int getClientCount() {
+		return this.clients.size();
+	}
+
+	@ManagedMetric(metricType = MetricType.COUNTER)
+	public long getEventsSent() {
+		return this.eventsSent.sum();
+	}
+
+	@ManagedMetric(metricType = MetricType.COUNTER)
+	public long getMessagesSkipped() {
+		return this.messagesSkipped.sum();
+	}
+
+	@ManagedMetric(metricType = MetricType.COUNTER)
+	public long getClientsTimedOut() {
+		return this.clientsTimedOut.sum();
+	}
+
+	/**
+	 * Called by Spring Integration for each new message.
+	 * @param message the message.
+	 */
+	public void publish(TwitterMessage message) {
+		this.messages.add(message);
+		for (Client client : this.clients) {
+			schedule(client);
+		}
+	}
+
+	/**
+	 * Register a new client.
+	 * @param lastEventId the last event id received by a reconnecting client, or
+	 * null to receive all retained messages.
+	 * @return the emitter.
+	 */
+	public SseEmitter subscribe(Long lastEventId) {
+		SseEmitter emitter = new SseEmitter(this.timeout);
+		long lastSequence = lastEventId == null || lastEventId > this.messages.getSequence() ? 0 : lastEventId;
+		Client client = new Client(emitter, lastSequence);
+		emitter.onCompletion(() -> this.clients.remove(client));
+		emitter.onTimeout(() -> this.clients.remove(client));
+		emitter.onError(e -> this.clients.remove(client));
+		this.clients.add(client);
+		schedule(client);
+		return emitter;
+	}
+
+	private void schedule(Client client) {
+		if (client.pending.getAndIncrement() == 0) {
+			this.executor.execute(() -> drain(client));
+		}
+	}
+
+	private void drain(Client client) {
+		int pending = client.pending.get();
+		while (true) {
+			long upTo = this.messages.getSequence();
+			if (upTo > client.lastSequence || !client.initialized) {
+				List<TwitterMessage> delta = this.messages.snapshotSince(client.lastSequence, upTo);
+				long skipped = Math.max(0, upTo - client.lastSequence - delta.size());
+				if (!client.startSend()) {
+					return;
+				}
+				try {
+					client.emitter.send(SseEmitter.event()
+							.id(Long.toString(upTo))
+							.data(new TwitterMessageDelta(delta, upTo, skipped, this.messages.getCapacity(),
+									this.clients.size()), MediaType.APPLICATION_JSON));
+				}
+				catch (Exception e) {
+					if (logger.isDebugEnabled()) {
+						logger.debug("Removing stream client", e);
+					}
+					remove(client, e);
+					return;
+				}
+				finally {
+					client.endSend();
+				}
+				client.lastSequence = upTo;
+				client.initialized = true;
+				this.eventsSent.increment();
+				this.messagesSkipped.add(skipped);
+			}
+			pending = client.pending.addAndGet(-pending);
+			if (pending == 0) {
+				return;
+			}
+		}
+	}
+
+	/*
+	 * Runs on the watchdog thread.
+	 */
+	private void removeBlockedClients() {
+		long now = System.currentTimeMillis();
+		for (Client client : this.clients) {
+			long started = client.sendStarted;
+			if (started > 0 && now - started > this.sendTimeout) {
+				logger.warn("Removing stream client; a send has been blocked for " + (now - started) + "ms");
+				this.clientsTimedOut.increment();
+				remove(client, new TimeoutException("Send blocked for more than " + this.sendTimeout + "ms"));
+			}
+		}
+	}
+
+	private void remove(Client client, Exception reason) {
+		if (this.clients.remove(client)) {
+			client.close();
+			client.emitter.completeWithError(reason);
+		}
+	}
+
+	@Override
+	public void destroy() {
+		this.watchdog.shutdownNow();
+		for (Client client : this.clients) {
+			client.emitter.complete();
+		}
+		this.clients.clear();
+		this.executor.shutdownNow();
+	}
+
+	private static final class Client {
+
+		private final SseEmitter emitter;
+
+		private final AtomicInteger pending = new AtomicInteger();
+
+		private volatile long lastSequence;
+
+		private volatile boolean initialized;
+
+		private volatile long sendStarted;
+
+		private Thread sender;
+
+		private boolean closed;
+
+		Client(SseEmitter emitter, long lastSequence) {
+			this.emitter = emitter;
+			this.lastSequence = lastSequence;
+		}
+
+		synchronized boolean startSend() {
+			if (this.closed) {
+				return false;
+			}
+			this.sender = Thread.currentThread();
+			this.sendStarted = System.currentTimeMillis();
+			return true;
+		}
+
+		/*
+		 * Clears an interrupt from close(), so it cannot leak to the executor's next task.
+		 */
+		synchronized void endSend() {
+			this.sender = null;
+			this.sendStarted = 0;
+			Thread.interrupted();
+		}
+
+		/*
+		 * Interrupts a blocked send, if the container's writes are interruptible;
+		 * otherwise the write ends at the container's write timeout, but no more sends
+		 * are started for the client.
+		 */
+		synchronized void close() {
+			this.closed = true;
+			if (this.sender != null) {
+				this.sender.interrupt();
+			}
+		}
+
+	}
+
+}
@@ -39,19 +39,54 @@
 
         <script type="text/javascript">
 
-            $.PeriodicalUpdater('<c:url value="/ajax"/>', {
-                        method: 'get', // method; get or post
-                        data: '', // array of values to be passed to the page - e.g. {name: "John", greeting: "hello"}
-                        minTimeout: 5000, // starting value for the timeout in milliseconds
-                        maxTimeout: 20000, // maximum length of time between requests
-                        multiplier: 2, // the amount to expand the timeout by if the response hasn't changed (up to maxTimeout)
-                        type: 'text', // response type - text, xml, json, etc. See $.ajax config options
-                        maxCalls: 0, // maximum number of calls. 0 = no limit.
-                        autoStop: 0 // automatically stop requests after this many returns of the same data. 0 = disabled.
-                    }, function(remoteData, success, xhr, handle) {
-                        $('#content').html(remoteData);
+            // Stream deltas with Server-Sent-Events where the browser supports it; use
+            // ?mode=poll to fall back to re-rendering the whole list periodically.
+            var usePolling = !window.EventSource || /[?&]mode=poll\b/.test(window.location.search);
 
-                });
+            if (usePolling) {
+                $.PeriodicalUpdater('<c:url value="/ajax"/>', {
+                            method: 'get', // method; get or post
+                            data: '', // array of values to be passed to the page - e.g. {name: "John", greeting: "hello"}
+                            minTimeout: 5000, // starting value for the timeout in milliseconds
+                            maxTimeout: 20000, // maximum length of time between requests
+                            multiplier: 2, // the amount to expand the timeout by if the response hasn't changed (up to maxTimeout)
+                            type: 'text', // response type - text, xml, json, etc. See $.ajax config options
+                            maxCalls: 0, // maximum number of calls. 0 = no limit.
+                            autoStop: 0 // automatically stop requests after this many returns of the same data. 0 = disabled.
+                        }, function(remoteData, success, xhr, handle) {
+                            $('#content').html(remoteData);
+
+                    });
+            }
+            else {
+                var stream = new EventSource('<c:url value="/stream"/>');
+                var first = true;
+                stream.onmessage = function(event) {
+                    var delta = $.parseJSON(event.data);
+                    var list = $('#content ul.twitterMessages');
+                    // the first event carries all retained messages, replacing the rendered list
+                    if (delta.messages.length > 0 && (first || list.children('li').length == 0)) {
+                        list.empty();
+                    }
+                    first = false;
+                    $.each(delta.messages, function(i, message) {
+                        $('<li/>')
+                            .append($('<img/>').attr({
+                                alt: message.fromUser,
+                                title: message.fromUser,
+                                src: message.profileImageUrl,
+                                width: 48,
+                                height: 48
+                            }))
+                            .append(document.createTextNode(' ' + message.text))
+                            .appendTo(list);
+                    });
+                    var excess = list.children('li').length - delta.capacity;
+                    if (excess > 0) {
+                        list.children('li').slice(0, excess).remove();
+                    }
+                };
+            }
 
             $(function() {
                 $('#startTwitter').bind('click', function() {
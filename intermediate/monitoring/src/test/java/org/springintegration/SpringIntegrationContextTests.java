@@ -0,0 +1,82 @@
+/*
+ * Copyright 2002-2026 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springintegration;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.integration.endpoint.AbstractEndpoint;
+import org.springframework.integration.support.MessageBuilder;
+import org.springframework.messaging.MessageChannel;
+import org.springframework.test.context.ContextConfiguration;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.context.junit4.SpringJUnit4ClassRunner;
+
+/**
+ * Verifies that the sample's integration context, including the latency attribution
+ * beans and advised endpoints, loads, and that endpoints without an advice chain
+ * element are attributed too.
+ *
+ * @since 5.1
+ *
+ */
+@RunWith(SpringJUnit4ClassRunner.class)
+@ContextConfiguration("classpath:META-INF/spring/integration/spring-integration-context.xml")
+@TestPropertySource(properties = "flow.metrics.port=0")
+public class SpringIntegrationContextTests {
+
+	@Autowired
+	private LatencyAttributionRegistry latencyAttribution;
+
+	@Autowired
+	private EndpointLatencyAdvice endpointLatencyAdvice;
+
+	@Autowired
+	private AbstractEndpoint controlBus;
+
+	@Autowired
+	private AbstractEndpoint addFooHeader;
+
+	@Autowired
+	private MessageChannel controlBusChannel;
+
+	@Test
+	public void contextLoads() {
+		assertNotNull(this.latencyAttribution);
+		assertNotNull(this.endpointLatencyAdvice);
+		assertNotNull(this.controlBus);
+		assertNotNull(this.addFooHeader);
+	}
+
+	@Test
+	public void testEndpointsWithoutAdviceChainElementAreAttributed() throws InterruptedException {
+		this.controlBusChannel.send(MessageBuilder.withPayload("@twitter.start()").build());
+		assertEquals(1, this.latencyAttribution.endpoint("controlBus").executionSnapshot().getCount());
+
+		// the pollers send a tweet through the header-enricher as soon as they start
+		StageLatency addFooHeader = this.latencyAttribution.endpoint("addFooHeader");
+		for (int i = 0; i < 100 && addFooHeader.executionSnapshot().getCount() == 0; i++) {
+			Thread.sleep(100);
+		}
+		assertTrue(addFooHeader.executionSnapshot().getCount() > 0);
+	}
+
+}
@@ -0,0 +1,130 @@
+/*
+ * Copyright 2002-2026 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.integration.samples.tcpclientserver;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+import org.springframework.beans.factory.BeanFactory;
+import org.springframework.beans.factory.BeanFactoryAware;
+import org.springframework.integration.MessageTimeoutException;
+import org.springframework.integration.support.channel.BeanFactoryChannelResolver;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageChannel;
+import org.springframework.messaging.core.DestinationResolver;
+import org.springframework.messaging.support.ErrorMessage;
+import org.springframework.util.Assert;
+
+/**
+ * Base class for components that correlate the requests and replies of a pair of
+ * collaborating channel adapters and send each reply straight to the reply channel of
+ * its request. A request with no reply within the reply timeout is completed with a
+ * {@link MessageTimeoutException}; timeouts are kept in a {@link HashedWheelTimer}
+ * rather than in a message store.
+ *
+ * @since 5.1
+ *
+ */
+public abstract class AbstractReplyCorrelator implements BeanFactoryAware {
+
+	protected final Log logger = LogFactory.getLog(getClass());
+
+	private final LongAdder timeouts = new LongAdder();
+
+	private final LongAdder lateReplies = new LongAdder();
+
+	private final HashedWheelTimer timer;
+
+	private volatile long replyTimeout = 1000;
+
+	private DestinationResolver<MessageChannel> channelResolver;
+
+	protected AbstractReplyCorrelator(HashedWheelTimer timer) {
+		Assert.notNull(timer, "'timer' cannot be null");
+		this.timer = timer;
+	}
+
+	/**
+	 * @param replyTimeout the time in milliseconds to wait for a reply; default 1000.
+	 */
+	public void setReplyTimeout(long replyTimeout) {
+		this.replyTimeout = replyTimeout;
+	}
+
+	@Override
+	public void setBeanFactory(BeanFactory beanFactory) {
+		this.channelResolver = new BeanFactoryChannelResolver(beanFactory);
+	}
+
+	/**
+	 * @return the number of requests waiting for a reply.
+	 */
+	public abstract int getInFlightCount();
+
+	public long getTimeoutCount() {
+		return this.timeouts.sum();
+	}
+
+	public long getLateReplyCount() {
+		return this.lateReplies.sum();
+	}
+
+	protected HashedWheelTimer.Timeout scheduleTimeout(Runnable task) {
+		return this.timer.schedule(task, this.replyTimeout, TimeUnit.MILLISECONDS);
+	}
+
+	/**
+	 * Complete a request that timed out with a {@link MessageTimeoutException}.
+	 * @param request the request.
+	 */
+	protected void timedOut(Message<?> request) {
+		this.timeouts.increment();
+		sendReply(request, new ErrorMessage(new MessageTimeoutException(request,
+				"No response received for " + request.getPayload())));
+	}
+
+	/**
+	 * Record a reply with no matching request.
+	 * @param correlationKey the key of the reply.
+	 */
+	protected void lateReply(Object correlationKey) {
+		this.lateReplies.increment();
+		if (this.logger.isDebugEnabled()) {
+			this.logger.debug("No in-flight request for reply " + correlationKey + "; it probably timed out");
+		}
+	}
+
+	protected void sendReply(Message<?> request, Message<?> reply) {
+		Object replyChannel = request.getHeaders().getReplyChannel();
+		MessageChannel channel = null;
+		if (replyChannel instanceof MessageChannel) {
+			channel = (MessageChannel) replyChannel;
+		}
+		else if (replyChannel instanceof String && this.channelResolver != null) {
+			channel = this.channelResolver.resolveDestination((String) replyChannel);
+		}
+		if (channel == null) {
+			this.logger.warn("No reply channel for request " + request + "; dropping " + reply);
+		}
+		else if (!channel.send(reply) && this.logger.isDebugEnabled()) {
+			this.logger.debug("Reply channel did not accept the reply for request " + request);
+		}
+	}
+
+}
@@ -15,13 +15,18 @@
  */
 package org.springframework.integration.samples.tcpclientserver;
 
-import java.io.UnsupportedEncodingException;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
 
 import org.springframework.core.convert.converter.Converter;
 
 /**
  * Simple byte array to String converter; allowing the character set
  * to be specified.
+ * <p>
+ * The character set is resolved once, when it is set. Payloads that are pure ASCII
+ * are copied without going through a decoder when the character set is ASCII
+ * compatible (UTF-8, ISO-8859-1, US-ASCII).
  *
  * @author Gary Russell
  * @since 2.1
@@ -29,29 +34,41 @@ import org.springframework.core.convert.converter.Converter;
  */
 public class ByteArrayToStringConverter implements Converter<byte[], String> {
 
-	private String charSet = "UTF-8";
+	private volatile Charset charset = StandardCharsets.UTF_8;
+
+	private volatile boolean asciiCompatible = true;
 
 	public String convert(byte[] bytes) {
-		try {
-			return new String(bytes, this.charSet);
-		} catch (UnsupportedEncodingException e) {
-			e.printStackTrace();
-			return new String(bytes);
+		if (this.asciiCompatible && isAscii(bytes)) {
+			return new String(bytes, StandardCharsets.ISO_8859_1);
+		}
+		return new String(bytes, this.charset);
+	}
+
+	private static boolean isAscii(byte[] bytes) {
+		int bits = 0;
+		for (byte b : bytes) {
+			bits |= b;
 		}
+		return bits >= 0;
 	}
 
 	/**
 	 * @return the charSet
 	 */
 	public String getCharSet() {
-		return charSet;
+		return this.charset.name();
 	}
 
 	/**
 	 * @param charSet the charSet to set
 	 */
 	public void setCharSet(String charSet) {
-		this.charSet = charSet;
+		Charset charset = Charset.forName(charSet);
+		this.asciiCompatible = StandardCharsets.UTF_8.equals(charset)
+				|| StandardCharsets.ISO_8859_1.equals(charset)
+				|| StandardCharsets.US_ASCII.equals(charset);
+		this.charset = charset;
 	}
 
 }
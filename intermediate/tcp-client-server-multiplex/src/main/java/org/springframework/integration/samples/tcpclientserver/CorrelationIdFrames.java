@@ -0,0 +1,96 @@
+/*
+ * Copyright 2002-2026 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.integration.samples.tcpclientserver;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+import org.springframework.integration.support.MessageBuilder;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.handler.annotation.Header;
+
+/**
+ * Frames used with a {@link PipelinedRequestCorrelator}: a 4 byte (big endian)
+ * correlation id followed by the payload. The static methods build and take apart
+ * frames; an instance is used on the server side to move the id into the
+ * {@value #CORRELATION_ID} header before the service is called, and back into the
+ * frame of the reply.
+ *
+ * @since 5.1
+ *
+ */
+public class CorrelationIdFrames {
+
+	public static final String CORRELATION_ID = "frameCorrelationId";
+
+	public static final int ID_LENGTH = 4;
+
+	/**
+	 * Strip the correlation id from an inbound frame into the {@value #CORRELATION_ID}
+	 * header.
+	 * @param frame the frame.
+	 * @return the message with the payload only.
+	 */
+	public Message<byte[]> unwrap(Message<byte[]> frame) {
+		return MessageBuilder.withPayload(payload(frame.getPayload()))
+				.copyHeaders(frame.getHeaders())
+				.setHeader(CORRELATION_ID, correlationId(frame.getPayload()))
+				.build();
+	}
+
+	/**
+	 * Prefix a reply with the correlation id of its request.
+	 * @param payload the reply payload.
+	 * @param correlationId the correlation id.
+	 * @return the frame.
+	 */
+	public byte[] wrap(Object payload, @Header(CORRELATION_ID) int correlationId) {
+		return frame(correlationId, bytes(payload));
+	}
+
+	public static byte[] frame(int correlationId, byte[] payload) {
+		byte[] frame = new byte[ID_LENGTH + payload.length];
+		frame[0] = (byte) (correlationId >>> 24);
+		frame[1] = (byte) (correlationId >>> 16);
+		frame[2] = (byte) (correlationId >>> 8);
+		frame[3] = (byte) correlationId;
+		System.arraycopy(payload, 0, frame, ID_LENGTH, payload.length);
+		return frame;
+	}
+
+	public static int correlationId(byte[] frame) {
+		if (frame.length < ID_LENGTH) {
+			throw new IllegalArgumentException("Frame too short for a correlation id: " + frame.length);
+		}
+		return (frame[0] & 0xff) << 24 | (frame[1] & 0xff) << 16 | (frame[2] & 0xff) << 8 | (frame[3] & 0xff);
+	}
+
+	public static byte[] payload(byte[] frame) {
+		return Arrays.copyOfRange(frame, ID_LENGTH, frame.length);
+	}
+
+	static byte[] bytes(Object payload) {
+		if (payload instanceof byte[]) {
+			return (byte[]) payload;
+		}
+		else if (payload instanceof String) {
+			return ((String) payload).getBytes(StandardCharsets.UTF_8);
+		}
+		throw new IllegalArgumentException("Only byte[] and String payloads are supported, got: "
+				+ payload.getClass().getName());
+	}
+
+}
@@ -15,8 +15,6 @@
  */
 package org.springframework.integration.samples.tcpclientserver;
 
-import org.springframework.integration.MessageTimeoutException;
-
 /**
  * Simple service that receives data in a byte array,
  * converts it to a String and appends it with ':echo'.
@@ -38,13 +36,4 @@ public class EchoService {
 		return input + ":echo";
 	}
 
-	public MessageTimeoutException noResponse(String input) {
-		if ("TIMEOUT_TEST_THROW".equals(input)) {
-			throw new MessageTimeoutException("No response received for " + input);
-		}
-		else {
-			return new MessageTimeoutException("No response received for " + input);
-		}
-	}
-
 }
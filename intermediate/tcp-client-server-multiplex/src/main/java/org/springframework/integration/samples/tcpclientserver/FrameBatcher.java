@@ -0,0 +1,237 @@
+/*
+ * Copyright 2002-2026 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.integration.samples.tcpclientserver;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+import org.springframework.beans.factory.BeanFactory;
+import org.springframework.beans.factory.BeanFactoryAware;
+import org.springframework.context.ApplicationListener;
+import org.springframework.integration.channel.MessagePublishingErrorHandler;
+import org.springframework.integration.context.IntegrationContextUtils;
+import org.springframework.integration.ip.IpHeaders;
+import org.springframework.integration.ip.tcp.connection.TcpConnectionCloseEvent;
+import org.springframework.integration.support.MessageBuilder;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageChannel;
+import org.springframework.messaging.MessagingException;
+import org.springframework.scheduling.TaskScheduler;
+import org.springframework.util.Assert;
+
+/**
+ * Coalesces the frames sent to a connection into batches, framed by a
+ * {@link LengthHeaderFramingSerializer}, so that the outbound channel adapter writes
+ * each batch with a single write and flush; the connection factory's serializer must
+ * write the {@code byte[]} as is
+ * ({@link org.springframework.integration.ip.tcp.serializer.ByteArrayRawSerializer}).
+ * <p>
+ * Frames are queued per connection (the {@link IpHeaders#CONNECTION_ID} header; on a
+ * client with a single shared connection there is no such header). A batch is sent to
+ * the output channel (which feeds the outbound channel adapter) when the queued
+ * payloads reach the byte budget, or when the time window that started with the first
+ * queued frame ends, whichever comes first. With a window of 0 every frame triggers a
+ * flush; frames queued by other threads while a flush is in progress still go out
+ * together in the next batch.
+ * <p>
+ * If sending a batch fails, the failure is logged and each of the batched messages is
+ * failed: a {@link MessagingException} is published to its error channel (the
+ * {@code errorChannel} header, or the default {@code errorChannel}), so callers waiting
+ * for replies are not left to time out.
+ *
+ * @since 5.1
+ *
+ */
+public class FrameBatcher implements BeanFactoryAware, ApplicationListener<TcpConnectionCloseEvent> {
+
+	private static final Log logger = LogFactory.getLog(FrameBatcher.class);
+
+	private static final Object NO_CONNECTION_ID = new Object();
+
+	private final Map<Object, Batch> batches = new ConcurrentHashMap<>();
+
+	private final LengthHeaderFramingSerializer framing;
+
+	private final MessageChannel outputChannel;
+
+	private volatile TaskScheduler taskScheduler;
+
+	private final MessagePublishingErrorHandler errorHandler = new MessagePublishingErrorHandler();
+
+	private volatile long window = 1;
+
+	private volatile int byteBudget = 16384;
+
+	private BeanFactory beanFactory;
+
+	public FrameBatcher(LengthHeaderFramingSerializer framing, MessageChannel outputChannel) {
+		Assert.notNull(framing, "'framing' cannot be null");
+		Assert.notNull(outputChannel, "'outputChannel' cannot be null");
+		this.framing = framing;
+		this.outputChannel = outputChannel;
+	}
+
+	/**
+	 * @param window the time window in milliseconds; default 1.
+	 */
+	public void setWindow(long window) {
+		this.window = window;
+	}
+
+	/**
+	 * @param byteBudget the number of payload bytes that triggers a flush; default 16384.
+	 */
+	public void setByteBudget(int byteBudget) {
+		this.byteBudget = byteBudget;
+	}
+
+	public void setTaskScheduler(TaskScheduler taskScheduler) {
+		this.taskScheduler = taskScheduler;
+	}
+
+	@Override
+	public void setBeanFactory(BeanFactory beanFactory) {
+		this.beanFactory = beanFactory;
+		this.errorHandler.setBeanFactory(beanFactory);
+	}
+
+	/**
+	 * Queue a frame.
+	 * @param message the message; the payload must be a {@code String} or {@code byte[]}.
+	 */
+	public void add(Message<?> message) {
+		Object connectionId = message.getHeaders().get(IpHeaders.CONNECTION_ID);
+		Object key = connectionId == null ? NO_CONNECTION_ID : connectionId;
+		Batch batch = this.batches.get(key);
+		if (batch == null) {
+			batch = this.batches.computeIfAbsent(key, k -> new Batch(connectionId));
+		}
+		batch.add(message);
+	}
+
+	/**
+	 * Send everything queued for all connections.
+	 */
+	public void flush() {
+		for (Batch batch : this.batches.values()) {
+			batch.flush();
+		}
+	}
+
+	@Override
+	public void onApplicationEvent(TcpConnectionCloseEvent event) {
+		this.batches.remove(event.getConnectionId());
+	}
+
+	private TaskScheduler obtainTaskScheduler() {
+		if (this.taskScheduler == null) {
+			Assert.state(this.beanFactory != null, "A 'taskScheduler' or a 'beanFactory' is required");
+			this.taskScheduler = IntegrationContextUtils.getTaskScheduler(this.beanFactory);
+		}
+		return this.taskScheduler;
+	}
+
+	private final class Batch {
+
+		private final Object connectionId;
+
+		private final Queue<Frame> frames = new ConcurrentLinkedQueue<>();
+
+		private final AtomicInteger bytes = new AtomicInteger();
+
+		private final AtomicBoolean scheduled = new AtomicBoolean();
+
+		Batch(Object connectionId) {
+			this.connectionId = connectionId;
+		}
+
+		void add(Message<?> message) {
+			Frame frame = new Frame(message);
+			this.frames.add(frame);
+			long window = FrameBatcher.this.window;
+			if (this.bytes.addAndGet(frame.payload.length) >= FrameBatcher.this.byteBudget || window <= 0) {
+				flush();
+			}
+			else if (window > 0 && this.scheduled.compareAndSet(false, true)) {
+				obtainTaskScheduler().schedule(this::timedFlush, new Date(System.currentTimeMillis() + window));
+			}
+		}
+
+		private void timedFlush() {
+			this.scheduled.set(false);
+			flush();
+		}
+
+		/*
+		 * Synchronized so that batches are sent in the order their frames were drained.
+		 */
+		synchronized void flush() {
+			List<Frame> drained = new ArrayList<>();
+			List<byte[]> payloads = new ArrayList<>();
+			int total = 0;
+			Frame frame;
+			while ((frame = this.frames.poll()) != null) {
+				drained.add(frame);
+				payloads.add(frame.payload);
+				total += frame.payload.length;
+			}
+			if (drained.isEmpty()) {
+				return;
+			}
+			this.bytes.addAndGet(-total);
+			try {
+				MessageBuilder<byte[]> builder = MessageBuilder.withPayload(FrameBatcher.this.framing.batch(payloads));
+				if (this.connectionId != null) {
+					builder.setHeader(IpHeaders.CONNECTION_ID, this.connectionId);
+				}
+				FrameBatcher.this.outputChannel.send(builder.build());
+			}
+			catch (RuntimeException e) {
+				logger.error("Failed to send a batch of " + drained.size() + " frames"
+						+ (this.connectionId == null ? "" : " to " + this.connectionId), e);
+				for (Frame failed : drained) {
+					FrameBatcher.this.errorHandler.handleError(
+							new MessagingException(failed.message, "Failed to send batch", e));
+				}
+			}
+		}
+
+	}
+
+	private static final class Frame {
+
+		private final Message<?> message;
+
+		private final byte[] payload;
+
+		Frame(Message<?> message) {
+			this.message = message;
+			this.payload = CorrelationIdFrames.bytes(message.getPayload());
+		}
+
+	}
+
+}
@@ -0,0 +1,260 @@
+/*
+ * Copyright 2002-2026 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.integration.samples.tcpclientserver;
+
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicIntegerFieldUpdater;
+import java.util.concurrent.locks.LockSupport;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.util.Assert;
+
+/**
+ * A hashed timer wheel for large numbers of short timeouts that are usually
+ * cancelled before they expire, such as per-request reply timeouts.
+ * <p>
+ * Scheduling and cancelling are lock-free and O(1): new timeouts are queued and moved
+ * into their wheel bucket by a single worker thread on the next tick; cancelled
+ * timeouts are unlinked when the worker next visits their bucket. Timeouts fire with
+ * a granularity of one tick, on the worker thread, so tasks must be short.
+ *
+ * @since 5.1
+ *
+ */
+public class HashedWheelTimer implements DisposableBean {
+
+	private static final Log logger = LogFactory.getLog(HashedWheelTimer.class);
+
+	private final Queue<Timeout> pending = new ConcurrentLinkedQueue<>();
+
+	private final Timeout[] wheel;
+
+	private final int mask;
+
+	private final long tickNanos;
+
+	private final String threadName;
+
+	private volatile Thread worker;
+
+	private volatile boolean stopped;
+
+	private long startTime;
+
+	/**
+	 * Create a timer with 10 millisecond ticks and 512 buckets.
+	 */
+	public HashedWheelTimer() {
+		this(10, 512);
+	}
+
+	/**
+	 * @param tickMillis the tick duration in milliseconds.
+	 * @param buckets the number of buckets; rounded up to a power of two.
+	 */
+	public HashedWheelTimer(long tickMillis, int buckets) {
+		Assert.isTrue(tickMillis > 0, "'tickMillis' must be > 0");
+		Assert.isTrue(buckets > 0 && buckets <= 1 << 20, "'buckets' must be between 1 and 2^20");
+		int size = Integer.highestOneBit(buckets);
+		this.wheel = new Timeout[size < buckets ? size << 1 : size];
+		this.mask = this.wheel.length - 1;
+		this.tickNanos = TimeUnit.MILLISECONDS.toNanos(tickMillis);
+		this.threadName = "wheel-timer-" + Integer.toHexString(System.identityHashCode(this));
+	}
+
+	/**
+	 * Schedule a task; the worker thread is started on first use.
+	 * @param task the task to run when the timeout expires.
+	 * @param delay the delay.
+	 * @param unit the unit of the delay.
+	 * @return the timeout, which can be cancelled.
+	 */
+	public Timeout schedule(Runnable task, long delay, TimeUnit unit) {
+		Assert.state(!this.stopped, "Timer is stopped");
+		if (this.worker == null) {
+			start();
+		}
+		Timeout timeout = new Timeout(task, System.nanoTime() + unit.toNanos(delay));
+		this.pending.add(timeout);
+		return timeout;
+	}
+
+	private synchronized void start() {
+		if (this.worker == null) {
+			this.startTime = System.nanoTime();
+			Thread thread = new Thread(this::run, this.threadName);
+			thread.setDaemon(true);
+			thread.start();
+			this.worker = thread;
+		}
+	}
+
+	/**
+	 * Stop the worker thread; pending timeouts never fire.
+	 */
+	public void stop() {
+		this.stopped = true;
+		Thread thread = this.worker;
+		if (thread != null) {
+			LockSupport.unpark(thread);
+		}
+	}
+
+	@Override
+	public void destroy() {
+		stop();
+	}
+
+	private void run() {
+		long tick = 0;
+		while (!this.stopped) {
+			long deadline = this.startTime + (tick + 1) * this.tickNanos;
+			long wait;
+			while ((wait = deadline - System.nanoTime()) > 0 && !this.stopped) {
+				LockSupport.parkNanos(this, wait);
+			}
+			if (this.stopped) {
+				break;
+			}
+			transferPending(tick);
+			expire(tick);
+			tick++;
+		}
+		this.pending.clear();
+	}
+
+	private void transferPending(long tick) {
+		// bounded, so that a flood of new timeouts cannot starve expiry
+		for (int i = 0; i < 100000; i++) {
+			Timeout timeout = this.pending.poll();
+			if (timeout == null) {
+				return;
+			}
+			if (timeout.state != Timeout.PENDING) {
+				continue;
+			}
+			long calculated = (timeout.deadline - this.startTime) / this.tickNanos;
+			timeout.remainingRounds = (calculated - tick) / this.wheel.length;
+			int index = (int) (Math.max(calculated, tick) & this.mask);
+			timeout.next = this.wheel[index];
+			if (timeout.next != null) {
+				timeout.next.prev = timeout;
+			}
+			this.wheel[index] = timeout;
+		}
+	}
+
+	private void expire(long tick) {
+		int index = (int) (tick & this.mask);
+		Timeout timeout = this.wheel[index];
+		while (timeout != null) {
+			Timeout next = timeout.next;
+			if (timeout.state != Timeout.PENDING) {
+				unlink(index, timeout);
+			}
+			else if (timeout.remainingRounds <= 0) {
+				unlink(index, timeout);
+				timeout.expire();
+			}
+			else {
+				timeout.remainingRounds--;
+			}
+			timeout = next;
+		}
+	}
+
+	private void unlink(int index, Timeout timeout) {
+		if (timeout.prev != null) {
+			timeout.prev.next = timeout.next;
+		}
+		else {
+			this.wheel[index] = timeout.next;
+		}
+		if (timeout.next != null) {
+			timeout.next.prev = timeout.prev;
+		}
+		timeout.prev = null;
+		timeout.next = null;
+	}
+
+	/**
+	 * A scheduled task.
+	 */
+	public static final class Timeout {
+
+		private static final int PENDING = 0;
+
+		private static final int CANCELLED = 1;
+
+		private static final int EXPIRED = 2;
+
+		private static final AtomicIntegerFieldUpdater<Timeout> STATE =
+				AtomicIntegerFieldUpdater.newUpdater(Timeout.class, "state");
+
+		private final Runnable task;
+
+		private final long deadline;
+
+		private volatile int state;
+
+		// only accessed by the worker thread
+
+		private long remainingRounds;
+
+		private Timeout prev;
+
+		private Timeout next;
+
+		Timeout(Runnable task, long deadline) {
+			this.task = task;
+			this.deadline = deadline;
+		}
+
+		/**
+		 * @return true if the timeout was cancelled by this call; false if it has
+		 * already expired or been cancelled.
+		 */
+		public boolean cancel() {
+			return STATE.compareAndSet(this, PENDING, CANCELLED);
+		}
+
+		public boolean isExpired() {
+			return this.state == EXPIRED;
+		}
+
+		public boolean isCancelled() {
+			return this.state == CANCELLED;
+		}
+
+		private void expire() {
+			if (STATE.compareAndSet(this, PENDING, EXPIRED)) {
+				try {
+					this.task.run();
+				}
+				catch (RuntimeException e) {
+					logger.error("Timeout task failed", e);
+				}
+			}
+		}
+
+	}
+
+}
@@ -0,0 +1,238 @@
+/*
+ * Copyright 2002-2026 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.integration.samples.tcpclientserver;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.List;
+
+import org.springframework.core.serializer.Deserializer;
+import org.springframework.core.serializer.Serializer;
+import org.springframework.integration.ip.tcp.serializer.SoftEndOfStreamException;
+import org.springframework.util.Assert;
+
+/**
+ * Length-prefixed framing with a 2 byte, 4 byte (both big endian, unsigned) or
+ * varint (unsigned LEB128, 1-5 bytes) header.
+ * <p>
+ * Each frame is written with a single {@code write} call (header and payload are
+ * assembled in a per-thread buffer). {@link #batch(List)} frames several payloads
+ * into one array, for a {@link FrameBatcher}. The deserializer reads the header from the
+ * connection's buffered stream and the payload directly into the array that is
+ * returned, so when several frames arrive in one socket read they are decoded one
+ * after the other from the connection's buffer with no intermediate copies.
+ *
+ * @since 5.1
+ *
+ */
+public class LengthHeaderFramingSerializer implements Serializer<Object>, Deserializer<byte[]> {
+
+	/**
+	 * The length header format.
+	 */
+	public enum HeaderType {
+
+		/**
+		 * 2 bytes; frames up to 65535 bytes.
+		 */
+		TWO_BYTE,
+
+		/**
+		 * 4 bytes.
+		 */
+		FOUR_BYTE,
+
+		/**
+		 * 1 byte for frames up to 127 bytes, 2 up to 16383 and so on.
+		 */
+		VARINT
+
+	}
+
+	private final ThreadLocal<byte[]> buffers = ThreadLocal.withInitial(() -> new byte[1024]);
+
+	private final HeaderType headerType;
+
+	private int maxMessageSize = 2048;
+
+	public LengthHeaderFramingSerializer() {
+		this(HeaderType.VARINT);
+	}
+
+	public LengthHeaderFramingSerializer(HeaderType headerType) {
+		Assert.notNull(headerType, "'headerType' cannot be null");
+		this.headerType = headerType;
+	}
+
+	/**
+	 * @param maxMessageSize the largest frame accepted by the deserializer; default 2048.
+	 */
+	public void setMaxMessageSize(int maxMessageSize) {
+		this.maxMessageSize = maxMessageSize;
+	}
+
+	public HeaderType getHeaderType() {
+		return this.headerType;
+	}
+
+	@Override
+	public void serialize(Object object, OutputStream outputStream) throws IOException {
+		byte[] payload = CorrelationIdFrames.bytes(object);
+		int length = headerLength(payload.length) + payload.length;
+		byte[] buffer = this.buffers.get();
+		if (buffer.length < length) {
+			buffer = new byte[Math.max(length, buffer.length * 2)];
+			this.buffers.set(buffer);
+		}
+		int position = writeHeader(buffer, 0, payload.length);
+		System.arraycopy(payload, 0, buffer, position, payload.length);
+		outputStream.write(buffer, 0, length);
+		outputStream.flush();
+	}
+
+	/**
+	 * Frame several payloads into one array, to be written as is (for example with a
+	 * {@link org.springframework.integration.ip.tcp.serializer.ByteArrayRawSerializer}).
+	 * @param payloads the payloads.
+	 * @return the frames.
+	 */
+	public byte[] batch(List<byte[]> payloads) {
+		int length = 0;
+		for (byte[] payload : payloads) {
+			length += headerLength(payload.length) + payload.length;
+		}
+		byte[] bytes = new byte[length];
+		int position = 0;
+		for (byte[] payload : payloads) {
+			position = writeHeader(bytes, position, payload.length);
+			System.arraycopy(payload, 0, bytes, position, payload.length);
+			position += payload.length;
+		}
+		return bytes;
+	}
+
+	@Override
+	public byte[] deserialize(InputStream inputStream) throws IOException {
+		int length = readLength(inputStream);
+		if (length > this.maxMessageSize) {
+			throw new IOException("Message length " + length + " exceeds max message length: " + this.maxMessageSize);
+		}
+		byte[] payload = new byte[length];
+		int read = 0;
+		while (read < length) {
+			int n = inputStream.read(payload, read, length - read);
+			if (n < 0) {
+				throw new IOException("Stream closed after " + read + " of " + length + " bytes");
+			}
+			read += n;
+		}
+		return payload;
+	}
+
+	private int readLength(InputStream inputStream) throws IOException {
+		switch (this.headerType) {
+			case TWO_BYTE:
+				return readFixed(inputStream, 2);
+			case FOUR_BYTE:
+				int length = readFixed(inputStream, 4);
+				if (length < 0) {
+					throw new IOException("Message length " + (length & 0xffffffffL) + " is too large");
+				}
+				return length;
+			default:
+				return readVarint(inputStream);
+		}
+	}
+
+	private static int readFixed(InputStream inputStream, int bytes) throws IOException {
+		int length = 0;
+		for (int i = 0; i < bytes; i++) {
+			int b = inputStream.read();
+			if (b < 0) {
+				endOfStream(i);
+			}
+			length = length << 8 | b;
+		}
+		return length;
+	}
+
+	private static int readVarint(InputStream inputStream) throws IOException {
+		int length = 0;
+		for (int i = 0; i < 5; i++) {
+			int b = inputStream.read();
+			if (b < 0) {
+				endOfStream(i);
+			}
+			length |= (b & 0x7f) << (7 * i);
+			if ((b & 0x80) == 0) {
+				if (length < 0) {
+					throw new IOException("Varint message length is too large");
+				}
+				return length;
+			}
+		}
+		throw new IOException("Malformed varint message length");
+	}
+
+	private static void endOfStream(int headerBytesRead) throws IOException {
+		if (headerBytesRead == 0) {
+			throw new SoftEndOfStreamException("Stream closed between payloads");
+		}
+		throw new IOException("Stream closed in the middle of a length header");
+	}
+
+	int headerLength(int length) {
+		switch (this.headerType) {
+			case TWO_BYTE:
+				Assert.isTrue(length <= 0xffff, () -> "Message length " + length + " exceeds 65535");
+				return 2;
+			case FOUR_BYTE:
+				return 4;
+			default:
+				int bytes = 1;
+				for (int remaining = length >>> 7; remaining != 0; remaining >>>= 7) {
+					bytes++;
+				}
+				return bytes;
+		}
+	}
+
+	int writeHeader(byte[] buffer, int position, int length) {
+		switch (this.headerType) {
+			case TWO_BYTE:
+				headerLength(length);
+				buffer[position++] = (byte) (length >>> 8);
+				buffer[position++] = (byte) length;
+				return position;
+			case FOUR_BYTE:
+				buffer[position++] = (byte) (length >>> 24);
+				buffer[position++] = (byte) (length >>> 16);
+				buffer[position++] = (byte) (length >>> 8);
+				buffer[position++] = (byte) length;
+				return position;
+			default:
+				int remaining = length;
+				while ((remaining & ~0x7f) != 0) {
+					buffer[position++] = (byte) (remaining & 0x7f | 0x80);
+					remaining >>>= 7;
+				}
+				buffer[position++] = (byte) remaining;
+				return position;
+		}
+	}
+
+}
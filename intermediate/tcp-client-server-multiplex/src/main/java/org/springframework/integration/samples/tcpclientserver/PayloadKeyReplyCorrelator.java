@@ -0,0 +1,113 @@
+/*
+ * Copyright 2002-2026 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.integration.samples.tcpclientserver;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessagingException;
+import org.springframework.util.Assert;
+
+/**
+ * Correlates requests and replies that carry their correlation key at the start of
+ * the payload (the first {@code keyLength} characters; a reply starts with the
+ * payload of its request). This replaces an aggregator and its group timeout: there
+ * is no message group and no message store, just a concurrent map of in-flight
+ * requests with their deadlines in a {@link HashedWheelTimer}.
+ * <p>
+ * Two requests with the same key cannot be in flight at the same time; the second
+ * one is rejected rather than being given the reply to the first.
+ *
+ * @since 5.1
+ *
+ */
+public class PayloadKeyReplyCorrelator extends AbstractReplyCorrelator {
+
+	private final Map<String, InFlight> inFlight = new ConcurrentHashMap<>();
+
+	private final int keyLength;
+
+	public PayloadKeyReplyCorrelator(HashedWheelTimer timer) {
+		this(timer, 3);
+	}
+
+	public PayloadKeyReplyCorrelator(HashedWheelTimer timer, int keyLength) {
+		super(timer);
+		Assert.isTrue(keyLength > 0, "'keyLength' must be > 0");
+		this.keyLength = keyLength;
+	}
+
+	/**
+	 * Register the request; it is returned unchanged, for the outbound adapter.
+	 * @param request the request.
+	 * @return the request.
+	 */
+	public Message<String> request(Message<String> request) {
+		String key = key(request.getPayload());
+		InFlight pending = new InFlight(request);
+		if (this.inFlight.putIfAbsent(key, pending) != null) {
+			throw new MessagingException(request, "A request with correlation key '" + key + "' is already in flight");
+		}
+		pending.timeout = scheduleTimeout(() -> {
+			if (this.inFlight.remove(key, pending)) {
+				timedOut(request);
+			}
+		});
+		return request;
+	}
+
+	/**
+	 * Send the reply to the caller waiting for it; replies that arrive after their
+	 * request timed out are dropped.
+	 * @param reply the reply.
+	 */
+	public void reply(Message<String> reply) {
+		String key = key(reply.getPayload());
+		InFlight pending = this.inFlight.remove(key);
+		if (pending == null) {
+			lateReply(key);
+			return;
+		}
+		HashedWheelTimer.Timeout timeout = pending.timeout;
+		if (timeout != null) {
+			timeout.cancel();
+		}
+		sendReply(pending.request, reply);
+	}
+
+	@Override
+	public int getInFlightCount() {
+		return this.inFlight.size();
+	}
+
+	private String key(String payload) {
+		return payload.length() > this.keyLength ? payload.substring(0, this.keyLength) : payload;
+	}
+
+	private static final class InFlight {
+
+		private final Message<?> request;
+
+		private volatile HashedWheelTimer.Timeout timeout;
+
+		InFlight(Message<?> request) {
+			this.request = request;
+		}
+
+	}
+
+}
@@ -0,0 +1,153 @@
+/*
+ * Copyright 2002-2026 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.integration.samples.tcpclientserver;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+import org.springframework.integration.MessageTimeoutException;
+import org.springframework.integration.support.MessageBuilder;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessagingException;
+import org.springframework.util.Assert;
+
+/**
+ * Correlates requests and replies sent over a pair of collaborating channel adapters
+ * sharing one connection, so that any number of requests (up to the in-flight
+ * capacity) can be outstanding, and replies may arrive in any order.
+ * <p>
+ * {@link #request(Message)} assigns each request a correlation id, remembers it and
+ * returns a {@link CorrelationIdFrames frame} for the outbound adapter;
+ * {@link #reply(Message)} takes frames from the inbound adapter and sends the reply
+ * directly to the reply channel of the matching request. In-flight requests are kept
+ * in a lock-free, fixed-size table indexed by id; a request without a reply within the
+ * reply timeout is removed by a {@link HashedWheelTimer} and its caller gets a
+ * {@link MessageTimeoutException}.
+ *
+ * @since 5.1
+ *
+ */
+public class PipelinedRequestCorrelator extends AbstractReplyCorrelator {
+
+	private final AtomicReferenceArray<InFlight> inFlight;
+
+	private final int mask;
+
+	private final AtomicInteger ids = new AtomicInteger();
+
+	private final AtomicInteger inFlightCount = new AtomicInteger();
+
+	public PipelinedRequestCorrelator(HashedWheelTimer timer) {
+		this(timer, 65536);
+	}
+
+	/**
+	 * @param timer the timer for reply timeouts.
+	 * @param capacity the maximum number of in-flight requests; rounded up to a power
+	 * of two.
+	 */
+	public PipelinedRequestCorrelator(HashedWheelTimer timer, int capacity) {
+		super(timer);
+		Assert.isTrue(capacity > 0 && capacity <= 1 << 24, "'capacity' must be between 1 and 2^24");
+		int size = Integer.highestOneBit(capacity);
+		this.inFlight = new AtomicReferenceArray<>(size < capacity ? size << 1 : size);
+		this.mask = this.inFlight.length() - 1;
+	}
+
+	/**
+	 * Register the request and build its frame.
+	 * @param request the request; the payload must be a {@code String} or {@code byte[]}.
+	 * @return the message to send to the outbound adapter.
+	 */
+	public Message<byte[]> request(Message<?> request) {
+		byte[] payload = CorrelationIdFrames.bytes(request.getPayload());
+		InFlight pending = register(request);
+		pending.timeout = scheduleTimeout(() -> expire(pending));
+		return MessageBuilder.withPayload(CorrelationIdFrames.frame(pending.id, payload))
+				.copyHeaders(request.getHeaders())
+				.build();
+	}
+
+	private InFlight register(Message<?> request) {
+		for (int attempt = 0; attempt <= this.mask; attempt++) {
+			int id = this.ids.incrementAndGet();
+			InFlight pending = new InFlight(id, request);
+			// a slot is still taken only if the request from (capacity) ids ago is outstanding
+			if (this.inFlight.compareAndSet(id & this.mask, null, pending)) {
+				this.inFlightCount.incrementAndGet();
+				return pending;
+			}
+		}
+		throw new MessagingException(request, "Too many in-flight requests: " + this.inFlight.length());
+	}
+
+	/**
+	 * Route a reply frame to the caller waiting for it; replies that arrive after their
+	 * request timed out are dropped.
+	 * @param reply the reply frame.
+	 */
+	public void reply(Message<byte[]> reply) {
+		byte[] frame = reply.getPayload();
+		int id = CorrelationIdFrames.correlationId(frame);
+		InFlight pending = this.inFlight.get(id & this.mask);
+		if (pending == null || pending.id != id || !remove(pending)) {
+			lateReply(id);
+			return;
+		}
+		HashedWheelTimer.Timeout timeout = pending.timeout;
+		if (timeout != null) {
+			timeout.cancel();
+		}
+		sendReply(pending.request, MessageBuilder.withPayload(CorrelationIdFrames.payload(frame))
+				.copyHeaders(reply.getHeaders())
+				.build());
+	}
+
+	private void expire(InFlight pending) {
+		if (remove(pending)) {
+			timedOut(pending.request);
+		}
+	}
+
+	private boolean remove(InFlight pending) {
+		if (this.inFlight.compareAndSet(pending.id & this.mask, pending, null)) {
+			this.inFlightCount.decrementAndGet();
+			return true;
+		}
+		return false;
+	}
+
+	@Override
+	public int getInFlightCount() {
+		return this.inFlightCount.get();
+	}
+
+	private static final class InFlight {
+
+		private final int id;
+
+		private final Message<?> request;
+
+		private volatile HashedWheelTimer.Timeout timeout;
+
+		InFlight(int id, Message<?> request) {
+			this.id = id;
+			this.request = request;
+		}
+
+	}
+
+}
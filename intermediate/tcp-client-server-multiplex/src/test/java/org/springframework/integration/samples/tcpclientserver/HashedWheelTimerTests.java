@@ -0,0 +1,80 @@
+/*
+ * Copyright 2002-2026 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.integration.samples.tcpclientserver;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.After;
+import org.junit.Test;
+
+/**
+ * Tests for {@link HashedWheelTimer}.
+ *
+ * @since 5.1
+ *
+ */
+public class HashedWheelTimerTests {
+
+	// 8 buckets of 5ms: timeouts longer than 40ms need more than one round
+	private final HashedWheelTimer timer = new HashedWheelTimer(5, 8);
+
+	@After
+	public void tearDown() {
+		this.timer.stop();
+	}
+
+	@Test
+	public void testExpiresNotEarly() throws InterruptedException {
+		int timeouts = 1000;
+		CountDownLatch latch = new CountDownLatch(timeouts);
+		Queue<String> early = new ConcurrentLinkedQueue<>();
+		for (int i = 0; i < timeouts; i++) {
+			long delay = i % 200;
+			long due = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(delay);
+			this.timer.schedule(() -> {
+				if (System.nanoTime() < due) {
+					early.add(delay + "ms");
+				}
+				latch.countDown();
+			}, delay, TimeUnit.MILLISECONDS);
+		}
+		assertTrue(latch.await(10, TimeUnit.SECONDS));
+		assertEquals("[]", early.toString());
+	}
+
+	@Test
+	public void testCancel() throws InterruptedException {
+		AtomicInteger fired = new AtomicInteger();
+		HashedWheelTimer.Timeout cancelled = this.timer.schedule(fired::incrementAndGet, 20, TimeUnit.MILLISECONDS);
+		CountDownLatch latch = new CountDownLatch(1);
+		HashedWheelTimer.Timeout expired = this.timer.schedule(latch::countDown, 100, TimeUnit.MILLISECONDS);
+		assertTrue(cancelled.cancel());
+		assertTrue(latch.await(10, TimeUnit.SECONDS));
+		assertEquals(0, fired.get());
+		assertTrue(cancelled.isCancelled());
+		assertTrue(expired.isExpired());
+		assertFalse(expired.cancel());
+	}
+
+}
@@ -0,0 +1,210 @@
+/*
+ * Copyright 2002-2026 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.integration.samples.tcpclientserver;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.Test;
+
+import org.springframework.integration.channel.QueueChannel;
+import org.springframework.integration.ip.IpHeaders;
+import org.springframework.integration.ip.tcp.serializer.SoftEndOfStreamException;
+import org.springframework.integration.support.MessageBuilder;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageDeliveryException;
+import org.springframework.messaging.MessagingException;
+import org.springframework.messaging.support.ErrorMessage;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskScheduler;
+
+/**
+ * Tests for {@link LengthHeaderFramingSerializer} and {@link FrameBatcher}.
+ *
+ * @since 5.1
+ *
+ */
+public class LengthHeaderFramingSerializerTests {
+
+	private static final int[] LENGTHS = { 0, 1, 127, 128, 300, 16383, 16384, 65535 };
+
+	@Test
+	public void testRoundTrip() throws IOException {
+		for (LengthHeaderFramingSerializer.HeaderType headerType : LengthHeaderFramingSerializer.HeaderType.values()) {
+			LengthHeaderFramingSerializer serializer = new LengthHeaderFramingSerializer(headerType);
+			serializer.setMaxMessageSize(100000);
+			ByteArrayOutputStream out = new ByteArrayOutputStream();
+			for (int length : LENGTHS) {
+				serializer.serialize(payload(length), out);
+			}
+			InputStream in = new ByteArrayInputStream(out.toByteArray());
+			for (int length : LENGTHS) {
+				assertArrayEquals(headerType + " " + length, payload(length), serializer.deserialize(in));
+			}
+			assertSoftEndOfStream(serializer, in);
+		}
+	}
+
+	@Test
+	public void testHeaderLengths() throws IOException {
+		assertEquals(2 + 5, frameLength(LengthHeaderFramingSerializer.HeaderType.TWO_BYTE, 5));
+		assertEquals(4 + 5, frameLength(LengthHeaderFramingSerializer.HeaderType.FOUR_BYTE, 5));
+		assertEquals(1 + 127, frameLength(LengthHeaderFramingSerializer.HeaderType.VARINT, 127));
+		assertEquals(2 + 128, frameLength(LengthHeaderFramingSerializer.HeaderType.VARINT, 128));
+		assertEquals(3 + 16384, frameLength(LengthHeaderFramingSerializer.HeaderType.VARINT, 16384));
+	}
+
+	@Test
+	public void testBatchIsDecodedFrameByFrame() throws IOException {
+		LengthHeaderFramingSerializer serializer = new LengthHeaderFramingSerializer();
+		List<byte[]> payloads = new ArrayList<>();
+		for (int i = 0; i < 100; i++) {
+			payloads.add(payload(i * 3));
+		}
+		InputStream in = new ByteArrayInputStream(serializer.batch(payloads));
+		for (byte[] payload : payloads) {
+			assertArrayEquals(payload, serializer.deserialize(in));
+		}
+		assertSoftEndOfStream(serializer, in);
+	}
+
+	@Test
+	public void testLimits() throws IOException {
+		LengthHeaderFramingSerializer serializer =
+				new LengthHeaderFramingSerializer(LengthHeaderFramingSerializer.HeaderType.TWO_BYTE);
+		try {
+			serializer.serialize(payload(65536), new ByteArrayOutputStream());
+			fail("expected exception");
+		}
+		catch (IllegalArgumentException e) {
+			assertEquals("Message length 65536 exceeds 65535", e.getMessage());
+		}
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		serializer.serialize(payload(3000), out);
+		try {
+			serializer.deserialize(new ByteArrayInputStream(out.toByteArray()));
+			fail("expected exception");
+		}
+		catch (IOException e) {
+			assertEquals("Message length 3000 exceeds max message length: 2048", e.getMessage());
+		}
+	}
+
+	@Test
+	public void testBatcher() {
+		LengthHeaderFramingSerializer serializer = new LengthHeaderFramingSerializer();
+		QueueChannel out = new QueueChannel();
+		FrameBatcher batcher = new FrameBatcher(serializer, out);
+		ThreadPoolTaskScheduler scheduler = new ThreadPoolTaskScheduler();
+		scheduler.initialize();
+		batcher.setTaskScheduler(scheduler);
+		batcher.setWindow(50);
+		batcher.setByteBudget(100);
+		try {
+			// the byte budget flushes the first 4 frames at once
+			for (int i = 0; i < 4; i++) {
+				batcher.add(MessageBuilder.withPayload(payload(30)).setHeader(IpHeaders.CONNECTION_ID, "a").build());
+			}
+			Message<?> batch = out.receive(0);
+			assertNotNull(batch);
+			assertEquals("a", batch.getHeaders().get(IpHeaders.CONNECTION_ID));
+			assertEquals(4 * 31, ((byte[]) batch.getPayload()).length);
+
+			// the window flushes the rest
+			batcher.add(MessageBuilder.withPayload(payload(10)).setHeader(IpHeaders.CONNECTION_ID, "a").build());
+			batcher.add(MessageBuilder.withPayload(payload(10)).setHeader(IpHeaders.CONNECTION_ID, "a").build());
+			assertNull(out.receive(0));
+			batch = out.receive(10000);
+			assertNotNull(batch);
+			assertEquals(2 * 11, ((byte[]) batch.getPayload()).length);
+		}
+		finally {
+			scheduler.destroy();
+		}
+	}
+
+	@Test
+	public void testBatcherFailsMessagesWhenSendFails() {
+		LengthHeaderFramingSerializer serializer = new LengthHeaderFramingSerializer();
+		FrameBatcher batcher = new FrameBatcher(serializer, (message, timeout) -> {
+			throw new MessageDeliveryException(message, "connection closed");
+		});
+		ThreadPoolTaskScheduler scheduler = new ThreadPoolTaskScheduler();
+		scheduler.initialize();
+		batcher.setTaskScheduler(scheduler);
+		batcher.setWindow(50);
+		QueueChannel errors = new QueueChannel();
+		try {
+			for (int i = 0; i < 2; i++) {
+				batcher.add(MessageBuilder.withPayload(payload(10))
+						.setHeader(IpHeaders.CONNECTION_ID, "a")
+						.setErrorChannel(errors)
+						.build());
+			}
+			// the timed flush fails on the scheduler thread; both messages are failed
+			for (int i = 0; i < 2; i++) {
+				Message<?> error = errors.receive(10000);
+				assertNotNull(error);
+				assertTrue(error instanceof ErrorMessage);
+				MessagingException exception = (MessagingException) error.getPayload();
+				assertArrayEquals(payload(10), (byte[]) exception.getFailedMessage().getPayload());
+				assertTrue(exception.getCause() instanceof MessageDeliveryException);
+			}
+			assertNull(errors.receive(0));
+		}
+		finally {
+			scheduler.destroy();
+		}
+	}
+
+	private static int frameLength(LengthHeaderFramingSerializer.HeaderType headerType, int length)
+			throws IOException {
+
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		new LengthHeaderFramingSerializer(headerType).serialize(payload(length), out);
+		return out.size();
+	}
+
+	private static void assertSoftEndOfStream(LengthHeaderFramingSerializer serializer, InputStream in)
+			throws IOException {
+
+		try {
+			serializer.deserialize(in);
+			fail("expected exception");
+		}
+		catch (SoftEndOfStreamException e) {
+			// expected
+		}
+	}
+
+	private static byte[] payload(int length) {
+		byte[] payload = new byte[length];
+		Arrays.fill(payload, (byte) ('a' + length % 26));
+		return payload;
+	}
+
+}
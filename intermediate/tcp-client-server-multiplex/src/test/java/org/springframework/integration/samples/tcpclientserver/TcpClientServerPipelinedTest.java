@@ -0,0 +1,115 @@
+/*
+ * Copyright 2002-2026 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.integration.samples.tcpclientserver;
+
+import static org.hamcrest.Matchers.containsString;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.integration.ip.tcp.connection.AbstractServerConnectionFactory;
+import org.springframework.integration.ip.util.TestingUtilities;
+import org.springframework.integration.samples.tcpclientserver.support.CustomTestContextLoader;
+import org.springframework.messaging.MessagingException;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.ContextConfiguration;
+import org.springframework.test.context.junit4.SpringJUnit4ClassRunner;
+
+/**
+ * Pipelines many concurrent requests over one connection with
+ * {@link PipelinedRequestCorrelator}; unlike {@link TcpClientServerDemoTest}, the
+ * payloads carry no correlation data and may be identical.
+ *
+ * @since 5.1
+ *
+ */
+@ContextConfiguration(loader = CustomTestContextLoader.class,
+		locations = "/META-INF/spring/integration/tcpClientServerPipelined-context.xml")
+@RunWith(SpringJUnit4ClassRunner.class)
+@DirtiesContext
+public class TcpClientServerPipelinedTest {
+
+	@Autowired
+	SimpleGateway gw;
+
+	@Autowired
+	AbstractServerConnectionFactory server;
+
+	@Autowired
+	PipelinedRequestCorrelator correlator;
+
+	@Before
+	public void setup() {
+		TestingUtilities.waitListening(this.server, 10000L);
+	}
+
+	@Test
+	public void testHappyDay() {
+		assertEquals("Hello world!:echo", gw.send("Hello world!"));
+	}
+
+	@Test
+	public void testPipelined() throws Exception {
+		int requests = 5000;
+		ExecutorService executor = Executors.newFixedThreadPool(200);
+		CountDownLatch latch = new CountDownLatch(requests);
+		Queue<String> failures = new ConcurrentLinkedQueue<>();
+		for (int i = 0; i < requests; i++) {
+			String request = "Hello " + (i % 10); // shared prefixes, duplicate payloads
+			executor.execute(() -> {
+				try {
+					String result = gw.send(request);
+					if (!(request + ":echo").equals(result)) {
+						failures.add(request + " -> " + result);
+					}
+				}
+				catch (RuntimeException e) {
+					failures.add(request + " -> " + e);
+				}
+				latch.countDown();
+			});
+		}
+		assertTrue(latch.await(60, TimeUnit.SECONDS));
+		executor.shutdown();
+		assertEquals("[]", failures.toString());
+		assertEquals(0, this.correlator.getInFlightCount());
+	}
+
+	@Test
+	public void testTimeout() {
+		try {
+			gw.send("TIMEOUT_TEST");
+			fail("expected exception");
+		}
+		catch (MessagingException e) {
+			assertThat(e.getMessage(), containsString("No response received for TIMEOUT_TEST"));
+		}
+	}
+
+}